@@ -0,0 +1,83 @@
+package jp.sagalab.b3semi.bench;
+
+import jp.sagalab.b3semi.BatchInterpolator;
+import jp.sagalab.b3semi.InterpolationResult;
+import jp.sagalab.b3semi.PointSeries;
+import jp.sagalab.b3semi.SplineCurve;
+import jp.sagalab.b3semi.SplineCurveInterpolator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多数のストロークの補間のベンチマークです.
+ * <p>
+ * 1本ずつ補間する場合と {@link BatchInterpolator} で並列に補間する場合を比較します.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BatchInterpolatorBenchmark {
+
+  /**
+   * ストローク群とスレッドプールを保持するベンチマーク状態です.
+   */
+  @State(Scope.Benchmark)
+  public static class BatchState {
+    /** ストローク数 */
+    @Param({"100", "1000"})
+    public int strokes;
+    /** 並列度(0 の場合は利用可能なプロセッサ数) */
+    @Param({"1", "0"})
+    public int parallelism;
+
+    /** ストローク群 */
+    List<PointSeries> series;
+    /** スレッドプール */
+    ForkJoinPool pool;
+    /** 並列補間 */
+    BatchInterpolator batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      series = new ArrayList<>(strokes);
+      for (int i = 0; i < strokes; ++i) {
+        // 長さの異なるストロークを混ぜる
+        series.add(PointSeries.create(Strokes.synthetic(200 + (i % 8) * 100)));
+      }
+      pool = new ForkJoinPool((parallelism > 0) ? parallelism : Runtime.getRuntime().availableProcessors());
+      batch = BatchInterpolator.create(3, 0.05, pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      pool.shutdown();
+    }
+  }
+
+  @Benchmark
+  public List<SplineCurve> sequential(BatchState _state) {
+    List<SplineCurve> curves = new ArrayList<>(_state.series.size());
+    for (PointSeries points : _state.series) {
+      curves.add(SplineCurveInterpolator.interpolate(points, 3, 0.05));
+    }
+    return curves;
+  }
+
+  @Benchmark
+  public List<InterpolationResult> batch(BatchState _state) {
+    return _state.batch.interpolate(_state.series);
+  }
+}
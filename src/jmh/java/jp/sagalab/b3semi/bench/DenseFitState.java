@@ -0,0 +1,74 @@
+package jp.sagalab.b3semi.bench;
+
+import jp.sagalab.b3semi.Matrix;
+import jp.sagalab.b3semi.Point;
+import jp.sagalab.b3semi.Range;
+import jp.sagalab.b3semi.SplineCurveInterpolator;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 密な行列演算のベンチマーク状態です.
+ * <p>
+ * 密な重み行列は 点数 × 制御点数 の大きさになるため, {@link FitState} よりも小さな点列を用います.
+ * </p>
+ */
+@State(Scope.Benchmark)
+public class DenseFitState {
+
+  /** "sample" (Points/samplePoints.csv) または合成点列の点数 */
+  @Param({"sample", "500", "2000"})
+  public String stroke;
+
+  /** 次数 */
+  @Param({"3", "5"})
+  public int degree;
+
+  /** 節点間隔 */
+  @Param({"0.05", "0.2"})
+  public double knotInterval;
+
+  /** 点列 */
+  Point[] points;
+  /** 節点系列 */
+  double[] knots;
+  /** 重み行列 */
+  Matrix weights;
+  /** 重み行列の転置 */
+  Matrix weightsTransposed;
+  /** 正規方程式の係数行列 */
+  Matrix normalMatrix;
+  /** 正規方程式の右辺 */
+  Matrix normalRhs;
+  /** 右辺(各点のx座標, y座標) */
+  Matrix rhs;
+  /** 制約行列(両端点を通る) */
+  Matrix constraints;
+  /** 制約の右辺 */
+  Matrix constraintValues;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    points = Strokes.create(stroke);
+    Range range = Range.create(points[0].time(), points[points.length - 1].time());
+    knots = SplineCurveInterpolator.createKnots(range, degree, knotInterval);
+    weights = SplineCurveInterpolator.createWeightMatrix(points, degree, knots);
+    weightsTransposed = weights.transpose();
+
+    double[][] b = new double[points.length][];
+    for (int i = 0; i < points.length; ++i) {
+      b[i] = new double[]{points[i].x(), points[i].y()};
+    }
+    rhs = Matrix.create(b);
+    normalMatrix = weightsTransposed.product(weights);
+    normalRhs = weightsTransposed.product(rhs);
+
+    Point first = points[0];
+    Point last = points[points.length - 1];
+    constraints = SplineCurveInterpolator.createWeightMatrix(new Point[]{first, last}, degree, knots);
+    constraintValues = Matrix.create(new double[][]{{first.x(), first.y()}, {last.x(), last.y()}});
+  }
+}
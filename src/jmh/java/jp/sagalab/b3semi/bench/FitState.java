@@ -0,0 +1,63 @@
+package jp.sagalab.b3semi.bench;
+
+import jp.sagalab.b3semi.Matrix;
+import jp.sagalab.b3semi.Point;
+import jp.sagalab.b3semi.Range;
+import jp.sagalab.b3semi.SplineCurveInterpolator;
+import jp.sagalab.b3semi.WeightMatrix;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 点数, 次数, 節点間隔ごとに補間の各段階の入力を用意するベンチマーク状態です.
+ */
+@State(Scope.Benchmark)
+public class FitState {
+
+  /** "sample" (Points/samplePoints.csv) または合成点列の点数 */
+  @Param({"sample", "1000", "10000"})
+  public String stroke;
+
+  /** 次数 */
+  @Param({"3", "5"})
+  public int degree;
+
+  /** 節点間隔 */
+  @Param({"0.05", "0.2"})
+  public double knotInterval;
+
+  /** 点列 */
+  Point[] points;
+  /** 節点系列 */
+  double[] knots;
+  /** 疎な重み行列 */
+  WeightMatrix sparseWeights;
+  /** 右辺(各点のx座標, y座標) */
+  Matrix rhs;
+  /** 制約行列(両端点を通る) */
+  Matrix constraints;
+  /** 制約の右辺 */
+  Matrix constraintValues;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    points = Strokes.create(stroke);
+    Range range = Range.create(points[0].time(), points[points.length - 1].time());
+    knots = SplineCurveInterpolator.createKnots(range, degree, knotInterval);
+    sparseWeights = SplineCurveInterpolator.createSparseWeightMatrix(points, degree, knots);
+
+    double[][] b = new double[points.length][];
+    for (int i = 0; i < points.length; ++i) {
+      b[i] = new double[]{points[i].x(), points[i].y()};
+    }
+    rhs = Matrix.create(b);
+
+    Point first = points[0];
+    Point last = points[points.length - 1];
+    constraints = SplineCurveInterpolator.createWeightMatrix(new Point[]{first, last}, degree, knots);
+    constraintValues = Matrix.create(new double[][]{{first.x(), first.y()}, {last.x(), last.y()}});
+  }
+}
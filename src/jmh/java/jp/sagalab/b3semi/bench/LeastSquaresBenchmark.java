@@ -0,0 +1,52 @@
+package jp.sagalab.b3semi.bench;
+
+import jp.sagalab.b3semi.ConstrainedSolution;
+import jp.sagalab.b3semi.LeastSquares;
+import jp.sagalab.b3semi.Matrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 最小二乗法のベンチマークです.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LeastSquaresBenchmark {
+
+  @Benchmark
+  public Matrix solve(FitState _state) {
+    return LeastSquares.solve(_state.sparseWeights, _state.rhs);
+  }
+
+  @Benchmark
+  public Matrix solveConstrained(FitState _state) {
+    return LeastSquares.solveConstrained(
+            _state.sparseWeights, _state.rhs, _state.constraints, _state.constraintValues);
+  }
+
+  @Benchmark
+  public Matrix solveQR(FitState _state) {
+    return LeastSquares.solveQR(_state.sparseWeights, _state.rhs);
+  }
+
+  @Benchmark
+  public ConstrainedSolution solveConstrainedQR(FitState _state) {
+    return LeastSquares.solveConstrainedQR(
+            _state.sparseWeights, _state.rhs, _state.constraints, _state.constraintValues);
+  }
+
+  @Benchmark
+  public Matrix solveDense(DenseFitState _state) {
+    return LeastSquares.solve(_state.weights, _state.rhs);
+  }
+
+  @Benchmark
+  public Matrix solveConstrainedDense(DenseFitState _state) {
+    return LeastSquares.solveConstrained(
+            _state.weights, _state.rhs, _state.constraints, _state.constraintValues);
+  }
+}
@@ -0,0 +1,53 @@
+package jp.sagalab.b3semi.bench;
+
+import jp.sagalab.b3semi.Matrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 密な行列演算のベンチマークです.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MatrixBenchmark {
+
+  /** A<sup>T</sup>A の積 */
+  @Benchmark
+  public Matrix product(DenseFitState _state) {
+    return _state.weightsTransposed.product(_state.weights);
+  }
+
+  /** 転置行列を生成しない A<sup>T</sup>A */
+  @Benchmark
+  public Matrix gram(DenseFitState _state) {
+    return _state.weights.gram();
+  }
+
+  /** 転置行列を生成しない A<sup>T</sup>b */
+  @Benchmark
+  public Matrix transposeTimes(DenseFitState _state) {
+    return _state.weights.transposeTimes(_state.rhs);
+  }
+
+  /** 重み行列の転置 */
+  @Benchmark
+  public Matrix transpose(DenseFitState _state) {
+    return _state.weights.transpose();
+  }
+
+  /** 正規方程式の LU 分解による求解 */
+  @Benchmark
+  public Matrix solve(DenseFitState _state) {
+    return _state.normalMatrix.solve(_state.normalRhs);
+  }
+
+  /** 正規方程式のコレスキー分解による求解 */
+  @Benchmark
+  public Matrix solveCholesky(DenseFitState _state) {
+    return _state.normalMatrix.solveCholesky(_state.normalRhs);
+  }
+}
@@ -0,0 +1,97 @@
+package jp.sagalab.b3semi.bench;
+
+import jp.sagalab.b3semi.Point;
+import jp.sagalab.b3semi.PointSeries;
+import jp.sagalab.b3semi.PreparedFit;
+import jp.sagalab.b3semi.SplineCurve;
+import jp.sagalab.b3semi.SplineCurveInterpolator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 時刻の並びが共通な多数のストロークの補間のベンチマークです.
+ * <p>
+ * 1本ずつ {@link SplineCurveInterpolator} で補間する場合と、
+ * {@link PreparedFit} で分解を使い回して補間する場合を比較します.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PreparedFitBenchmark {
+
+  /**
+   * 共通の時刻に揃えたストローク群を保持するベンチマーク状態です.
+   */
+  @State(Scope.Benchmark)
+  public static class GridState {
+    /** ストローク数 */
+    @Param({"100"})
+    public int strokes;
+    /** ストロークあたりの点数 */
+    @Param({"200", "2000"})
+    public int points;
+
+    /** 時刻の並び */
+    double[] times;
+    /** ストローク群の x 座標 */
+    List<double[]> xs;
+    /** ストローク群の y 座標 */
+    List<double[]> ys;
+    /** 分解済みの補間 */
+    PreparedFit prepared;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      Point[] base = Strokes.synthetic(points);
+      times = new double[points];
+      for (int i = 0; i < points; ++i) {
+        times[i] = base[i].time();
+      }
+      xs = new ArrayList<>(strokes);
+      ys = new ArrayList<>(strokes);
+      for (int s = 0; s < strokes; ++s) {
+        // 同じ時刻で形の異なるストロークにする
+        double scale = 1.0 + 0.01 * s;
+        double[] x = new double[points];
+        double[] y = new double[points];
+        for (int i = 0; i < points; ++i) {
+          x[i] = base[i].x() * scale;
+          y[i] = base[i].y() + s;
+        }
+        xs.add(x);
+        ys.add(y);
+      }
+      prepared = PreparedFit.create(times, 3, 0.05);
+    }
+  }
+
+  @Benchmark
+  public List<SplineCurve> interpolate(GridState _state) {
+    List<SplineCurve> curves = new ArrayList<>(_state.strokes);
+    for (int s = 0; s < _state.strokes; ++s) {
+      PointSeries series = PointSeries.create(_state.xs.get(s), _state.ys.get(s), _state.times);
+      curves.add(SplineCurveInterpolator.interpolate(series, 3, 0.05));
+    }
+    return curves;
+  }
+
+  @Benchmark
+  public List<SplineCurve> prepared(GridState _state) {
+    List<SplineCurve> curves = new ArrayList<>(_state.strokes);
+    for (int s = 0; s < _state.strokes; ++s) {
+      curves.add(_state.prepared.fit(_state.xs.get(s), _state.ys.get(s)));
+    }
+    return curves;
+  }
+}
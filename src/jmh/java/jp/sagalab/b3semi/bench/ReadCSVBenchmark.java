@@ -0,0 +1,112 @@
+package jp.sagalab.b3semi.bench;
+
+import jp.sagalab.b3semi.Point;
+import jp.sagalab.b3semi.io.binary.ReadBinary;
+import jp.sagalab.b3semi.io.binary.WriteBinary;
+import jp.sagalab.b3semi.io.csv.PointsCSVReader;
+import jp.sagalab.b3semi.io.csv.PointsChunk;
+import jp.sagalab.b3semi.io.csv.ReadCSV;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSVファイルの読み込みのベンチマークです.
+ * <p>
+ * 同じ点列をバイナリ形式で読み込む場合と比較します.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReadCSVBenchmark {
+
+  /**
+   * 読み込むCSVファイルを用意するベンチマーク状態です.
+   */
+  @State(Scope.Benchmark)
+  public static class FileState {
+    /** "sample" (Points/samplePoints.csv) または合成点列の点数 */
+    @Param({"sample", "10000", "100000"})
+    public String stroke;
+
+    /** 読み込むファイル */
+    File file;
+    /** 同じ点列のバイナリ形式のファイル */
+    File binaryFile;
+    /** 一時ファイルを作成したかどうか */
+    boolean temporary;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+      binaryFile = File.createTempFile("points_", ".b3s");
+      if ("sample".equals(stroke)) {
+        file = Strokes.sampleFile();
+        temporary = false;
+        WriteBinary.writePoints(binaryFile, ReadCSV.readPoints(file));
+        return;
+      }
+      file = File.createTempFile("points_", ".csv");
+      temporary = true;
+      try (PrintWriter pw = new PrintWriter(file)) {
+        pw.println("x,y,parameter");
+        for (Point point : Strokes.synthetic(Integer.parseInt(stroke))) {
+          pw.println(point.x() + "," + point.y() + "," + point.time());
+        }
+      }
+      WriteBinary.writePoints(binaryFile, ReadCSV.readPoints(file));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      if (!binaryFile.delete()) {
+        binaryFile.deleteOnExit();
+      }
+      if (temporary && !file.delete()) {
+        file.deleteOnExit();
+      }
+    }
+  }
+
+  @Benchmark
+  public List<Point> readPoints(FileState _state) {
+    return ReadCSV.readPoints(_state.file);
+  }
+
+  @Benchmark
+  public PointsChunk readAll(FileState _state) {
+    return PointsCSVReader.readAll(_state.file);
+  }
+
+  @Benchmark
+  public double readChunks(FileState _state) {
+    double sum = 0.0;
+    try (PointsCSVReader reader = PointsCSVReader.open(_state.file)) {
+      for (Iterator<PointsChunk> it = reader.chunks(4096); it.hasNext(); ) {
+        PointsChunk chunk = it.next();
+        for (int i = 0; i < chunk.size(); ++i) {
+          sum += chunk.time()[i];
+        }
+      }
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public double[][] readBinary(FileState _state) {
+    return ReadBinary.readPointColumns(_state.binaryFile);
+  }
+}
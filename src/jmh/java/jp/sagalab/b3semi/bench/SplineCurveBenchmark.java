@@ -0,0 +1,138 @@
+package jp.sagalab.b3semi.bench;
+
+import jp.sagalab.b3semi.CompiledSplineCurve;
+import jp.sagalab.b3semi.LeastSquares;
+import jp.sagalab.b3semi.Matrix;
+import jp.sagalab.b3semi.Point;
+import jp.sagalab.b3semi.Range;
+import jp.sagalab.b3semi.SplineCurve;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * スプライン曲線の評価のベンチマークです.
+ * <p>
+ * Main.drawSplineCurve と同じく 0.01 刻みで定義域全体を評価します.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SplineCurveBenchmark {
+
+  /**
+   * 補間済みのスプライン曲線を保持するベンチマーク状態です.
+   */
+  @State(Scope.Benchmark)
+  public static class CurveState {
+    /** スプライン曲線 */
+    SplineCurve curve;
+    /** 区間ごとの多項式に変換したスプライン曲線 */
+    CompiledSplineCurve compiled;
+    /** 評価パラメータ列 */
+    double[] ts;
+    /** 評価点の x 座標 */
+    double[] xs;
+    /** 評価点の y 座標 */
+    double[] ys;
+    /** 0 階から 2 階までの導関数の x 成分 */
+    double[][] derivativesX;
+    /** 0 階から 2 階までの導関数の y 成分 */
+    double[][] derivativesY;
+
+    @Setup(Level.Trial)
+    public void setUp(FitState _fit) {
+      Matrix cp = LeastSquares.solve(_fit.sparseWeights, _fit.rhs);
+      Point[] controlPoints = new Point[cp.rowSize()];
+      for (int i = 0; i < controlPoints.length; ++i) {
+        controlPoints[i] = Point.createXY(cp.get(i, 0), cp.get(i, 1));
+      }
+      Range range = Range.create(_fit.points[0].time(), _fit.points[_fit.points.length - 1].time());
+      curve = SplineCurve.create(_fit.degree, controlPoints, _fit.knots, range);
+      compiled = CompiledSplineCurve.create(curve);
+
+      int num = (int) Math.ceil(range.length() / 0.01);
+      ts = new double[num];
+      for (int i = 0; i < num; ++i) {
+        ts[i] = range.start() + i * 0.01;
+      }
+      xs = new double[num];
+      ys = new double[num];
+      derivativesX = new double[3][num];
+      derivativesY = new double[3][num];
+    }
+  }
+
+  @Benchmark
+  public void evaluate(CurveState _state, Blackhole _blackhole) {
+    SplineCurve curve = _state.curve;
+    double end = curve.range().end();
+    for (double t = curve.range().start(); t < end; t += 0.01) {
+      _blackhole.consume(curve.evaluate(t));
+    }
+  }
+
+  /**
+   * evaluate と同じパラメータを区間ごとの多項式で評価します.
+   */
+  @Benchmark
+  public void evaluateCompiled(CurveState _state, Blackhole _blackhole) {
+    CompiledSplineCurve compiled = _state.compiled;
+    double end = compiled.range().end();
+    for (double t = compiled.range().start(); t < end; t += 0.01) {
+      _blackhole.consume(compiled.x(t));
+      _blackhole.consume(compiled.y(t));
+    }
+  }
+
+  @Benchmark
+  public double[] evaluateBatch(CurveState _state) {
+    _state.curve.evaluate(_state.ts, _state.xs, _state.ys);
+    return _state.xs;
+  }
+
+  /**
+   * 点と 1 階、2 階の導関数をまとめて評価します.
+   */
+  @Benchmark
+  public double[][] evaluateDerivatives(CurveState _state) {
+    _state.curve.evaluateDerivatives(_state.ts, 2, _state.derivativesX, _state.derivativesY);
+    return _state.derivativesX;
+  }
+
+  /**
+   * evaluateBatch と同じ点数を弧長で等間隔に評価します(弧長表は最初の呼び出しで生成され、以降は再利用されます).
+   */
+  @Benchmark
+  public double[] evaluateByLength(CurveState _state) {
+    _state.curve.evaluateByLength(_state.ts.length, _state.xs, _state.ys);
+    return _state.xs;
+  }
+
+  /**
+   * 弧長表の生成を含めて全弧長を求めます.
+   */
+  @Benchmark
+  public double totalLength(CurveState _state) {
+    return _state.curve.copy().totalLength();
+  }
+
+  /**
+   * evaluateBatch をスカラーのカーネルで実行します(Vector API による実装との比較用).
+   */
+  @Benchmark
+  @Fork(jvmArgsAppend = "-Db3semi.kernels=scalar")
+  public double[] evaluateBatchScalar(CurveState _state) {
+    _state.curve.evaluate(_state.ts, _state.xs, _state.ys);
+    return _state.xs;
+  }
+}
@@ -0,0 +1,82 @@
+package jp.sagalab.b3semi.bench;
+
+import jp.sagalab.b3semi.Point;
+import jp.sagalab.b3semi.io.csv.ReadCSV;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * ベンチマークで用いる点列を用意するクラスです.
+ */
+final class Strokes {
+
+  /** 合成点列のサンプリング周波数[Hz] */
+  static final double SAMPLING_RATE = 60.0;
+
+  /**
+   * 点列を生成します.
+   * <p>
+   * "sample" の場合は Points/samplePoints.csv を読み込み, 時刻が0始まりになるようにシフトします.
+   * それ以外の場合は指定された点数の合成点列を生成します.
+   * </p>
+   *
+   * @param _stroke "sample" または点数
+   * @return 点列
+   */
+  static Point[] create(String _stroke) {
+    if ("sample".equals(_stroke)) {
+      return sample();
+    }
+    return synthetic(Integer.parseInt(_stroke));
+  }
+
+  /**
+   * Points/samplePoints.csv の点列を読み込みます.
+   * <p>
+   * ファイルの場所はシステムプロパティ b3semi.samplePoints で変更できます.
+   * </p>
+   *
+   * @return 時刻が0始まりの点列
+   */
+  static Point[] sample() {
+    List<Point> points = ReadCSV.readPoints(sampleFile());
+    double start = points.get(0).time();
+    Point[] shifted = new Point[points.size()];
+    for (int i = 0; i < shifted.length; ++i) {
+      Point p = points.get(i);
+      shifted[i] = Point.createXYT(p.x(), p.y(), p.time() - start);
+    }
+    return shifted;
+  }
+
+  /**
+   * Points/samplePoints.csv を返します.
+   *
+   * @return 点列のCSVファイル
+   */
+  static File sampleFile() {
+    return new File(System.getProperty("b3semi.samplePoints", "Points/samplePoints.csv"));
+  }
+
+  /**
+   * 一定のサンプリング周波数で描かれたペンストロークを模した点列を生成します.
+   *
+   * @param _num 点数
+   * @return 点列
+   */
+  static Point[] synthetic(int _num) {
+    Point[] points = new Point[_num];
+    for (int i = 0; i < _num; ++i) {
+      double t = i / SAMPLING_RATE;
+      double x = 400 + 300 * Math.sin(0.7 * t) + 20 * Math.sin(5.3 * t);
+      double y = 300 + 200 * Math.sin(1.1 * t + 0.5) + 15 * Math.cos(4.1 * t);
+      points[i] = Point.createXYT(x, y, t);
+    }
+    return points;
+  }
+
+  private Strokes() {
+    throw new UnsupportedOperationException("can not create instance.");
+  }
+}
@@ -0,0 +1,29 @@
+package jp.sagalab.b3semi.bench;
+
+import jp.sagalab.b3semi.Matrix;
+import jp.sagalab.b3semi.SplineCurveInterpolator;
+import jp.sagalab.b3semi.WeightMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 重み行列の生成のベンチマークです.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WeightMatrixBenchmark {
+
+  @Benchmark
+  public WeightMatrix createSparseWeightMatrix(FitState _state) {
+    return SplineCurveInterpolator.createSparseWeightMatrix(_state.points, _state.degree, _state.knots);
+  }
+
+  @Benchmark
+  public Matrix createWeightMatrix(DenseFitState _state) {
+    return SplineCurveInterpolator.createWeightMatrix(_state.points, _state.degree, _state.knots);
+  }
+}
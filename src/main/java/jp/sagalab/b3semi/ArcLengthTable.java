@@ -0,0 +1,345 @@
+package jp.sagalab.b3semi;
+
+import java.util.Arrays;
+
+/**
+ * スプライン曲線の弧長表を表すクラスです。
+ * <p>
+ * 存在範囲を節点区間ごとに分け、各区間の速さ |C'(t)| を適応的な Gauss-Legendre 積分で積分します。
+ * 積分の誤差が許容値に収まるまで区間を二分し、得られた小区間の境界のパラメータ、
+ * 存在範囲の始点からの累積弧長、速さを表として保持します。
+ * 弧長からパラメータを求める際は、表を二分探索して小区間を定め、境界の速さを用いた
+ * 3 次の Hermite 補間を初期値として小区間内で Newton 法(収束しない場合は二分法)を用います。
+ * </p>
+ * <p>
+ * 速さは導関数の制御点列 p(P<sub>i+1</sub> - P<sub>i</sub>) / (u<sub>i+p</sub> - u<sub>i</sub>) から
+ * 次数 (p - 1) の de Boor のアルゴリズムで求めます。
+ * </p>
+ */
+final class ArcLengthTable {
+
+  /**
+   * スプライン曲線の弧長表を生成します。
+   *
+   * @param _degree 次数
+   * @param _knots  節点系列
+   * @param _cpX    制御点列の x 座標
+   * @param _cpY    制御点列の y 座標
+   * @param _range  存在範囲
+   * @return 弧長表
+   */
+  static ArcLengthTable create(int _degree, double[] _knots, double[] _cpX, double[] _cpY, Range _range) {
+    // 導関数の制御点列
+    double[] dX = SplineCurve.derivativeControlPoints(_degree, _knots, _cpX);
+    double[] dY = SplineCurve.derivativeControlPoints(_degree, _knots, _cpY);
+    ArcLengthTable table = new ArcLengthTable(_degree, _knots, dX, dY, _range.start());
+    double[] work = table.workspace();
+    // 存在範囲に含まれる節点区間ごとに積分する
+    for (int span = _degree; span <= _knots.length - _degree; ++span) {
+      double start = Math.max(_knots[span - 1], _range.start());
+      double end = Math.min(_knots[span], _range.end());
+      if (end > start) {
+        if (table.m_size == 0) {
+          table.m_speeds[0] = table.speed(span, start, work);
+        }
+        table.integrate(span, start, end, table.gauss(span, start, end, work), 0, work);
+      }
+    }
+    return table;
+  }
+
+  /**
+   * 存在範囲全体の弧長を返します。
+   *
+   * @return 弧長
+   */
+  double totalLength() {
+    return m_lengths[m_size];
+  }
+
+  /**
+   * 存在範囲の始点から指定されたパラメータまでの弧長を求めます。
+   *
+   * @param _t パラメータ(存在範囲内)
+   * @return 弧長
+   */
+  double lengthAt(double _t) {
+    if (m_size == 0) {
+      return 0.0;
+    }
+    // _t を含む小区間 [m_params[i], m_params[i + 1]] を探す
+    int i = Arrays.binarySearch(m_params, 0, m_size + 1, _t);
+    if (i >= 0) {
+      return m_lengths[i];
+    }
+    i = Math.min(Math.max(-i - 2, 0), m_size - 1);
+    return m_lengths[i] + gauss(m_spans[i], m_params[i], _t, workspace());
+  }
+
+  /**
+   * 存在範囲の始点からの弧長が指定された値となるパラメータを求めます。
+   *
+   * @param _s 弧長(0 以上、全弧長以下)
+   * @return パラメータ
+   */
+  double parameterAtLength(double _s) {
+    if (m_size == 0) {
+      return m_params[0];
+    }
+    // _s を含む小区間を探す
+    int i = Arrays.binarySearch(m_lengths, 0, m_size + 1, _s);
+    if (i < 0) {
+      i = -i - 2;
+    }
+    return solve(Math.min(Math.max(i, 0), m_size - 1), _s, workspace());
+  }
+
+  /**
+   * 存在範囲の始点から終点までを弧長で (_num - 1) 等分するパラメータを求めます。
+   * <p>
+   * 弧長は単調に増加するため、表を先頭から順にたどり、パラメータごとの二分探索を行いません。
+   * </p>
+   *
+   * @param _num パラメータ数
+   * @param _out パラメータの格納先
+   */
+  void uniformParameters(int _num, double[] _out) {
+    final double total = totalLength();
+    double[] work = workspace();
+    int i = 0;
+    for (int n = 0; n < _num; ++n) {
+      if (n == _num - 1 && _num > 1) {
+        _out[n] = m_params[m_size];
+        break;
+      }
+      if (m_size == 0) {
+        _out[n] = m_params[0];
+        continue;
+      }
+      double s = (_num > 1) ? total * n / (_num - 1) : 0.0;
+      while (i < m_size - 1 && m_lengths[i + 1] <= s) {
+        ++i;
+      }
+      _out[n] = solve(i, s, work);
+    }
+  }
+
+  /**
+   * 小区間 [m_params[_i], m_params[_i + 1]] 内で弧長が _s となるパラメータを求めます。
+   *
+   * @param _i    小区間の番号
+   * @param _s    弧長
+   * @param _work 作業領域
+   * @return パラメータ
+   */
+  private double solve(int _i, double _s, double[] _work) {
+    double lower = m_params[_i];
+    double upper = m_params[_i + 1];
+    double target = _s - m_lengths[_i];
+    double length = m_lengths[_i + 1] - m_lengths[_i];
+    if (!(target > 0.0) || !(length > 0.0)) {
+      return lower;
+    }
+    if (target >= length) {
+      return upper;
+    }
+    final int span = m_spans[_i];
+    final double origin = lower;
+    // 弧長に対するパラメータを境界での値と傾き(速さの逆数)から 3 次の Hermite 補間して初期値とする
+    double u = target / length;
+    double t = lower + (upper - lower) * u;
+    if (m_speeds[_i] > 0.0 && m_speeds[_i + 1] > 0.0) {
+      double u2 = u * u;
+      double u3 = u2 * u;
+      double hermite = (2 * u3 - 3 * u2 + 1) * lower + (u3 - 2 * u2 + u) * length / m_speeds[_i]
+              + (-2 * u3 + 3 * u2) * upper + (u3 - u2) * length / m_speeds[_i + 1];
+      if (hermite > lower && hermite < upper) {
+        t = hermite;
+      }
+    }
+    for (int iteration = 0; iteration < MAX_ITERATIONS; ++iteration) {
+      double f = gauss(span, origin, t, _work) - target;
+      if (Math.abs(f) <= TOLERANCE * m_lengths[m_size]) {
+        break;
+      }
+      if (f > 0.0) {
+        upper = t;
+      } else {
+        lower = t;
+      }
+      // Newton 法による更新が区間を外れる場合は二分法に切り替える
+      double next = t - f / speed(span, t, _work);
+      if (!(next > lower && next < upper)) {
+        next = 0.5 * (lower + upper);
+      }
+      if (next == t) {
+        break;
+      }
+      t = next;
+    }
+    return t;
+  }
+
+  /**
+   * 区間 [_a, _b] の弧長を適応的に積分し、小区間を表に追加します。
+   *
+   * @param _span  節点番号
+   * @param _a     区間の始点
+   * @param _b     区間の終点
+   * @param _whole 区間全体での積分値
+   * @param _depth 分割の深さ
+   * @param _work  作業領域
+   */
+  private void integrate(int _span, double _a, double _b, double _whole, int _depth, double[] _work) {
+    double middle = 0.5 * (_a + _b);
+    double left = gauss(_span, _a, middle, _work);
+    double right = gauss(_span, middle, _b, _work);
+    if (_depth >= MAX_DEPTH || Math.abs(left + right - _whole) <= TOLERANCE * (left + right)) {
+      append(_span, middle, left, speed(_span, middle, _work));
+      append(_span, _b, right, speed(_span, _b, _work));
+    } else {
+      integrate(_span, _a, middle, left, _depth + 1, _work);
+      integrate(_span, middle, _b, right, _depth + 1, _work);
+    }
+  }
+
+  /**
+   * 表に小区間を追加します。
+   *
+   * @param _span   節点番号
+   * @param _end    小区間の終点
+   * @param _length 小区間の弧長
+   * @param _speed  小区間の終点での速さ
+   */
+  private void append(int _span, double _end, double _length, double _speed) {
+    if (m_size + 1 >= m_params.length) {
+      int capacity = 2 * m_params.length;
+      m_params = Arrays.copyOf(m_params, capacity);
+      m_lengths = Arrays.copyOf(m_lengths, capacity);
+      m_speeds = Arrays.copyOf(m_speeds, capacity);
+      m_spans = Arrays.copyOf(m_spans, capacity);
+    }
+    m_spans[m_size] = _span;
+    ++m_size;
+    m_params[m_size] = _end;
+    m_lengths[m_size] = m_lengths[m_size - 1] + _length;
+    m_speeds[m_size] = _speed;
+  }
+
+  /**
+   * 区間 [_a, _b] の弧長を 5 点の Gauss-Legendre 積分で求めます。
+   *
+   * @param _span 節点番号
+   * @param _a    区間の始点
+   * @param _b    区間の終点
+   * @param _work 作業領域
+   * @return 弧長
+   */
+  private double gauss(int _span, double _a, double _b, double[] _work) {
+    double half = 0.5 * (_b - _a);
+    double center = 0.5 * (_a + _b);
+    double sum = 0.0;
+    for (int i = 0; i < GAUSS_NODES.length; ++i) {
+      sum += GAUSS_WEIGHTS[i] * speed(_span, center + half * GAUSS_NODES[i], _work);
+    }
+    return half * sum;
+  }
+
+  /**
+   * 指定されたパラメータでの速さ |C'(t)| を求めます。
+   *
+   * @param _span 節点番号
+   * @param _t    パラメータ
+   * @param _work 作業領域
+   * @return 速さ
+   */
+  private double speed(int _span, double _t, double[] _work) {
+    // 導関数は節点系列の先頭と末尾を除いた次数 (p - 1) のスプライン曲線で、節点番号は一つ小さくなる
+    final int degree = m_degree - 1;
+    final int span = _span - 1;
+    // 作業領域の前半に x 座標、後半に y 座標を置く
+    final int y = m_degree;
+    System.arraycopy(m_dX, span - degree, _work, 0, degree + 1);
+    System.arraycopy(m_dY, span - degree, _work, y, degree + 1);
+    for (int i = 0; i < degree; ++i) {
+      for (int j = 0; j < degree - i; ++j) {
+        int k = span - j - 1;
+        double w = (_t - m_knots[k + 1]) / (m_knots[k + 1 + degree - i] - m_knots[k + 1]);
+        _work[degree - j] = w * _work[degree - j] + (1 - w) * _work[degree - j - 1];
+        _work[y + degree - j] = w * _work[y + degree - j] + (1 - w) * _work[y + degree - j - 1];
+      }
+    }
+    double dx = _work[degree];
+    double dy = _work[y + degree];
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+
+  /**
+   * 速さの評価に用いる作業領域を生成します。
+   * <p>
+   * 表は生成後に変更しないため、作業領域を呼び出しごとに分けることで複数のスレッドから参照できます。
+   * </p>
+   *
+   * @return 作業領域
+   */
+  private double[] workspace() {
+    return new double[2 * m_degree];
+  }
+
+
+  /**
+   * コンストラクタ
+   *
+   * @param _degree 次数
+   * @param _knots  節点系列
+   * @param _dX     導関数の制御点列の x 座標
+   * @param _dY     導関数の制御点列の y 座標
+   * @param _start  存在範囲の始点
+   */
+  private ArcLengthTable(int _degree, double[] _knots, double[] _dX, double[] _dY, double _start) {
+    m_degree = _degree;
+    m_knots = _knots;
+    m_dX = _dX;
+    m_dY = _dY;
+    int capacity = 2 * Math.max(_knots.length, 1) + 1;
+    m_params = new double[capacity];
+    m_lengths = new double[capacity];
+    m_speeds = new double[capacity];
+    m_spans = new int[capacity];
+    m_params[0] = _start;
+  }
+
+  /** 5 点の Gauss-Legendre 積分の分点 */
+  private static final double[] GAUSS_NODES = {
+          -0.9061798459386640, -0.5384693101056831, 0.0, 0.5384693101056831, 0.9061798459386640
+  };
+  /** 5 点の Gauss-Legendre 積分の重み */
+  private static final double[] GAUSS_WEIGHTS = {
+          0.2369268850561891, 0.4786286704993665, 0.5688888888888889, 0.4786286704993665, 0.2369268850561891
+  };
+  /** 積分(小区間の弧長に対する)と Newton 法(全弧長に対する)の相対許容誤差 */
+  private static final double TOLERANCE = 1e-10;
+  /** 区間の最大分割深さ */
+  private static final int MAX_DEPTH = 12;
+  /** Newton 法の最大反復回数 */
+  private static final int MAX_ITERATIONS = 50;
+
+  /** 次数 */
+  private final int m_degree;
+  /** 節点系列 */
+  private final double[] m_knots;
+  /** 導関数の制御点列の x 座標 */
+  private final double[] m_dX;
+  /** 導関数の制御点列の y 座標 */
+  private final double[] m_dY;
+  /** 小区間の境界のパラメータ(要素数 m_size + 1) */
+  private double[] m_params;
+  /** 小区間の境界での累積弧長(要素数 m_size + 1) */
+  private double[] m_lengths;
+  /** 小区間の境界での速さ(要素数 m_size + 1) */
+  private double[] m_speeds;
+  /** 小区間の節点番号(要素数 m_size) */
+  private int[] m_spans;
+  /** 小区間数 */
+  private int m_size;
+}
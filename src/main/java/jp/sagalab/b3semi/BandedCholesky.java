@@ -0,0 +1,121 @@
+package jp.sagalab.b3semi;
+
+/**
+ * 対称帯行列の帯コレスキー分解 A = LL<sup>T</sup> の結果を表すクラスです。
+ * <p>
+ * 下三角の帯行列 L を {@link BandedMatrix} と同じ形式で保持し、
+ * 右辺が変わるたびに前進消去・後退代入(計算量 O(n・p))のみで解を求めます。
+ * </p>
+ */
+public final class BandedCholesky {
+
+  /**
+   * 指定された行列との解を求めます。
+   * <p>
+   * Ax = b （ただし　A は分解前の行列、b(_right)）の x を求めます。
+   * </p>
+   *
+   * @param _right 右辺行列
+   * @return 解行列
+   * @throws IllegalArgumentException 指定された行列の行数と分解した行列の行数が
+   *                                  等しくない場合にスローします。
+   * @throws SingularMatrixException  解にNaNまたはInfiniteが含まれる場合にスローします。
+   */
+  public Matrix solve(Matrix _right) {
+    if (m_size != _right.rowSize()) {
+      throw new IllegalArgumentException("not equals other matrix's row size.");
+    }
+    int columnSize = _right.columnSize();
+    double[] result = new double[m_size * columnSize];
+    for (int i = 0; i < m_size; ++i) {
+      for (int c = 0; c < columnSize; ++c) {
+        result[i * columnSize + c] = _right.get(i, c);
+      }
+    }
+    solveInPlace(result, columnSize);
+
+    return new Matrix(result, columnSize);
+  }
+
+  /**
+   * 行優先で格納された右辺に対して、その場で解を求めます。
+   *
+   * @param _values     右辺(行数 × _columnSize)。解で上書きされます。
+   * @param _columnSize 右辺の列数
+   * @throws SingularMatrixException 解にNaNまたはInfiniteが含まれる場合にスローします。
+   */
+  void solveInPlace(double[] _values, int _columnSize) {
+    final int width = m_bandwidth + 1;
+    final int bw = m_bandwidth;
+    final double[] l = m_elements;
+
+    // 前進消去 Ly = b
+    for (int i = 0; i < m_size; ++i) {
+      int iOffset = i * width + bw - i;
+      double diagonal = l[iOffset + i];
+      for (int c = 0; c < _columnSize; ++c) {
+        double d = _values[i * _columnSize + c];
+        for (int k = Math.max(0, i - bw); k < i; ++k) {
+          d -= l[iOffset + k] * _values[k * _columnSize + c];
+        }
+        _values[i * _columnSize + c] = d / diagonal;
+      }
+    }
+
+    // 後退代入 L^T x = y
+    for (int i = m_size - 1; i >= 0; --i) {
+      double diagonal = l[i * width + bw];
+      int last = Math.min(m_size - 1, i + bw);
+      for (int c = 0; c < _columnSize; ++c) {
+        double d = _values[i * _columnSize + c];
+        for (int k = i + 1; k <= last; ++k) {
+          d -= l[k * width + bw - k + i] * _values[k * _columnSize + c];
+        }
+        d /= diagonal;
+        if (Double.isNaN(d) || Double.isInfinite(d)) {
+          throw new SingularMatrixException("fault solving in BandedCholesky.");
+        }
+        _values[i * _columnSize + c] = d;
+      }
+    }
+  }
+
+  /**
+   * 行数(列数)を返します。
+   *
+   * @return 行数
+   */
+  public int size() {
+    return m_size;
+  }
+
+  /**
+   * 帯幅を返します。
+   *
+   * @return 帯幅
+   */
+  public int bandwidth() {
+    return m_bandwidth;
+  }
+
+
+  /**
+   * コンストラクタ
+   *
+   * @param _elements  L の帯の要素群
+   * @param _size      行数(列数)
+   * @param _bandwidth 帯幅
+   */
+  BandedCholesky(double[] _elements, int _size, int _bandwidth) {
+    m_elements = _elements;
+    m_size = _size;
+    m_bandwidth = _bandwidth;
+  }
+
+  /** L の帯の要素(行 i の要素 j は i * (帯幅 + 1) + 帯幅 - i + j に格納する) */
+  private final double[] m_elements;
+  /** 行数(列数) */
+  private final int m_size;
+  /** 帯幅 */
+  private final int m_bandwidth;
+}
@@ -0,0 +1,216 @@
+package jp.sagalab.b3semi;
+
+/**
+ * 帯幅 p の対称帯行列を表すクラスです。
+ * <p>
+ * 対角成分とその左側 p 個の成分(下三角の帯)のみを保持します。
+ * スプライン曲線の重み行列 A は各行に (次数 + 1) 個しか非零要素を持たないため、
+ * 正規方程式の係数行列 A<sup>T</sup>A は帯幅が次数に等しい対称帯行列となります。
+ * </p>
+ */
+public class BandedMatrix {
+
+  /**
+   * 行列 A から A<sup>T</sup>A を対称帯行列として生成します。
+   * <p>
+   * 帯幅は A の各行の非零要素の広がりから求めます。
+   * </p>
+   *
+   * @param _A 行列
+   * @return A<sup>T</sup>A
+   * @throws NullPointerException 行列にnullが指定された場合にスローします。
+   */
+  public static BandedMatrix gram(Matrix _A) {
+    if (_A == null) {
+      throw new NullPointerException("_A is null.");
+    }
+    final int rowSize = _A.rowSize();
+    final int columnSize = _A.columnSize();
+
+    // 各行の非零要素の範囲を求め、帯幅を決める
+    int[] firsts = new int[rowSize];
+    int[] lasts = new int[rowSize];
+    int bandwidth = 0;
+    for (int i = 0; i < rowSize; ++i) {
+      int first = columnSize;
+      int last = -1;
+      for (int j = 0; j < columnSize; ++j) {
+        if (_A.get(i, j) != 0.0) {
+          if (first == columnSize) {
+            first = j;
+          }
+          last = j;
+        }
+      }
+      firsts[i] = first;
+      lasts[i] = last;
+      bandwidth = Math.max(bandwidth, last - first);
+    }
+
+    // 各行の外積を帯の中に足し込む
+    final int width = bandwidth + 1;
+    double[] elements = new double[columnSize * width];
+    for (int r = 0; r < rowSize; ++r) {
+      for (int i = firsts[r]; i <= lasts[r]; ++i) {
+        double ai = _A.get(r, i);
+        if (ai != 0.0) {
+          int offset = i * width + bandwidth - i;
+          for (int j = firsts[r]; j <= i; ++j) {
+            elements[offset + j] += ai * _A.get(r, j);
+          }
+        }
+      }
+    }
+
+    return new BandedMatrix(elements, columnSize, bandwidth);
+  }
+
+  /**
+   * 行列の要素を返します。
+   *
+   * @param _i 行番号
+   * @param _j 列番号
+   * @return 行列の要素(帯の外側は0)
+   * @throws ArrayIndexOutOfBoundsException 指定された列番号または行番号が行列のサイズ以上の場合にスローします。
+   */
+  public double get(int _i, int _j) {
+    if (_i < 0 || _j < 0 || _i >= m_size || _j >= m_size) {
+      throw new ArrayIndexOutOfBoundsException("Row size or column size is wrong.");
+    }
+    // 対称性により下三角側の要素を参照する
+    int i = Math.max(_i, _j);
+    int j = Math.min(_i, _j);
+    if (i - j > m_bandwidth) {
+      return 0.0;
+    }
+    return m_elements[i * (m_bandwidth + 1) + m_bandwidth - i + j];
+  }
+
+  /**
+   * 行数(列数)を返します。
+   *
+   * @return 行数
+   */
+  public int size() {
+    return m_size;
+  }
+
+  /**
+   * 帯幅を返します。
+   *
+   * @return 帯幅
+   */
+  public int bandwidth() {
+    return m_bandwidth;
+  }
+
+  /**
+   * 密な行列に変換します。
+   *
+   * @return 密な行列
+   */
+  public Matrix toMatrix() {
+    double[] elements = new double[m_size * m_size];
+    for (int i = 0; i < m_size; ++i) {
+      for (int j = Math.max(0, i - m_bandwidth); j <= i; ++j) {
+        double d = m_elements[i * (m_bandwidth + 1) + m_bandwidth - i + j];
+        elements[i * m_size + j] = d;
+        elements[j * m_size + i] = d;
+      }
+    }
+    return new Matrix(elements, m_size);
+  }
+
+  /**
+   * 指定された行列との解を求めます。
+   * <p>
+   * Ax = b （ただし　A(this)、b(_right)）の x を帯コレスキー分解により求めます。
+   * 計算量は O(n・p<sup>2</sup>) です。
+   * </p>
+   * <p>
+   * この行列が正定値でなく、解が求められない場合はnullを返します。
+   * </p>
+   *
+   * @param _right 右辺行列
+   * @return 解行列
+   * @throws IllegalArgumentException 指定された行列の行数とこの行列の行数が
+   *                                  等しくない場合にスローします。
+   */
+  public Matrix solve(Matrix _right) {
+    if (m_size != _right.rowSize()) {
+      throw new IllegalArgumentException("not equals other matrix's row size.");
+    }
+    try {
+      return cholesky().solve(_right);
+    } catch (SingularMatrixException e) {
+      return null;
+    }
+  }
+
+  /**
+   * 帯コレスキー分解 A = LL<sup>T</sup> を行います。
+   * <p>
+   * 分解結果は同じ係数行列を持つ複数の右辺に対して使い回すことができます。
+   * </p>
+   *
+   * @return 分解結果
+   * @throws SingularMatrixException この行列が正定値でない場合にスローします。
+   */
+  public BandedCholesky cholesky() {
+    final int width = m_bandwidth + 1;
+    final int bw = m_bandwidth;
+
+    double[] l = m_elements.clone();
+    for (int i = 0; i < m_size; ++i) {
+      int iOffset = i * width + bw - i;
+      for (int j = Math.max(0, i - bw); j <= i; ++j) {
+        int jOffset = j * width + bw - j;
+        double sum = l[iOffset + j];
+        for (int k = Math.max(0, i - bw); k < j; ++k) {
+          sum -= l[iOffset + k] * l[jOffset + k];
+        }
+        if (i == j) {
+          if (!(sum > 0.0)) {
+            throw new SingularMatrixException("matrix is not positive definite.");
+          }
+          l[iOffset + i] = Math.sqrt(sum);
+        } else {
+          l[iOffset + j] = sum / l[jOffset + j];
+        }
+      }
+    }
+
+    return new BandedCholesky(l, m_size, m_bandwidth);
+  }
+
+  /**
+   * この BandedMatrix の文字列表現を返します。
+   *
+   * @return サイズと帯幅を表す String
+   */
+  @Override
+  public String toString() {
+    return String.format("size:%d bandwidth:%d", m_size, m_bandwidth);
+  }
+
+
+  /**
+   * コンストラクタ
+   *
+   * @param _elements  帯の要素群(行ごとに帯幅 + 1 個)
+   * @param _size      行数(列数)
+   * @param _bandwidth 帯幅
+   */
+  BandedMatrix(double[] _elements, int _size, int _bandwidth) {
+    m_elements = _elements;
+    m_size = _size;
+    m_bandwidth = _bandwidth;
+  }
+
+  /** 帯の要素(行 i の要素 j は i * (帯幅 + 1) + 帯幅 - i + j に格納する) */
+  private final double[] m_elements;
+  /** 行数(列数) */
+  private final int m_size;
+  /** 帯幅 */
+  private final int m_bandwidth;
+}
@@ -0,0 +1,348 @@
+package jp.sagalab.b3semi;
+
+import java.util.Arrays;
+
+/**
+ * 帯行列 A の Givens 回転による QR 分解 A = QR を、行を一つずつ加えながら求めるクラスです。
+ * <p>
+ * 上三角の帯行列 R と右辺の変換 Q<sup>T</sup>b のみを保持し、Q と A<sup>T</sup>A は構成しません。
+ * 列数 n、帯幅 p に対してメモリ使用量は O(n・p) で、加える行の数によりません。
+ * 正規方程式の係数行列 A<sup>T</sup>A を経由しないため、条件数が二乗されることがなく、
+ * 節点が密な場合など A<sup>T</sup>A の帯コレスキー分解が失敗する場合にも解を求めることができます。
+ * </p>
+ * <p>
+ * 各行の非零要素は先頭の列番号(オフセット)から連続する (帯幅 + 1) 個以内とし、
+ * 行はオフセットの昇順(スプライン曲線の重み行列では時刻の順)に加えてください。
+ * この順で加える限り、行を加えても R の帯の外に非零要素は生じません。
+ * </p>
+ */
+public final class BandedQR {
+
+  /**
+   * 行を加える前の(行数0の)分解を生成します。
+   *
+   * @param _columnSize  列数
+   * @param _bandwidth   帯幅(各行の非零要素数 - 1)
+   * @param _rightColumn 右辺の列数
+   * @return 分解
+   * @throws IllegalArgumentException 列数が0以下、帯幅が負、右辺の列数が負の場合
+   */
+  public static BandedQR create(int _columnSize, int _bandwidth, int _rightColumn) {
+    if (_columnSize < 1) {
+      throw new IllegalArgumentException("_columnSize must be greater than 0.");
+    }
+    if (_bandwidth < 0) {
+      throw new IllegalArgumentException("_bandwidth is negative.");
+    }
+    if (_rightColumn < 0) {
+      throw new IllegalArgumentException("_rightColumn is negative.");
+    }
+    return new BandedQR(_columnSize, _bandwidth, _rightColumn);
+  }
+
+  /**
+   * 行を加えます。
+   *
+   * @param _offset 先頭の非零要素の列番号
+   * @param _values 先頭の非零要素から連続する要素(要素数は帯幅 + 1 以下)
+   * @param _right  右辺の行(要素数は右辺の列数)
+   * @throws IllegalArgumentException 要素数が整合しない場合、非零要素が列数をはみ出す場合、
+   *                                  オフセットが直前に加えた行より小さい場合、
+   *                                  要素にNaNまたはInfiniteが含まれる場合
+   */
+  public void addRow(int _offset, double[] _values, double[] _right) {
+    if (_values.length > m_bandwidth + 1 || _right.length != m_rightColumn) {
+      throw new IllegalArgumentException("illegal length of _values or _right.");
+    }
+    if (_offset < 0 || _offset + _values.length > m_size) {
+      throw new IllegalArgumentException("_offset is out of column size.");
+    }
+    for (double d : _values) {
+      if (Double.isNaN(d) || Double.isInfinite(d)) {
+        throw new IllegalArgumentException("_values has NaN or Infinite.");
+      }
+    }
+    for (double d : _right) {
+      if (Double.isNaN(d) || Double.isInfinite(d)) {
+        throw new IllegalArgumentException("_right has NaN or Infinite.");
+      }
+    }
+    Arrays.fill(m_row, 0.0);
+    System.arraycopy(_values, 0, m_row, 0, _values.length);
+    System.arraycopy(_right, 0, m_right, 0, m_rightColumn);
+    eliminate(_offset);
+  }
+
+  /**
+   * 検査済みの行を加えます。
+   *
+   * @param _offset     先頭の非零要素の列番号(_offset + 帯幅 + 1 は列数以下であること)
+   * @param _values     非零要素の格納先
+   * @param _valuesFrom 非零要素の先頭の位置(帯幅 + 1 個を読み込む)
+   * @param _right      右辺の格納先
+   * @param _rightFrom  右辺の行の先頭の位置(右辺の列数だけ読み込む)
+   * @throws IllegalArgumentException オフセットが直前に加えた行より小さい場合
+   */
+  void addRow(int _offset, double[] _values, int _valuesFrom, double[] _right, int _rightFrom) {
+    System.arraycopy(_values, _valuesFrom, m_row, 0, m_bandwidth + 1);
+    System.arraycopy(_right, _rightFrom, m_right, 0, m_rightColumn);
+    eliminate(_offset);
+  }
+
+  /**
+   * 最小二乗解 x (Rx = Q<sup>T</sup>b の解)を求めます。
+   *
+   * @return 解行列(行数:列数, 列数:右辺の列数)
+   * @throws SingularMatrixException R が正則でない(A の列が一次従属な)場合、
+   *                                 解にNaNまたはInfiniteが含まれる場合にスローします。
+   */
+  public Matrix solve() {
+    return new Matrix(backSubstitute(), m_rightColumn);
+  }
+
+  /**
+   * Cx = d の条件下での最小二乗解とラグランジュ乗数を求めます。
+   * <p>
+   * 制約のない解 x<sub>0</sub> は R による後退代入で求め、
+   * (A<sup>T</sup>A)<sup>-1</sup>C<sup>T</sup> は A<sup>T</sup>A = R<sup>T</sup>R を用いて求めます。
+   * 以降は {@link LeastSquares} のシューア補行列による解法と同じです。
+   * </p>
+   *
+   * @param _C 制約行列(行数:制約の数, 列数:列数)
+   * @param _d 制約の右辺(行数:制約の数, 列数:右辺の列数)
+   * @return 解とラグランジュ乗数
+   * @throws IllegalArgumentException 行列の大きさが整合しない場合
+   * @throws SingularMatrixException  R が正則でない場合、シューア補行列が正則でない場合にスローします。
+   */
+  public ConstrainedSolution solveConstrained(Matrix _C, Matrix _d) {
+    final int n = m_size;
+    final int k = m_rightColumn;
+    final int c = _C.rowSize();
+    if (_C.columnSize() != n) {
+      throw new IllegalArgumentException("size of _C is wrong.");
+    }
+    if (_d.rowSize() != c || _d.columnSize() != k) {
+      throw new IllegalArgumentException("size of _d is wrong.");
+    }
+
+    // [x0 | (R^T R)^-1 C^T]
+    double[] x0 = backSubstitute();
+    double[] w = new double[n * c];
+    for (int i = 0; i < n; ++i) {
+      for (int j = 0; j < c; ++j) {
+        w[i * c + j] = _C.get(j, i);
+      }
+    }
+    toCholesky().solveInPlace(w, c);
+    final int width = k + c;
+    double[] z = new double[n * width];
+    for (int i = 0; i < n; ++i) {
+      System.arraycopy(x0, i * k, z, i * width, k);
+      System.arraycopy(w, i * c, z, i * width + k, c);
+    }
+    return LeastSquares.solveBySchurComplement(z, k, _C, _d);
+  }
+
+  /**
+   * 制約のない最小二乗解での残差の二乗和 ||Ax - b||<sup>2</sup> を返します。
+   *
+   * @param _column 右辺の列番号
+   * @return 残差の二乗和
+   */
+  public double residual(int _column) {
+    return m_residuals[_column];
+  }
+
+  /**
+   * 加えた行数を返します。
+   *
+   * @return 行数
+   */
+  public int rowSize() {
+    return m_rowSize;
+  }
+
+  /**
+   * 列数を返します。
+   *
+   * @return 列数
+   */
+  public int columnSize() {
+    return m_size;
+  }
+
+  /**
+   * 帯幅を返します。
+   *
+   * @return 帯幅
+   */
+  public int bandwidth() {
+    return m_bandwidth;
+  }
+
+  /**
+   * 右辺の列数を返します。
+   *
+   * @return 右辺の列数
+   */
+  public int rightColumnSize() {
+    return m_rightColumn;
+  }
+
+  /**
+   * A<sup>T</sup>A = R<sup>T</sup>R を L = R<sup>T</sup> とする帯コレスキー分解として返します。
+   *
+   * @return 帯コレスキー分解
+   * @throws SingularMatrixException R が正則でない場合にスローします。
+   */
+  BandedCholesky toCholesky() {
+    final int width = m_bandwidth + 1;
+    final int bw = m_bandwidth;
+    double[] l = new double[m_size * width];
+    for (int i = 0; i < m_size; ++i) {
+      if (m_r[i * width] == 0.0) {
+        throw new SingularMatrixException("R is singular.");
+      }
+      // L の行 i の要素 j は R の行 j の要素 i
+      for (int j = Math.max(0, i - bw); j <= i; ++j) {
+        l[i * width + bw - i + j] = m_r[j * width + i - j];
+      }
+    }
+    return new BandedCholesky(l, m_size, m_bandwidth);
+  }
+
+  /**
+   * 作業領域に読み込んだ行を Givens 回転で R に取り込みます。
+   * <p>
+   * 行の列 j の要素を R の行 j の対角要素との回転で順に消去し、
+   * R の行 j が空の場合はその行に残りの要素をそのまま格納します。
+   * 全ての要素を消去した場合は、残った右辺を残差として加えます。
+   * </p>
+   *
+   * @param _offset 先頭の非零要素の列番号
+   * @throws IllegalArgumentException オフセットが直前に加えた行より小さい場合
+   */
+  private void eliminate(int _offset) {
+    if (_offset < m_lastOffset) {
+      throw new IllegalArgumentException("rows must be added in ascending order of offset.");
+    }
+    m_lastOffset = _offset;
+    ++m_rowSize;
+
+    final int width = m_bandwidth + 1;
+    final int k = m_rightColumn;
+    final int last = Math.min(_offset + m_bandwidth, m_size - 1);
+    final double[] r = m_r;
+    final double[] qtb = m_qtb;
+    final double[] row = m_row;
+    final double[] right = m_right;
+
+    for (int j = _offset; j <= last; ++j) {
+      double a = row[j - _offset];
+      if (a == 0.0) {
+        continue;
+      }
+      int rOffset = j * width - j;
+      double diagonal = r[rOffset + j];
+      if (diagonal == 0.0) {
+        // R の行 j は空なので、残りの要素をそのまま格納する
+        for (int l = j; l <= last; ++l) {
+          r[rOffset + l] = row[l - _offset];
+        }
+        System.arraycopy(right, 0, qtb, j * k, k);
+        return;
+      }
+      double rho = Math.sqrt(diagonal * diagonal + a * a);
+      double c = diagonal / rho;
+      double s = a / rho;
+      r[rOffset + j] = rho;
+      // R の行 j の (_offset + 帯幅) より右の要素は 0 のため、回転は last までで済む
+      for (int l = j + 1; l <= last; ++l) {
+        double rl = r[rOffset + l];
+        double xl = row[l - _offset];
+        r[rOffset + l] = c * rl + s * xl;
+        row[l - _offset] = c * xl - s * rl;
+      }
+      for (int q = 0; q < k; ++q) {
+        double rq = qtb[j * k + q];
+        double zq = right[q];
+        qtb[j * k + q] = c * rq + s * zq;
+        right[q] = c * zq - s * rq;
+      }
+    }
+    for (int q = 0; q < k; ++q) {
+      m_residuals[q] += right[q] * right[q];
+    }
+  }
+
+  /**
+   * 後退代入 Rx = Q<sup>T</sup>b により解を求めます。
+   *
+   * @return 解(行優先)
+   * @throws SingularMatrixException R が正則でない場合、解にNaNまたはInfiniteが含まれる場合にスローします。
+   */
+  private double[] backSubstitute() {
+    final int width = m_bandwidth + 1;
+    final int k = m_rightColumn;
+    double[] x = m_qtb.clone();
+    for (int i = m_size - 1; i >= 0; --i) {
+      int rOffset = i * width - i;
+      double diagonal = m_r[rOffset + i];
+      if (diagonal == 0.0) {
+        throw new SingularMatrixException("R is singular.");
+      }
+      int last = Math.min(m_size - 1, i + m_bandwidth);
+      for (int q = 0; q < k; ++q) {
+        double d = x[i * k + q];
+        for (int l = i + 1; l <= last; ++l) {
+          d -= m_r[rOffset + l] * x[l * k + q];
+        }
+        d /= diagonal;
+        if (Double.isNaN(d) || Double.isInfinite(d)) {
+          throw new SingularMatrixException("fault solving in BandedQR.");
+        }
+        x[i * k + q] = d;
+      }
+    }
+    return x;
+  }
+
+  /**
+   * コンストラクタ
+   *
+   * @param _columnSize  列数
+   * @param _bandwidth   帯幅
+   * @param _rightColumn 右辺の列数
+   */
+  private BandedQR(int _columnSize, int _bandwidth, int _rightColumn) {
+    m_size = _columnSize;
+    m_bandwidth = _bandwidth;
+    m_rightColumn = _rightColumn;
+    m_r = new double[_columnSize * (_bandwidth + 1)];
+    m_qtb = new double[_columnSize * _rightColumn];
+    m_residuals = new double[_rightColumn];
+    m_row = new double[_bandwidth + 1];
+    m_right = new double[_rightColumn];
+  }
+
+  /** 列数 */
+  private final int m_size;
+  /** 帯幅 */
+  private final int m_bandwidth;
+  /** 右辺の列数 */
+  private final int m_rightColumn;
+  /** R の帯の要素(行 i の要素 j は i * (帯幅 + 1) + j - i に格納する) */
+  private final double[] m_r;
+  /** Q<sup>T</sup>b の先頭の列数行(行優先) */
+  private final double[] m_qtb;
+  /** 右辺の列ごとの残差の二乗和 */
+  private final double[] m_residuals;
+  /** 加える行の作業領域 */
+  private final double[] m_row;
+  /** 加える行の右辺の作業領域 */
+  private final double[] m_right;
+  /** 直前に加えた行のオフセット */
+  private int m_lastOffset;
+  /** 加えた行数 */
+  private int m_rowSize;
+}
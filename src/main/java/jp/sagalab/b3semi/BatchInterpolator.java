@@ -0,0 +1,210 @@
+package jp.sagalab.b3semi;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 多数の独立した点列に対してスプライン曲線補間を並列に行うクラスです。
+ * <p>
+ * 点列は {@link ForkJoinPool} のワーカに分配し、それぞれ {@link SplineCurveInterpolator} と同じ手順で補間します。
+ * 重み行列の作業領域はワーカのスレッドごとに保持して使い回すため、点列ごとの大きな配列の確保は行いません。
+ * 結果は入力と同じ順序で返し、ある点列の補間に失敗しても他の点列の補間は続けます。
+ * </p>
+ */
+public final class BatchInterpolator {
+
+  /**
+   * 節点間隔を指定して、共通の {@link ForkJoinPool} で補間を行う BatchInterpolator を生成します。
+   *
+   * @param _degree       次数
+   * @param _knotInterval 節点間隔
+   * @return BatchInterpolator
+   * @throws IllegalArgumentException 次数が0以下の場合
+   * @throws IllegalArgumentException 節点間隔が0以下の場合
+   */
+  public static BatchInterpolator create(int _degree, double _knotInterval) {
+    return create(_degree, _knotInterval, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * 節点間隔を指定して、指定した {@link ForkJoinPool} で補間を行う BatchInterpolator を生成します。
+   *
+   * @param _degree       次数
+   * @param _knotInterval 節点間隔
+   * @param _pool         補間を行うスレッドプール
+   * @return BatchInterpolator
+   * @throws IllegalArgumentException 次数が0以下の場合
+   * @throws IllegalArgumentException 節点間隔が0以下の場合
+   * @throws IllegalArgumentException スレッドプールがnullの場合
+   */
+  public static BatchInterpolator create(int _degree, double _knotInterval, ForkJoinPool _pool) {
+    if (_degree < 1) {
+      throw new IllegalArgumentException(" degree is must be greater than 0 ");
+    }
+    if (!(_knotInterval > 0.0)) {
+      throw new IllegalArgumentException(" knot's interval is must be greater than 0 ");
+    }
+    if (_pool == null) {
+      throw new IllegalArgumentException("_pool is null.");
+    }
+    return new BatchInterpolator(_degree, _knotInterval, null, _pool);
+  }
+
+  /**
+   * 節点系列を指定して、共通の {@link ForkJoinPool} で補間を行う BatchInterpolator を生成します。
+   *
+   * @param _knots  節点系列
+   * @param _degree 次数
+   * @return BatchInterpolator
+   * @throws IllegalArgumentException 次数が0以下の場合
+   * @throws IllegalArgumentException 節点系列がnullの場合
+   * @throws IllegalArgumentException 節点系列の要素数が2*degree-1以下の場合
+   */
+  public static BatchInterpolator create(double[] _knots, int _degree) {
+    return create(_knots, _degree, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * 節点系列を指定して、指定した {@link ForkJoinPool} で補間を行う BatchInterpolator を生成します。
+   *
+   * @param _knots  節点系列
+   * @param _degree 次数
+   * @param _pool   補間を行うスレッドプール
+   * @return BatchInterpolator
+   * @throws IllegalArgumentException 次数が0以下の場合
+   * @throws IllegalArgumentException 節点系列がnullの場合
+   * @throws IllegalArgumentException 節点系列の要素数が2*degree-1以下の場合
+   * @throws IllegalArgumentException スレッドプールがnullの場合
+   */
+  public static BatchInterpolator create(double[] _knots, int _degree, ForkJoinPool _pool) {
+    if (_degree < 1) {
+      throw new IllegalArgumentException(" degree is must be greater than 0 ");
+    }
+    if (_knots == null) {
+      throw new IllegalArgumentException(" _knots is null");
+    }
+    if (_knots.length <= 2 * _degree - 1) {
+      throw new IllegalArgumentException(" knots's length must be greater than 2 * _degree - 1 ");
+    }
+    if (_pool == null) {
+      throw new IllegalArgumentException("_pool is null.");
+    }
+    return new BatchInterpolator(_degree, Double.NaN, _knots.clone(), _pool);
+  }
+
+  /**
+   * 点列群に対してスプライン曲線補間を行います。
+   * <p>
+   * 点列ごとの補間の失敗(不正な点列、解が求められない場合など)は例外として送出せず、
+   * 失敗した結果として返します。
+   * </p>
+   *
+   * @param _pointSeries 点列群
+   * @return 入力と同じ順序の補間結果
+   * @throws IllegalArgumentException 点列群がnullの場合
+   */
+  public List<InterpolationResult> interpolate(Collection<PointSeries> _pointSeries) {
+    if (_pointSeries == null) {
+      throw new IllegalArgumentException("_pointSeries is null.");
+    }
+    PointSeries[] inputs = _pointSeries.toArray(new PointSeries[0]);
+    InterpolationResult[] results = new InterpolationResult[inputs.length];
+    if (inputs.length > 0) {
+      m_pool.invoke(new InterpolationTask(inputs, results, 0, inputs.length));
+    }
+    return Collections.unmodifiableList(Arrays.asList(results));
+  }
+
+  /**
+   * 一つの点列に対してスプライン曲線補間を行います。
+   *
+   * @param _points    点列
+   * @param _workspace 作業領域
+   * @return 補間結果
+   */
+  private InterpolationResult interpolate(PointSeries _points, InterpolationWorkspace _workspace) {
+    try {
+      SplineCurve splineCurve = (m_knots == null)
+              ? SplineCurveInterpolator.interpolateWith(_points, m_degree, m_knotInterval, _workspace)
+              : SplineCurveInterpolator.interpolateWith(_points, m_knots, m_degree, _workspace);
+      return InterpolationResult.succeeded(splineCurve);
+    } catch (RuntimeException e) {
+      return InterpolationResult.failed(e);
+    }
+  }
+
+  /**
+   * 点列群の範囲を分割しながら補間を行うタスクです。
+   */
+  private final class InterpolationTask extends RecursiveAction {
+
+    /**
+     * コンストラクタ
+     *
+     * @param _inputs  点列群
+     * @param _results 補間結果の格納先
+     * @param _from    範囲の先頭
+     * @param _to      範囲の終端(この番号を含まない)
+     */
+    InterpolationTask(PointSeries[] _inputs, InterpolationResult[] _results, int _from, int _to) {
+      m_inputs = _inputs;
+      m_results = _results;
+      m_from = _from;
+      m_to = _to;
+    }
+
+    @Override
+    protected void compute() {
+      if (m_to - m_from > 1) {
+        int middle = (m_from + m_to) >>> 1;
+        invokeAll(new InterpolationTask(m_inputs, m_results, m_from, middle),
+                new InterpolationTask(m_inputs, m_results, middle, m_to));
+        return;
+      }
+      InterpolationWorkspace workspace = m_workspaces.get();
+      for (int i = m_from; i < m_to; ++i) {
+        m_results[i] = interpolate(m_inputs[i], workspace);
+      }
+    }
+
+    /** 点列群 */
+    private final PointSeries[] m_inputs;
+    /** 補間結果の格納先 */
+    private final InterpolationResult[] m_results;
+    /** 範囲の先頭 */
+    private final int m_from;
+    /** 範囲の終端 */
+    private final int m_to;
+  }
+
+
+  /**
+   * コンストラクタ
+   *
+   * @param _degree       次数
+   * @param _knotInterval 節点間隔(節点系列を指定する場合は用いない)
+   * @param _knots        節点系列(nullの場合は節点間隔から生成する)
+   * @param _pool         補間を行うスレッドプール
+   */
+  private BatchInterpolator(int _degree, double _knotInterval, double[] _knots, ForkJoinPool _pool) {
+    m_degree = _degree;
+    m_knotInterval = _knotInterval;
+    m_knots = _knots;
+    m_pool = _pool;
+  }
+
+  /** 次数 */
+  private final int m_degree;
+  /** 節点間隔 */
+  private final double m_knotInterval;
+  /** 節点系列 */
+  private final double[] m_knots;
+  /** 補間を行うスレッドプール */
+  private final ForkJoinPool m_pool;
+  /** スレッドごとの作業領域 */
+  private final ThreadLocal<InterpolationWorkspace> m_workspaces = ThreadLocal.withInitial(InterpolationWorkspace::new);
+}
@@ -0,0 +1,188 @@
+package jp.sagalab.b3semi;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * 描画内容を裏画面(BufferedImage)に保持するキャンバスです.
+ * <p>
+ * 点や線は裏画面に描画し、描画した範囲のみを再描画要求します.
+ * 画面への描画(paintComponent)では裏画面を転送するだけのため、
+ * 再描画のたびに点列や曲線を描き直すことはありません.
+ * </p>
+ * <p>
+ * 描画中のストロークのプレビューなど、頻繁に置き換わる図形は裏画面に描かず、
+ * {@link #setPreview(Shape, Color)} で裏画面の上に重ねて表示します.
+ * </p>
+ * <p>
+ * Swing のコンポーネントであるため、描画メソッドはイベントディスパッチスレッドから呼び出してください.
+ * </p>
+ */
+final class BufferedCanvas extends JComponent {
+
+  /**
+   * キャンバスを生成します.
+   *
+   * @param _width      幅
+   * @param _height     高さ
+   * @param _background 背景色
+   */
+  BufferedCanvas(int _width, int _height, Color _background) {
+    m_background = _background;
+    setPreferredSize(new Dimension(_width, _height));
+    setOpaque(true);
+  }
+
+  /**
+   * 点(円)を描画します.
+   *
+   * @param _x      x座標
+   * @param _y      y座標
+   * @param _radius 点の半径
+   * @param _color  点の色
+   */
+  void drawPoint(double _x, double _y, double _radius, Color _color) {
+    draw(new Ellipse2D.Double(_x - _radius, _y - _radius, _radius * 2, _radius * 2), _color);
+  }
+
+  /**
+   * 線分を描画します.
+   *
+   * @param _x1    始点のx座標
+   * @param _y1    始点のy座標
+   * @param _x2    終点のx座標
+   * @param _y2    終点のy座標
+   * @param _color 線の色
+   */
+  void drawLine(double _x1, double _y1, double _x2, double _y2, Color _color) {
+    draw(new Line2D.Double(_x1, _y1, _x2, _y2), _color);
+  }
+
+  /**
+   * 図形の輪郭を描画します.
+   * <p>
+   * 折れ線は {@link Path2D} にまとめて渡すことで、一度の描画で済みます.
+   * </p>
+   *
+   * @param _shape 図形
+   * @param _color 線の色
+   */
+  void draw(Shape _shape, Color _color) {
+    Graphics2D g = buffer().createGraphics();
+    try {
+      g.setColor(_color);
+      g.draw(_shape);
+    } finally {
+      g.dispose();
+    }
+    repaint(_shape.getBounds2D());
+  }
+
+  /**
+   * 裏画面の上に重ねて表示するプレビューの図形を置き換えます.
+   * <p>
+   * 図形は裏画面には描画しないため、置き換えや消去で描画内容が失われることはありません.
+   * 以前の図形と新しい図形を含む範囲のみを再描画します.
+   * </p>
+   *
+   * @param _shape 図形(nullの場合はプレビューを消去する)
+   * @param _color 線の色
+   */
+  void setPreview(Shape _shape, Color _color) {
+    Rectangle2D bounds = null;
+    if (m_preview != null) {
+      bounds = m_preview.getBounds2D();
+    }
+    if (_shape != null) {
+      bounds = (bounds == null) ? _shape.getBounds2D() : bounds.createUnion(_shape.getBounds2D());
+    }
+    m_preview = _shape;
+    m_previewColor = _color;
+    if (bounds != null) {
+      repaint(bounds);
+    }
+  }
+
+  /**
+   * 描画内容を消去します.
+   * <p>
+   * プレビューの図形も消去します.
+   * </p>
+   */
+  void clear() {
+    m_preview = null;
+    Graphics2D g = buffer().createGraphics();
+    try {
+      g.setColor(m_background);
+      g.fillRect(0, 0, m_image.getWidth(), m_image.getHeight());
+    } finally {
+      g.dispose();
+    }
+    repaint();
+  }
+
+  @Override
+  protected void paintComponent(Graphics _g) {
+    _g.setColor(m_background);
+    _g.fillRect(0, 0, getWidth(), getHeight());
+    if (m_image != null) {
+      _g.drawImage(m_image, 0, 0, null);
+    }
+    if (m_preview != null) {
+      _g.setColor(m_previewColor);
+      ((Graphics2D) _g).draw(m_preview);
+    }
+  }
+
+  /**
+   * 線幅の分だけ広げた範囲を再描画します.
+   *
+   * @param _bounds 図形の範囲
+   */
+  private void repaint(Rectangle2D _bounds) {
+    repaint((int) Math.floor(_bounds.getX()) - 1, (int) Math.floor(_bounds.getY()) - 1,
+            (int) Math.ceil(_bounds.getWidth()) + 3, (int) Math.ceil(_bounds.getHeight()) + 3);
+  }
+
+  /**
+   * キャンバスの大きさ以上の裏画面を返します.
+   * <p>
+   * キャンバスが裏画面より大きくなった場合は裏画面を作り直し、それまでの描画内容を複写します.
+   * </p>
+   *
+   * @return 裏画面
+   */
+  private BufferedImage buffer() {
+    int width = Math.max(getWidth(), getPreferredSize().width);
+    int height = Math.max(getHeight(), getPreferredSize().height);
+    if (m_image == null || m_image.getWidth() < width || m_image.getHeight() < height) {
+      BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+      Graphics2D g = image.createGraphics();
+      try {
+        g.setColor(m_background);
+        g.fillRect(0, 0, width, height);
+        if (m_image != null) {
+          g.drawImage(m_image, 0, 0, null);
+        }
+      } finally {
+        g.dispose();
+      }
+      m_image = image;
+    }
+    return m_image;
+  }
+
+  /** 背景色 */
+  private final Color m_background;
+  /** 裏画面 */
+  private BufferedImage m_image;
+  /** 裏画面の上に重ねて表示するプレビューの図形 */
+  private Shape m_preview;
+  /** プレビューの線の色 */
+  private Color m_previewColor;
+}
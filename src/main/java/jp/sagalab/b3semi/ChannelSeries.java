@@ -0,0 +1,217 @@
+package jp.sagalab.b3semi;
+
+import java.util.Arrays;
+
+/**
+ * 時刻と任意個のチャンネル(x座標、y座標、筆圧、傾き、z座標など)の値の配列を保持する不変なクラスです。
+ * <p>
+ * 各チャンネルは時刻と同じ要素数の配列で、同じ時刻で標本化された値を表します。
+ * {@link SplineCurveInterpolator#interpolate(ChannelSeries, int, double)} で
+ * 全てのチャンネルを一度に補間するために用います。
+ * </p>
+ */
+public final class ChannelSeries {
+
+  /**
+   * 時刻とチャンネルの配列から点列を生成します。
+   * <p>
+   * 配列は複製して保持します。
+   * </p>
+   *
+   * @param _t        時刻
+   * @param _channels チャンネルの値(チャンネルごとの配列)
+   * @return 点列
+   * @throws IllegalArgumentException 配列がnullの場合、チャンネル数が0の場合、配列の要素数が異なる場合、
+   *                                  要素にNaNまたはInfiniteが含まれる場合
+   */
+  public static ChannelSeries create(double[] _t, double[]... _channels) {
+    if (_t == null || _channels == null) {
+      throw new IllegalArgumentException("_t or _channels is null.");
+    }
+    if (_channels.length == 0) {
+      throw new IllegalArgumentException("_channels is empty.");
+    }
+    double[] t = _t.clone();
+    checkFinite(t, "_t");
+    double[][] channels = new double[_channels.length][];
+    for (int c = 0; c < channels.length; ++c) {
+      if (_channels[c] == null) {
+        throw new IllegalArgumentException("_channels include null.");
+      }
+      if (_channels[c].length != t.length) {
+        throw new IllegalArgumentException("length of channels are different.");
+      }
+      channels[c] = _channels[c].clone();
+      checkFinite(channels[c], "_channels[" + c + "]");
+    }
+    return new ChannelSeries(t, channels);
+  }
+
+  /**
+   * 点列の x座標、y座標に追加のチャンネルを加えた点列を生成します。
+   * <p>
+   * チャンネル 0 が x座標、チャンネル 1 が y座標となり、追加のチャンネルはその後に続きます。
+   * </p>
+   *
+   * @param _points   点列
+   * @param _channels 追加のチャンネルの値(チャンネルごとの配列)
+   * @return 点列
+   * @throws IllegalArgumentException 点列がnullの場合、追加のチャンネルの配列の要素数が点数と異なる場合、
+   *                                  要素にNaNまたはInfiniteが含まれる場合
+   */
+  public static ChannelSeries create(PointSeries _points, double[]... _channels) {
+    if (_points == null || _channels == null) {
+      throw new IllegalArgumentException("_points or _channels is null.");
+    }
+    double[][] channels = new double[_channels.length + 2][];
+    channels[0] = _points.xs();
+    channels[1] = _points.ys();
+    System.arraycopy(_channels, 0, channels, 2, _channels.length);
+    return create(_points.times(), channels);
+  }
+
+  /**
+   * 点数を返します。
+   *
+   * @return 点数
+   */
+  public int size() {
+    return m_t.length;
+  }
+
+  /**
+   * チャンネル数を返します。
+   *
+   * @return チャンネル数
+   */
+  public int dimension() {
+    return m_channels.length;
+  }
+
+  /**
+   * i番目の点の時刻を返します。
+   *
+   * @param _i 点の番号
+   * @return 時刻
+   */
+  public double time(int _i) {
+    return m_t[_i];
+  }
+
+  /**
+   * i番目の点の指定したチャンネルの値を返します。
+   *
+   * @param _i       点の番号
+   * @param _channel チャンネルの番号
+   * @return 値
+   */
+  public double value(int _i, int _channel) {
+    return m_channels[_channel][_i];
+  }
+
+  /**
+   * 指定したチャンネルの値の配列を返します。
+   *
+   * @param _channel チャンネルの番号
+   * @return 値の配列(複製)
+   */
+  public double[] channel(int _channel) {
+    return m_channels[_channel].clone();
+  }
+
+  /**
+   * 時刻の配列を返します。
+   *
+   * @return 時刻の配列(複製)
+   */
+  public double[] times() {
+    return m_t.clone();
+  }
+
+  /**
+   * 時刻の範囲(最初の点の時刻から最後の点の時刻まで)を返します。
+   *
+   * @return 時刻の範囲
+   * @throws IllegalArgumentException 点列が空の場合
+   */
+  public Range range() {
+    if (m_t.length == 0) {
+      throw new IllegalArgumentException("channel series is empty.");
+    }
+    return Range.create(m_t[0], m_t[m_t.length - 1]);
+  }
+
+  /**
+   * 全てのチャンネルの値を、点ごとに並べた配列(行数:点数, 列数:チャンネル数の行優先)に格納します。
+   *
+   * @return 値の配列
+   */
+  double[] toRowMajor() {
+    final int dimension = m_channels.length;
+    double[] values = new double[m_t.length * dimension];
+    for (int c = 0; c < dimension; ++c) {
+      double[] channel = m_channels[c];
+      for (int i = 0; i < channel.length; ++i) {
+        values[i * dimension + c] = channel[i];
+      }
+    }
+    return values;
+  }
+
+  /**
+   * 時刻の配列が指定した配列と等しいかどうかを返します。
+   *
+   * @param _times 時刻の配列
+   * @return 等しい場合はtrue
+   */
+  boolean hasTimes(double[] _times) {
+    return Arrays.equals(m_t, _times);
+  }
+
+  /**
+   * この ChannelSeries の文字列表現を返します。
+   *
+   * @return 点数、チャンネル数と時刻の範囲を表す String
+   */
+  @Override
+  public String toString() {
+    return (m_t.length == 0) ? String.format("size:0 dimension:%d", m_channels.length)
+            : String.format("size:%d dimension:%d t:[%.3f, %.3f]",
+            m_t.length, m_channels.length, m_t[0], m_t[m_t.length - 1]);
+  }
+
+  /**
+   * 配列にNaN、Infiniteが含まれていないことを確認します。
+   *
+   * @param _values 配列
+   * @param _name   配列の名前
+   * @throws IllegalArgumentException NaN、Infiniteが含まれる場合
+   */
+  private static void checkFinite(double[] _values, String _name) {
+    for (double d : _values) {
+      if (Double.isNaN(d)) {
+        throw new IllegalArgumentException(_name + " is NaN.");
+      }
+      if (Double.isInfinite(d)) {
+        throw new IllegalArgumentException(_name + " is Inf.");
+      }
+    }
+  }
+
+
+  /**
+   * コンストラクタ
+   *
+   * @param _t        時刻
+   * @param _channels チャンネルの値
+   */
+  private ChannelSeries(double[] _t, double[][] _channels) {
+    m_t = _t;
+    m_channels = _channels;
+  }
+
+  /** 時刻 */
+  private final double[] m_t;
+  /** チャンネルの値(チャンネルごとの配列) */
+  private final double[][] m_channels;
+}
@@ -0,0 +1,323 @@
+package jp.sagalab.b3semi;
+
+import java.util.Arrays;
+
+/**
+ * 任意個のチャンネルを持つ(N 次元の)スプライン曲線を表す不変なクラスです。
+ * <p>
+ * 制御点は点ごとに全チャンネルの値を並べた配列(行数:制御点数, 列数:チャンネル数の行優先)で保持します。
+ * 評価では基底関数の値をパラメータごとに一度だけ求め、全てのチャンネルで共有します。
+ * 節点区間は {@link SplineCurve} と同じく定義域の節点区間に制限するため、存在範囲の終端でも同じ値となります。
+ * </p>
+ */
+public final class ChannelSplineCurve {
+
+  /**
+   * スプライン曲線を生成します。
+   *
+   * @param _degree        次数
+   * @param _controlPoints 制御点列(チャンネルごとの配列)
+   * @param _knots         節点系列
+   * @param _range         存在範囲
+   * @return スプライン曲線
+   * @throws IllegalArgumentException 制御点列、節点系列、存在範囲がnullの場合
+   * @throws IllegalArgumentException スプライン曲線の次数が1未満の場合
+   * @throws IllegalArgumentException チャンネル数が0の場合、チャンネルごとの制御点数が異なる場合
+   * @throws IllegalArgumentException 存在範囲の始点が節点系列の(次数 - 1)番目よりも小さい場合、
+   *                                  または、存在範囲の終点が節点系列の(節点系列の要素数 - 次数)番目よりも大きい場合
+   */
+  public static ChannelSplineCurve create(int _degree, double[][] _controlPoints, double[] _knots, Range _range) {
+    if (_controlPoints == null || _knots == null || _range == null) {
+      throw new IllegalArgumentException("_controlPoints, _knots or _range is null.");
+    }
+    if (_controlPoints.length == 0) {
+      throw new IllegalArgumentException("_controlPoints is empty.");
+    }
+    final int dimension = _controlPoints.length;
+    final int size = (_controlPoints[0] != null) ? _controlPoints[0].length : 0;
+    double[] values = new double[size * dimension];
+    for (int c = 0; c < dimension; ++c) {
+      if (_controlPoints[c] == null || _controlPoints[c].length != size) {
+        throw new IllegalArgumentException("length of channels are different.");
+      }
+      for (int i = 0; i < size; ++i) {
+        values[i * dimension + c] = _controlPoints[c][i];
+      }
+    }
+    return create(_degree, values, dimension, _knots.clone(), _range.copy());
+  }
+
+  /**
+   * 行優先の制御点列からスプライン曲線を生成します。
+   *
+   * @param _degree        次数
+   * @param _controlPoints 制御点列(行数:制御点数, 列数:チャンネル数の行優先、複製せずに保持する)
+   * @param _dimension     チャンネル数
+   * @param _knots         節点系列(複製せずに保持する)
+   * @param _range         存在範囲
+   * @return スプライン曲線
+   * @throws IllegalArgumentException スプライン曲線の次数が1未満の場合
+   * @throws IllegalArgumentException 存在範囲と節点系列、節点系列と制御点列の整合性がない場合
+   */
+  static ChannelSplineCurve create(int _degree, double[] _controlPoints, int _dimension, double[] _knots,
+                                   Range _range) {
+    if (_degree < 1) {
+      throw new IllegalArgumentException("_degree < 1");
+    }
+    if (_range.start() < _knots[_degree - 1] || _knots[_knots.length - _degree] < _range.end()) {
+      throw new IllegalArgumentException("There is no consistency of _range and _knots.");
+    }
+    if (_controlPoints.length != (_knots.length - _degree + 1) * _dimension) {
+      throw new IllegalArgumentException("_knots.length NOT equals (controlPointsNum + _degree - 1).");
+    }
+    double pre = _knots[0];
+    for (double d : _knots) {
+      if (Double.isInfinite(d) || Double.isNaN(d)) {
+        throw new IllegalArgumentException("_knots is included in infinity or NaN.");
+      }
+      if (d < pre) {
+        throw new IllegalArgumentException("There are counter flowed _knots.");
+      }
+      pre = d;
+    }
+    return new ChannelSplineCurve(_degree, _controlPoints, _dimension, _knots, _range);
+  }
+
+  /**
+   * 指定されたパラメータでの全チャンネルの値を評価します。
+   *
+   * @param _t   パラメータ
+   * @param _out 評価値の格納先(要素数はチャンネル数以上)
+   * @throws IllegalArgumentException 格納先の要素数がチャンネル数より小さい場合
+   */
+  public void evaluate(double _t, double[] _out) {
+    if (_out.length < m_dimension) {
+      throw new IllegalArgumentException("_out is shorter than dimension.");
+    }
+    SplineBasis basis = SplineBasis.create(m_knots, m_degree);
+    final int offset = basis.evaluateInDomain(_t);
+    Arrays.fill(_out, 0, m_dimension, 0.0);
+    for (int k = 0; k <= m_degree; ++k) {
+      double w = basis.value(k);
+      int row = (offset + k) * m_dimension;
+      for (int c = 0; c < m_dimension; ++c) {
+        _out[c] += w * m_controlPoints[row + c];
+      }
+    }
+  }
+
+  /**
+   * 指定されたパラメータでの全チャンネルの値を評価します。
+   *
+   * @param _t パラメータ
+   * @return 評価値(チャンネルごと)
+   */
+  public double[] evaluate(double _t) {
+    double[] out = new double[m_dimension];
+    evaluate(_t, out);
+    return out;
+  }
+
+  /**
+   * 指定されたパラメータ列での全チャンネルの値をまとめて評価します。
+   * <p>
+   * パラメータ n でのチャンネル c の値を _out[c][n] に格納します。
+   * 基底関数の評価器はパラメータ列全体で使い回します。
+   * </p>
+   *
+   * @param _ts  パラメータ列
+   * @param _out 評価値の格納先(チャンネルごとの配列)
+   * @throws IllegalArgumentException 格納先のチャンネル数、要素数が足りない場合
+   */
+  public void evaluate(double[] _ts, double[][] _out) {
+    checkOutput(_out, _ts.length);
+    SplineBasis basis = SplineBasis.create(m_knots, m_degree);
+    for (int n = 0; n < _ts.length; ++n) {
+      evaluate(basis, _ts[n], n, _out);
+    }
+  }
+
+  /**
+   * 存在範囲を等間隔に分割したパラメータでの全チャンネルの値をまとめて評価します。
+   * <p>
+   * {@link SplineCurve#evaluateUniform(int, double[], double[])} と同じく、
+   * 存在範囲の始点から終点までを (_num - 1) 等分した _num 個のパラメータで評価し、
+   * パラメータ n でのチャンネル c の値を _out[c][n] に格納します。
+   * </p>
+   *
+   * @param _num 評価点数
+   * @param _out 評価値の格納先(チャンネルごとの配列)
+   * @throws IllegalArgumentException 評価点数が負の場合、格納先のチャンネル数、要素数が足りない場合
+   */
+  public void evaluateUniform(int _num, double[][] _out) {
+    if (_num < 0) {
+      throw new IllegalArgumentException("_num is negative.");
+    }
+    checkOutput(_out, _num);
+    SplineBasis basis = SplineBasis.create(m_knots, m_degree);
+    double start = m_range.start();
+    double step = (_num > 1) ? m_range.length() / (_num - 1) : 0.0;
+    for (int n = 0; n < _num; ++n) {
+      double t = (n == _num - 1) ? m_range.end() : start + step * n;
+      evaluate(basis, t, n, _out);
+    }
+  }
+
+  /**
+   * 指定した2つのチャンネルを x 座標、y 座標とする平面のスプライン曲線を返します。
+   *
+   * @param _xChannel x 座標とするチャンネルの番号
+   * @param _yChannel y 座標とするチャンネルの番号
+   * @return スプライン曲線
+   * @throws IllegalArgumentException チャンネルの番号が範囲外の場合
+   */
+  public SplineCurve toSplineCurve(int _xChannel, int _yChannel) {
+    if (_xChannel < 0 || _xChannel >= m_dimension || _yChannel < 0 || _yChannel >= m_dimension) {
+      throw new IllegalArgumentException("channel is out of range.");
+    }
+    Point[] cp = new Point[controlPointsNum()];
+    for (int i = 0; i < cp.length; ++i) {
+      cp[i] = Point.createXY(m_controlPoints[i * m_dimension + _xChannel],
+              m_controlPoints[i * m_dimension + _yChannel]);
+    }
+    return SplineCurve.create(m_degree, cp, m_knots.clone(), m_range.copy());
+  }
+
+  /**
+   * 次数を返します。
+   *
+   * @return 次数
+   */
+  public int degree() {
+    return m_degree;
+  }
+
+  /**
+   * チャンネル数を返します。
+   *
+   * @return チャンネル数
+   */
+  public int dimension() {
+    return m_dimension;
+  }
+
+  /**
+   * 制御点数を返します。
+   *
+   * @return 制御点数
+   */
+  public int controlPointsNum() {
+    return m_controlPoints.length / m_dimension;
+  }
+
+  /**
+   * 指定したチャンネルの制御点列を返します。
+   *
+   * @param _channel チャンネルの番号
+   * @return 制御点列
+   */
+  public double[] controlPoints(int _channel) {
+    if (_channel < 0 || _channel >= m_dimension) {
+      throw new IllegalArgumentException("_channel is out of range.");
+    }
+    double[] cp = new double[controlPointsNum()];
+    for (int i = 0; i < cp.length; ++i) {
+      cp[i] = m_controlPoints[i * m_dimension + _channel];
+    }
+    return cp;
+  }
+
+  /**
+   * 節点系列を返します。
+   *
+   * @return 節点系列
+   */
+  public double[] knots() {
+    return m_knots.clone();
+  }
+
+  /**
+   * パラメータの範囲を返します。
+   *
+   * @return パラメータの範囲
+   */
+  public Range range() {
+    return m_range.copy();
+  }
+
+  /**
+   * この ChannelSplineCurve の文字列表現を返します。
+   *
+   * @return 次数、チャンネル数、制御点数、パラメータ範囲を表す String
+   */
+  @Override
+  public String toString() {
+    return String.format("degree:%d dimension:%d controlPoints:%d range:%s",
+            m_degree, m_dimension, controlPointsNum(), m_range.toString());
+  }
+
+  /**
+   * 基底関数の評価器を用いて、指定したパラメータでの全チャンネルの値を格納します。
+   *
+   * @param _basis 基底関数の評価器
+   * @param _t     パラメータ
+   * @param _n     格納先の番号
+   * @param _out   評価値の格納先(チャンネルごとの配列)
+   */
+  private void evaluate(SplineBasis _basis, double _t, int _n, double[][] _out) {
+    final int offset = _basis.evaluateInDomain(_t);
+    for (int c = 0; c < m_dimension; ++c) {
+      double value = 0.0;
+      for (int k = 0; k <= m_degree; ++k) {
+        value += _basis.value(k) * m_controlPoints[(offset + k) * m_dimension + c];
+      }
+      _out[c][_n] = value;
+    }
+  }
+
+  /**
+   * 格納先の大きさを検査します。
+   *
+   * @param _out 評価値の格納先(チャンネルごとの配列)
+   * @param _num 評価点数
+   * @throws IllegalArgumentException 格納先のチャンネル数、要素数が足りない場合
+   */
+  private void checkOutput(double[][] _out, int _num) {
+    if (_out.length < m_dimension) {
+      throw new IllegalArgumentException("_out has fewer channels than dimension.");
+    }
+    for (int c = 0; c < m_dimension; ++c) {
+      if (_out[c].length < _num) {
+        throw new IllegalArgumentException("output arrays are shorter than the number of parameters.");
+      }
+    }
+  }
+
+  /**
+   * コンストラクタ
+   *
+   * @param _degree        次数
+   * @param _controlPoints 制御点列(行優先)
+   * @param _dimension     チャンネル数
+   * @param _knots         節点系列
+   * @param _range         存在範囲
+   */
+  private ChannelSplineCurve(int _degree, double[] _controlPoints, int _dimension, double[] _knots, Range _range) {
+    m_degree = _degree;
+    m_controlPoints = _controlPoints;
+    m_dimension = _dimension;
+    m_knots = _knots;
+    m_range = _range;
+  }
+
+  /** 次数 */
+  private final int m_degree;
+  /** 制御点列(制御点 i のチャンネル c の値を i * チャンネル数 + c 番目に格納する) */
+  private final double[] m_controlPoints;
+  /** チャンネル数 */
+  private final int m_dimension;
+  /** 節点系列 */
+  private final double[] m_knots;
+  /** 存在範囲 */
+  private final Range m_range;
+}
@@ -0,0 +1,338 @@
+package jp.sagalab.b3semi;
+
+import java.util.Arrays;
+
+/**
+ * 節点区間ごとの多項式に変換したスプライン曲線を表すクラスです。
+ * <p>
+ * 存在範囲に含まれる節点区間ごとに、区間の始点 a を原点とする多項式
+ * C(t) = c<sub>0</sub> + c<sub>1</sub>(t - a) + ... + c<sub>p</sub>(t - a)<sup>p</sup>
+ * の係数(c<sub>m</sub> = C<sup>(m)</sup>(a) / m!)を配列に保持し、区間の探索と Horner 法で評価します。
+ * 評価ごとの計算量は次数に比例し、de Boor のアルゴリズムのような次数の二乗の計算や作業領域の確保を行いません。
+ * </p>
+ * <p>
+ * 節点間隔が一定の場合({@link SplineCurveInterpolator#createKnots(Range, int, double)} で生成した節点系列など)は
+ * 区間を除算で求めるため、区間の探索は節点数によらず一定の計算量です。
+ * それ以外の場合は二分探索を行います。
+ * </p>
+ * <p>
+ * 計算の順序が異なるため、評価結果は {@link SplineCurve#evaluate(double)} と丸め誤差の範囲で一致しないことがあります。
+ * 存在範囲外のパラメータは最初もしくは最後の区間の多項式で評価します。
+ * </p>
+ */
+public final class CompiledSplineCurve {
+
+  /**
+   * スプライン曲線を節点区間ごとの多項式に変換します。
+   *
+   * @param _curve スプライン曲線
+   * @return 変換したスプライン曲線
+   * @throws IllegalArgumentException スプライン曲線がnullの場合
+   */
+  public static CompiledSplineCurve create(SplineCurve _curve) {
+    if (_curve == null) {
+      throw new IllegalArgumentException("_curve is null.");
+    }
+    final int degree = _curve.degree();
+    final double[] knots = _curve.knots();
+    final Range range = _curve.range();
+
+    // 存在範囲に含まれる節点区間(長さが0の区間は除く)
+    int[] spans = new int[knots.length];
+    int size = 0;
+    for (int span = degree; span <= knots.length - degree; ++span) {
+      double start = Math.max(knots[span - 1], range.start());
+      double end = Math.min(knots[span], range.end());
+      if (end > start) {
+        spans[size++] = span;
+      }
+    }
+    double[] breaks = new double[size + 1];
+    if (size == 0) {
+      // 存在範囲が一点の場合は、その点を含む区間を長さ0の区間として用いる
+      spans[size++] = _curve.searchKnotNum(range.start(), degree - 1, knots.length - degree);
+      breaks = new double[]{range.start(), range.start()};
+    } else {
+      for (int i = 0; i < size; ++i) {
+        breaks[i] = Math.max(knots[spans[i] - 1], range.start());
+      }
+      breaks[size] = range.end();
+    }
+
+    // 各区間の始点での導関数から係数を求める
+    final int width = degree + 1;
+    double[] origins = Arrays.copyOf(breaks, size);
+    double[][] dx = new double[width][size];
+    double[][] dy = new double[width][size];
+    _curve.evaluateDerivatives(origins, degree, dx, dy);
+    double[] cx = new double[size * width];
+    double[] cy = new double[size * width];
+    for (int i = 0; i < size; ++i) {
+      double factorial = 1.0;
+      for (int m = 0; m <= degree; ++m) {
+        if (m > 1) {
+          factorial *= m;
+        }
+        cx[i * width + m] = dx[m][i] / factorial;
+        cy[i * width + m] = dy[m][i] / factorial;
+      }
+    }
+
+    // 節点間隔が一定かどうか
+    // (時刻をそのまま節点とすると節点間隔に丸め誤差が含まれるため、除算で求めた区間のずれが十分小さいかで判定する)
+    double step = 0.0;
+    boolean uniform = size > 1;
+    if (uniform) {
+      int first = spans[0];
+      int last = spans[size - 1];
+      step = (knots[last] - knots[first - 1]) / (last - first + 1);
+      double deviation = 0.0;
+      for (int span = first; span <= last; ++span) {
+        deviation = Math.max(deviation, Math.abs((knots[span] - knots[span - 1]) - step));
+      }
+      uniform = deviation * size <= UNIFORM_TOLERANCE * step;
+    }
+    double base = uniform ? knots[spans[0] - 1] : breaks[0];
+    return new CompiledSplineCurve(degree, breaks, cx, cy, range, uniform, base, uniform ? 1.0 / step : 0.0);
+  }
+
+  /**
+   * 指定されたパラメータでの点を評価します。
+   *
+   * @param _t パラメータ
+   * @return 評価点
+   */
+  public Point evaluate(double _t) {
+    int segment = segmentOf(_t);
+    return Point.createXYT(horner(m_cx, segment, _t), horner(m_cy, segment, _t), _t);
+  }
+
+  /**
+   * 指定されたパラメータでの x 座標を評価します。
+   *
+   * @param _t パラメータ
+   * @return x 座標
+   */
+  public double x(double _t) {
+    return horner(m_cx, segmentOf(_t), _t);
+  }
+
+  /**
+   * 指定されたパラメータでの y 座標を評価します。
+   *
+   * @param _t パラメータ
+   * @return y 座標
+   */
+  public double y(double _t) {
+    return horner(m_cy, segmentOf(_t), _t);
+  }
+
+  /**
+   * 指定されたパラメータ列での点をまとめて評価します。
+   * <p>
+   * 評価点の x 座標、y 座標をそれぞれ _outX、_outY に格納します。
+   * 直前のパラメータと同じ区間に含まれる場合は区間の探索を行いません。
+   * </p>
+   *
+   * @param _ts   パラメータ列
+   * @param _outX 評価点の x 座標の格納先
+   * @param _outY 評価点の y 座標の格納先
+   * @throws IllegalArgumentException 格納先の要素数がパラメータ列の要素数より小さい場合
+   */
+  public void evaluate(double[] _ts, double[] _outX, double[] _outY) {
+    if (_outX.length < _ts.length || _outY.length < _ts.length) {
+      throw new IllegalArgumentException("output arrays are shorter than _ts.");
+    }
+    final int last = m_size - 1;
+    int segment = 0;
+    for (int n = 0; n < _ts.length; ++n) {
+      double t = _ts[n];
+      if (!((segment == 0 || m_breaks[segment] <= t) && (segment == last || t < m_breaks[segment + 1]))) {
+        segment = segmentOf(t);
+      }
+      _outX[n] = horner(m_cx, segment, t);
+      _outY[n] = horner(m_cy, segment, t);
+    }
+  }
+
+  /**
+   * 存在範囲を等間隔に分割したパラメータでの点をまとめて評価します。
+   * <p>
+   * {@link SplineCurve#evaluateUniform(int, double[], double[])} と同じく、
+   * 存在範囲の始点から終点までを (_num - 1) 等分した _num 個のパラメータで評価します。
+   * </p>
+   *
+   * @param _num  評価点数
+   * @param _outX 評価点の x 座標の格納先
+   * @param _outY 評価点の y 座標の格納先
+   * @throws IllegalArgumentException 評価点数が負の場合、格納先の要素数が評価点数より小さい場合
+   */
+  public void evaluateUniform(int _num, double[] _outX, double[] _outY) {
+    if (_num < 0) {
+      throw new IllegalArgumentException("_num is negative.");
+    }
+    if (_outX.length < _num || _outY.length < _num) {
+      throw new IllegalArgumentException("output arrays are shorter than _num.");
+    }
+    double start = m_range.start();
+    double step = (_num > 1) ? m_range.length() / (_num - 1) : 0.0;
+    final int last = m_size - 1;
+    int segment = 0;
+    for (int n = 0; n < _num; ++n) {
+      double t = (n == _num - 1) ? m_range.end() : start + step * n;
+      // パラメータは増加するため、区間を先頭から順にたどる
+      while (segment < last && m_breaks[segment + 1] <= t) {
+        ++segment;
+      }
+      _outX[n] = horner(m_cx, segment, t);
+      _outY[n] = horner(m_cy, segment, t);
+    }
+  }
+
+  /**
+   * 次数を返します。
+   *
+   * @return 次数
+   */
+  public int degree() {
+    return m_degree;
+  }
+
+  /**
+   * パラメータの範囲を返します。
+   *
+   * @return パラメータの範囲
+   */
+  public Range range() {
+    return m_range.copy();
+  }
+
+  /**
+   * 区間数を返します。
+   *
+   * @return 区間数
+   */
+  public int segmentsNum() {
+    return m_size;
+  }
+
+  /**
+   * 区間を除算で求めるかどうかを返します。
+   *
+   * @return 節点間隔が一定で、区間を除算で求める場合はtrue
+   */
+  public boolean isUniform() {
+    return m_uniform;
+  }
+
+  /**
+   * この CompiledSplineCurve の文字列表現を返します。
+   *
+   * @return 次数、区間数、パラメータ範囲を表す String
+   */
+  @Override
+  public String toString() {
+    return String.format("degree:%d segments:%d uniform:%b range:%s",
+            m_degree, m_size, m_uniform, m_range.toString());
+  }
+
+  /**
+   * 指定されたパラメータを含む区間を求めます。
+   *
+   * @param _t パラメータ
+   * @return 区間の番号
+   */
+  private int segmentOf(double _t) {
+    final int last = m_size - 1;
+    if (m_uniform) {
+      // 除算で求めた区間を丸め誤差の分だけ補正する
+      double position = (_t - m_base) * m_inverseStep;
+      int segment = (position < 0.0) ? 0 : (position >= last) ? last : (int) position;
+      while (segment > 0 && _t < m_breaks[segment]) {
+        --segment;
+      }
+      while (segment < last && m_breaks[segment + 1] <= _t) {
+        ++segment;
+      }
+      return segment;
+    }
+    // m_breaks[segment] <= _t < m_breaks[segment + 1] となる区間を二分探索する
+    int low = 0;
+    int high = last;
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (m_breaks[middle] <= _t) {
+        low = middle;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Horner 法により区間の多項式を評価します。
+   *
+   * @param _coefficients 係数
+   * @param _segment      区間の番号
+   * @param _t            パラメータ
+   * @return 評価値
+   */
+  private double horner(double[] _coefficients, int _segment, double _t) {
+    final int offset = _segment * (m_degree + 1);
+    final double u = _t - m_breaks[_segment];
+    double value = _coefficients[offset + m_degree];
+    for (int m = m_degree - 1; m >= 0; --m) {
+      value = value * u + _coefficients[offset + m];
+    }
+    return value;
+  }
+
+
+  /**
+   * コンストラクタ
+   *
+   * @param _degree      次数
+   * @param _breaks      区間の境界(要素数は区間数 + 1)
+   * @param _cx          x 座標の係数
+   * @param _cy          y 座標の係数
+   * @param _range       存在範囲
+   * @param _uniform     節点間隔が一定かどうか
+   * @param _base        節点間隔が一定の場合の最初の区間の(存在範囲で切り詰める前の)始点
+   * @param _inverseStep 節点間隔が一定の場合の節点間隔の逆数
+   */
+  private CompiledSplineCurve(int _degree, double[] _breaks, double[] _cx, double[] _cy, Range _range,
+                              boolean _uniform, double _base, double _inverseStep) {
+    m_degree = _degree;
+    m_breaks = _breaks;
+    m_size = _breaks.length - 1;
+    m_cx = _cx;
+    m_cy = _cy;
+    m_range = _range;
+    m_uniform = _uniform;
+    m_base = _base;
+    m_inverseStep = _inverseStep;
+  }
+
+  /** 節点間隔が一定とみなす、除算で求めた区間のずれの上限(節点間隔に対する比) */
+  private static final double UNIFORM_TOLERANCE = 0.25;
+
+  /** 次数 */
+  private final int m_degree;
+  /** 区間の境界(区間の多項式の原点) */
+  private final double[] m_breaks;
+  /** 区間数 */
+  private final int m_size;
+  /** x 座標の係数(区間 i の m 次の係数を i * (次数 + 1) + m 番目に格納する) */
+  private final double[] m_cx;
+  /** y 座標の係数(区間 i の m 次の係数を i * (次数 + 1) + m 番目に格納する) */
+  private final double[] m_cy;
+  /** 存在範囲 */
+  private final Range m_range;
+  /** 節点間隔が一定かどうか */
+  private final boolean m_uniform;
+  /** 節点間隔が一定の場合の最初の区間の始点 */
+  private final double m_base;
+  /** 節点間隔が一定の場合の節点間隔の逆数 */
+  private final double m_inverseStep;
+}
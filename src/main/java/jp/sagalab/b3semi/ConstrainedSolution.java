@@ -0,0 +1,88 @@
+package jp.sagalab.b3semi;
+
+/**
+ * 制約付き最小二乗法の解を表すクラスです。
+ * <p>
+ * Cx = d の条件下で |Ax - b|<sup>2</sup> を最小化する解 x と、
+ * 制約に対応するラグランジュ乗数 λ を別々に保持します。
+ * λ は KKT 系 [2A<sup>T</sup>A C<sup>T</sup>; C 0][x; λ] = [2A<sup>T</sup>b; d] の λ と同じです。
+ * </p>
+ */
+public final class ConstrainedSolution {
+
+  /**
+   * 制約付き最小二乗法の解を生成します。
+   *
+   * @param _solution    解 x
+   * @param _multipliers ラグランジュ乗数 λ
+   * @return 制約付き最小二乗法の解
+   * @throws NullPointerException     引数の型にnullが指定された場合にスローします。
+   * @throws IllegalArgumentException 解とラグランジュ乗数の列数が等しくない場合にスローします。
+   */
+  public static ConstrainedSolution create(Matrix _solution, Matrix _multipliers) {
+    if (_solution == null) {
+      throw new NullPointerException("_solution is null.");
+    }
+    if (_multipliers == null) {
+      throw new NullPointerException("_multipliers is null.");
+    }
+    if (_solution.columnSize() != _multipliers.columnSize()) {
+      throw new IllegalArgumentException("both column size must be same.");
+    }
+    return new ConstrainedSolution(_solution, _multipliers);
+  }
+
+  /**
+   * 解 x を返します。
+   *
+   * @return 解 x
+   */
+  public Matrix solution() {
+    return m_solution;
+  }
+
+  /**
+   * ラグランジュ乗数 λ を返します。
+   *
+   * @return ラグランジュ乗数 λ
+   */
+  public Matrix multipliers() {
+    return m_multipliers;
+  }
+
+  /**
+   * 解とラグランジュ乗数を垂直方向に結合した行列 (x λ)<sup>T</sup> を返します。
+   *
+   * @return (x λ)<sup>T</sup>
+   */
+  public Matrix toMatrix() {
+    return Matrix.concatVertical(m_solution, m_multipliers);
+  }
+
+  /**
+   * この ConstrainedSolution の文字列表現を返します。
+   *
+   * @return 解とラグランジュ乗数を表す String
+   */
+  @Override
+  public String toString() {
+    return String.format("solution:%s multipliers:%s", m_solution, m_multipliers);
+  }
+
+
+  /**
+   * コンストラクタ
+   *
+   * @param _solution    解 x
+   * @param _multipliers ラグランジュ乗数 λ
+   */
+  private ConstrainedSolution(Matrix _solution, Matrix _multipliers) {
+    m_solution = _solution;
+    m_multipliers = _multipliers;
+  }
+
+  /** 解 x */
+  private final Matrix m_solution;
+  /** ラグランジュ乗数 λ */
+  private final Matrix m_multipliers;
+}
@@ -0,0 +1,451 @@
+package jp.sagalab.b3semi;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * スプライン曲線補間の結果をキャッシュするクラスです。
+ * <p>
+ * 点列(時刻、x 座標、y 座標)の内容と次数、節点系列が等しい補間の結果は、保持している曲線をそのまま返します。
+ * 節点間隔を指定した場合は生成した節点系列をキーとするため、節点系列を指定した補間と結果を共有します。
+ * </p>
+ * <p>
+ * また、重み行列と正規方程式の係数行列 A<sup>T</sup>A の帯コレスキー分解は、
+ * 点列の時刻と次数、節点系列のみで決まるため {@link PreparedFit} として別に保持します。
+ * 時刻が同じで座標のみが異なる点列では、A<sup>T</sup>b の計算と前進消去・後退代入のみで制御点列を求めます。
+ * </p>
+ * <p>
+ * どちらも最近使われていないものから破棄し(LRU)、保持する数は生成時に指定した容量以下に保ちます。
+ * 補間は {@link SplineCurveInterpolator} と同じ手順で行い、引数の検査も同じです。
+ * 複数のスレッドから使うことができます。
+ * </p>
+ */
+public final class FittingCache {
+
+  /**
+   * FittingCache を生成します。
+   *
+   * @param _capacity 保持する曲線の数と分解の数の上限
+   * @return FittingCache
+   * @throws IllegalArgumentException 容量が0以下の場合
+   */
+  public static FittingCache create(int _capacity) {
+    if (_capacity < 1) {
+      throw new IllegalArgumentException("_capacity must be greater than 0.");
+    }
+    return new FittingCache(_capacity);
+  }
+
+  /**
+   * 指定された点列に対してスプライン曲線補間を行います。
+   *
+   * @param _points       点列
+   * @param _degree       次数
+   * @param _knotInterval 節点間隔
+   * @return スプライン曲線
+   * @see SplineCurveInterpolator#interpolate(Point[], int, double)
+   */
+  public SplineCurve interpolate(Point[] _points, int _degree, double _knotInterval) {
+    return interpolate(_points, _degree, _knotInterval, null);
+  }
+
+  /**
+   * 指定された点列に対してスプライン曲線補間を行います。
+   * <p>
+   * キャッシュした曲線を返す場合も、リスナには節点系列の決定と補間の完了を通知します。
+   * </p>
+   *
+   * @param _points       点列
+   * @param _degree       次数
+   * @param _knotInterval 節点間隔
+   * @param _listener     途中経過を受け取るリスナ(nullの場合は通知しない)
+   * @return スプライン曲線
+   * @see SplineCurveInterpolator#interpolate(Point[], int, double, InterpolationListener)
+   */
+  public SplineCurve interpolate(Point[] _points, int _degree, double _knotInterval,
+                                 InterpolationListener _listener) {
+    return interpolate(PointSeries.create(_points), _degree, _knotInterval, _listener);
+  }
+
+  /**
+   * 指定された点列に対してスプライン曲線補間を行います。
+   *
+   * @param _points       点列
+   * @param _degree       次数
+   * @param _knotInterval 節点間隔
+   * @return スプライン曲線
+   * @see SplineCurveInterpolator#interpolate(PointSeries, int, double)
+   */
+  public SplineCurve interpolate(PointSeries _points, int _degree, double _knotInterval) {
+    return interpolate(_points, _degree, _knotInterval, null);
+  }
+
+  /**
+   * 指定された点列に対してスプライン曲線補間を行います。
+   * <p>
+   * キャッシュした曲線を返す場合も、リスナには節点系列の決定と補間の完了を通知します。
+   * </p>
+   *
+   * @param _points       点列
+   * @param _degree       次数
+   * @param _knotInterval 節点間隔
+   * @param _listener     途中経過を受け取るリスナ(nullの場合は通知しない)
+   * @return スプライン曲線
+   * @see SplineCurveInterpolator#interpolate(PointSeries, int, double, InterpolationListener)
+   */
+  public SplineCurve interpolate(PointSeries _points, int _degree, double _knotInterval,
+                                 InterpolationListener _listener) {
+    if (_degree < 1) {
+      throw new IllegalArgumentException(" degree is must be greater than 0 ");
+    }
+    if (_knotInterval <= 0.0) {
+      throw new IllegalArgumentException(" knot's interval is must be greater than 0 ");
+    }
+    SplineCurveInterpolator.checkPoints(_points);
+    double[] knots = SplineCurveInterpolator.createKnots(_points.range(), _degree, _knotInterval);
+    return fit(_points, knots, _degree, _listener);
+  }
+
+  /**
+   * 指定された点列に対してスプライン曲線補間を行います。
+   *
+   * @param _points 点列
+   * @param _knots  節点
+   * @param _degree 次数
+   * @return スプライン曲線
+   * @see SplineCurveInterpolator#interpolate(Point[], double[], int)
+   */
+  public SplineCurve interpolate(Point[] _points, double[] _knots, int _degree) {
+    return interpolate(_points, _knots, _degree, null);
+  }
+
+  /**
+   * 指定された点列に対してスプライン曲線補間を行います。
+   * <p>
+   * キャッシュした曲線を返す場合も、リスナには節点系列の決定と補間の完了を通知します。
+   * </p>
+   *
+   * @param _points   点列
+   * @param _knots    節点
+   * @param _degree   次数
+   * @param _listener 途中経過を受け取るリスナ(nullの場合は通知しない)
+   * @return スプライン曲線
+   * @see SplineCurveInterpolator#interpolate(Point[], double[], int, InterpolationListener)
+   */
+  public SplineCurve interpolate(Point[] _points, double[] _knots, int _degree,
+                                 InterpolationListener _listener) {
+    return interpolate(PointSeries.create(_points), _knots, _degree, _listener);
+  }
+
+  /**
+   * 指定された点列に対してスプライン曲線補間を行います。
+   *
+   * @param _points 点列
+   * @param _knots  節点
+   * @param _degree 次数
+   * @return スプライン曲線
+   * @see SplineCurveInterpolator#interpolate(PointSeries, double[], int)
+   */
+  public SplineCurve interpolate(PointSeries _points, double[] _knots, int _degree) {
+    return interpolate(_points, _knots, _degree, null);
+  }
+
+  /**
+   * 指定された点列に対してスプライン曲線補間を行います。
+   * <p>
+   * キャッシュした曲線を返す場合も、リスナには節点系列の決定と補間の完了を通知します。
+   * </p>
+   *
+   * @param _points   点列
+   * @param _knots    節点
+   * @param _degree   次数
+   * @param _listener 途中経過を受け取るリスナ(nullの場合は通知しない)
+   * @return スプライン曲線
+   * @see SplineCurveInterpolator#interpolate(PointSeries, double[], int, InterpolationListener)
+   */
+  public SplineCurve interpolate(PointSeries _points, double[] _knots, int _degree,
+                                 InterpolationListener _listener) {
+    if (_degree < 1) {
+      throw new IllegalArgumentException(" degree is must be greater than 0 ");
+    }
+    if (_knots == null) {
+      throw new IllegalArgumentException(" _knots is null");
+    }
+    if (_knots.length <= 2 * _degree - 1) {
+      throw new IllegalArgumentException(" knots's length must be greater than 2 * _degree - 1 ");
+    }
+    SplineCurveInterpolator.checkPoints(_points);
+    return fit(_points, _knots.clone(), _degree, _listener);
+  }
+
+  /**
+   * 曲線のキャッシュから曲線を返した回数を返します。
+   *
+   * @return 曲線のキャッシュのヒット数
+   */
+  public synchronized long hits() {
+    return m_hits;
+  }
+
+  /**
+   * 曲線のキャッシュになく、補間を行った回数を返します。
+   *
+   * @return 曲線のキャッシュのミス数
+   */
+  public synchronized long misses() {
+    return m_misses;
+  }
+
+  /**
+   * 補間を行う際に、保持していた分解を使い回した回数を返します。
+   *
+   * @return 分解のキャッシュのヒット数
+   */
+  public synchronized long factorHits() {
+    return m_factorHits;
+  }
+
+  /**
+   * 補間を行う際に、重み行列と分解を新たに求めた回数を返します。
+   *
+   * @return 分解のキャッシュのミス数
+   */
+  public synchronized long factorMisses() {
+    return m_factorMisses;
+  }
+
+  /**
+   * 保持している曲線の数を返します。
+   *
+   * @return 保持している曲線の数
+   */
+  public synchronized int size() {
+    return m_curves.size();
+  }
+
+  /**
+   * 保持する曲線の数と分解の数の上限を返します。
+   *
+   * @return 容量
+   */
+  public int capacity() {
+    return m_capacity;
+  }
+
+  /**
+   * 保持している曲線と分解を破棄し、統計を初期化します。
+   */
+  public synchronized void clear() {
+    m_curves.clear();
+    m_factors.clear();
+    m_hits = 0;
+    m_misses = 0;
+    m_factorHits = 0;
+    m_factorMisses = 0;
+  }
+
+  /**
+   * この FittingCache の文字列表現を返します。
+   *
+   * @return 保持している数と統計を表す String
+   */
+  @Override
+  public synchronized String toString() {
+    return String.format("curves:%d/%d hits:%d misses:%d factors:%d factorHits:%d factorMisses:%d",
+            m_curves.size(), m_capacity, m_hits, m_misses, m_factors.size(), m_factorHits, m_factorMisses);
+  }
+
+  /**
+   * 検査済みの点列と節点系列から、キャッシュを用いてスプライン曲線を求めます。
+   * <p>
+   * 補間の計算はロックの外で行うため、同じ点列の補間が同時に行われた場合は両方が計算することがあります。
+   * </p>
+   *
+   * @param _points   点列
+   * @param _knots    節点系列(呼び出し側で複製済み)
+   * @param _degree   次数
+   * @param _listener 途中経過を受け取るリスナ(nullの場合は通知しない)
+   * @return スプライン曲線
+   */
+  private SplineCurve fit(PointSeries _points, double[] _knots, int _degree, InterpolationListener _listener) {
+    double[] times = _points.times();
+    FactorKey factorKey = new FactorKey(_degree, _knots, times);
+    CurveKey curveKey = new CurveKey(factorKey, _points.xs(), _points.ys());
+
+    SplineCurve curve;
+    PreparedFit prepared;
+    synchronized (this) {
+      curve = m_curves.get(curveKey);
+      if (curve != null) {
+        ++m_hits;
+      } else {
+        ++m_misses;
+      }
+      prepared = (curve == null) ? m_factors.get(factorKey) : null;
+      if (curve == null) {
+        if (prepared != null) {
+          ++m_factorHits;
+        } else {
+          ++m_factorMisses;
+        }
+      }
+    }
+
+    if (curve != null) {
+      if (_listener != null) {
+        _listener.knotsDetermined(_points, _knots);
+        _listener.interpolated(curve);
+      }
+      return curve;
+    }
+
+    if (prepared == null) {
+      prepared = PreparedFit.create(_points, _knots, _degree);
+    }
+    curve = prepared.fit(_points, _listener);
+
+    synchronized (this) {
+      m_factors.put(factorKey, prepared);
+      m_curves.put(curveKey, curve);
+    }
+    return curve;
+  }
+
+  /**
+   * 分解のキャッシュのキー(次数、節点系列、時刻)を表すクラスです。
+   */
+  private static final class FactorKey {
+
+    /**
+     * コンストラクタ
+     *
+     * @param _degree 次数
+     * @param _knots  節点系列
+     * @param _times  時刻
+     */
+    FactorKey(int _degree, double[] _knots, double[] _times) {
+      m_degree = _degree;
+      m_knots = _knots;
+      m_times = _times;
+      m_hash = (31 * _degree + Arrays.hashCode(_knots)) * 31 + Arrays.hashCode(_times);
+    }
+
+    @Override
+    public boolean equals(Object _obj) {
+      if (this == _obj) {
+        return true;
+      }
+      if (!(_obj instanceof FactorKey)) {
+        return false;
+      }
+      FactorKey other = (FactorKey) _obj;
+      return m_hash == other.m_hash && m_degree == other.m_degree
+              && Arrays.equals(m_knots, other.m_knots) && Arrays.equals(m_times, other.m_times);
+    }
+
+    @Override
+    public int hashCode() {
+      return m_hash;
+    }
+
+    /** 次数 */
+    private final int m_degree;
+    /** 節点系列 */
+    private final double[] m_knots;
+    /** 時刻 */
+    private final double[] m_times;
+    /** ハッシュ値 */
+    private final int m_hash;
+  }
+
+  /**
+   * 曲線のキャッシュのキー(次数、節点系列、時刻、座標)を表すクラスです。
+   */
+  private static final class CurveKey {
+
+    /**
+     * コンストラクタ
+     *
+     * @param _factorKey 分解のキャッシュのキー
+     * @param _x         x 座標
+     * @param _y         y 座標
+     */
+    CurveKey(FactorKey _factorKey, double[] _x, double[] _y) {
+      m_factorKey = _factorKey;
+      m_x = _x;
+      m_y = _y;
+      m_hash = (_factorKey.hashCode() * 31 + Arrays.hashCode(_x)) * 31 + Arrays.hashCode(_y);
+    }
+
+    @Override
+    public boolean equals(Object _obj) {
+      if (this == _obj) {
+        return true;
+      }
+      if (!(_obj instanceof CurveKey)) {
+        return false;
+      }
+      CurveKey other = (CurveKey) _obj;
+      return m_hash == other.m_hash && Arrays.equals(m_x, other.m_x) && Arrays.equals(m_y, other.m_y)
+              && m_factorKey.equals(other.m_factorKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return m_hash;
+    }
+
+    /** 分解のキャッシュのキー */
+    private final FactorKey m_factorKey;
+    /** x 座標 */
+    private final double[] m_x;
+    /** y 座標 */
+    private final double[] m_y;
+    /** ハッシュ値 */
+    private final int m_hash;
+  }
+
+  /**
+   * 容量を超えた場合に最近使われていない要素を破棄する LinkedHashMap を生成します。
+   *
+   * @param _capacity 容量
+   * @param <K>       キーの型
+   * @param <V>       値の型
+   * @return LinkedHashMap
+   */
+  private static <K, V> Map<K, V> createLruMap(int _capacity) {
+    return new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, V> _eldest) {
+        return size() > _capacity;
+      }
+    };
+  }
+
+  /**
+   * コンストラクタ
+   *
+   * @param _capacity 保持する曲線の数と分解の数の上限
+   */
+  private FittingCache(int _capacity) {
+    m_capacity = _capacity;
+    m_curves = createLruMap(_capacity);
+    m_factors = createLruMap(_capacity);
+  }
+
+  /** 保持する曲線の数と分解の数の上限 */
+  private final int m_capacity;
+  /** 曲線のキャッシュ(アクセス順) */
+  private final Map<CurveKey, SplineCurve> m_curves;
+  /** 重み行列と分解のキャッシュ(アクセス順) */
+  private final Map<FactorKey, PreparedFit> m_factors;
+  /** 曲線のキャッシュのヒット数 */
+  private long m_hits;
+  /** 曲線のキャッシュのミス数 */
+  private long m_misses;
+  /** 分解のキャッシュのヒット数 */
+  private long m_factorHits;
+  /** 分解のキャッシュのミス数 */
+  private long m_factorMisses;
+}
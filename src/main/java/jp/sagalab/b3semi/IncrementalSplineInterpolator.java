@@ -0,0 +1,307 @@
+package jp.sagalab.b3semi;
+
+import java.util.Arrays;
+
+/**
+ * 点が追加されるたびにスプライン曲線補間を更新するクラスです。
+ * <p>
+ * 描画中のストロークのプレビューに用いることを想定しています。
+ * 正規方程式 A<sup>T</sup>Ax = A<sup>T</sup>b の係数行列(対称帯行列)と右辺を累積して保持し、
+ * 点を追加するたびにその点の (次数 + 1) 個の重みの分だけ更新します。
+ * 節点は最初の点の時刻から一定の節点間隔で並べ、点列の時刻の範囲が広がるにつれて節点と制御点を追加します。
+ * </p>
+ * <p>
+ * 帯コレスキー分解の各行は係数行列のその行までにしか依存しないため、
+ * 曲線を求める際は点の追加によって変化した末尾の帯だけを分解し直します。
+ * 点の追加と分解の更新は点数によらず一定の計算量で、
+ * 制御点を求める後退代入のみ O(制御点数 × 次数) です。
+ * </p>
+ * <p>
+ * 制約は考慮せず、節点は {@link SplineCurveInterpolator#createKnots(Range, int, double)} と異なり
+ * 指定した節点間隔のまま並べるため、同じ点列でも {@link SplineCurveInterpolator} の結果とは一致しません。
+ * </p>
+ * <p>
+ * 描画が途中で止まり、点を含まない節点区間が (次数 + 1) 個以上続いた場合は、点の影響を受けない制御点が生じます。
+ * 点は時刻の順に追加されるため、これらの制御点に後から点が加わることはありません。
+ * そこで、このような制御点とその前後の制御点の差の二乗和に小さな重みを付けて正規方程式に加え、
+ * 空白の前後の制御点の間を直線的に結ぶように制御点を定めます。
+ * </p>
+ */
+public final class IncrementalSplineInterpolator {
+
+  /**
+   * 逐次的なスプライン曲線補間を生成します。
+   *
+   * @param _degree       次数
+   * @param _knotInterval 節点間隔
+   * @return 逐次的なスプライン曲線補間
+   * @throws IllegalArgumentException 次数が0以下の場合
+   * @throws IllegalArgumentException 節点間隔が0以下、NaN、もしくは無限大の場合
+   */
+  public static IncrementalSplineInterpolator create(int _degree, double _knotInterval) {
+    if (_degree < 1) {
+      throw new IllegalArgumentException(" degree is must be greater than 0 ");
+    }
+    if (!(_knotInterval > 0.0) || Double.isInfinite(_knotInterval)) {
+      throw new IllegalArgumentException(" knot's interval is must be greater than 0 ");
+    }
+    return new IncrementalSplineInterpolator(_degree, _knotInterval);
+  }
+
+  /**
+   * 点を追加します。
+   *
+   * @param _point 点
+   * @throws IllegalArgumentException 点がnullの場合
+   * @throws IllegalArgumentException 点の時刻が直前に追加した点の時刻以下の場合
+   */
+  public void add(Point _point) {
+    if (_point == null) {
+      throw new IllegalArgumentException("_point is null.");
+    }
+    double t = _point.time();
+    if (m_pointsNum == 0) {
+      m_startTime = t;
+    } else if (t <= m_lastTime) {
+      throw new IllegalArgumentException("time series is not a positive order");
+    }
+    m_lastTime = t;
+    ++m_pointsNum;
+
+    // 時刻を含む節点区間 [t0 + j*h, t0 + (j+1)*h) を求める
+    double elapsed = t - m_startTime;
+    int interval = (int) Math.floor(elapsed / m_knotInterval);
+    double local = elapsed - interval * m_knotInterval;
+    if (local >= m_knotInterval) {
+      ++interval;
+      local -= m_knotInterval;
+    }
+    local = Math.max(0.0, local);
+
+    // 節点区間の追加(制御点数 = 節点区間数 + 次数)
+    if (interval + 1 > m_intervalsNum) {
+      m_intervalsNum = interval + 1;
+      ensureCapacity(m_intervalsNum + m_degree);
+    }
+
+    // 一様な節点系列では基底関数は節点区間によらないため、一区間分の節点系列で評価する
+    int first = interval + m_basis.evaluate(local);
+    final int width = m_degree + 1;
+    for (int a = 0; a < width; ++a) {
+      double wa = m_basis.value(a);
+      if (wa == 0.0) {
+        continue;
+      }
+      int i = first + a;
+      int offset = i * width + m_degree - i;
+      for (int b = 0; b <= a; ++b) {
+        m_gram[offset + first + b] += wa * m_basis.value(b);
+      }
+      m_rhs[i * 2] += wa * _point.x();
+      m_rhs[i * 2 + 1] += wa * _point.y();
+    }
+
+    // 点の影響を受けない制御点(空白の区間)に差分の正則化項を加える
+    int changed = first;
+    if (first > m_touchedRows && m_touchedRows > 0) {
+      for (int k = m_touchedRows - 1; k < first; ++k) {
+        m_gram[k * width + m_degree] += REGULARIZATION;
+        m_gram[(k + 1) * width + m_degree] += REGULARIZATION;
+        m_gram[(k + 1) * width + m_degree - 1] -= REGULARIZATION;
+      }
+      changed = m_touchedRows - 1;
+    }
+    for (int a = width - 1; a >= 0; --a) {
+      if (m_basis.value(a) != 0.0) {
+        m_touchedRows = Math.max(m_touchedRows, first + a + 1);
+        break;
+      }
+    }
+
+    // 変化した行以降の分解は無効になる
+    m_factoredRows = Math.min(m_factoredRows, changed);
+  }
+
+  /**
+   * これまでに追加された点列に対するスプライン曲線を求めます。
+   * <p>
+   * 点数が足りないなどの理由で制御点が定まらない場合はnullを返します。
+   * </p>
+   *
+   * @return スプライン曲線
+   */
+  public SplineCurve curve() {
+    if (m_pointsNum < 2) {
+      return null;
+    }
+    final int size = controlPointsNum();
+    if (!factorize(size)) {
+      return null;
+    }
+
+    // 後退代入 L^T x = y
+    final int width = m_degree + 1;
+    final int bw = m_degree;
+    double[] x = new double[size * 2];
+    for (int i = size - 1; i >= 0; --i) {
+      double diagonal = m_factor[i * width + bw];
+      int last = Math.min(size - 1, i + bw);
+      for (int c = 0; c < 2; ++c) {
+        double d = m_forward[i * 2 + c];
+        for (int k = i + 1; k <= last; ++k) {
+          d -= m_factor[k * width + bw - k + i] * x[k * 2 + c];
+        }
+        x[i * 2 + c] = d / diagonal;
+      }
+    }
+
+    Point[] controlPoints = new Point[size];
+    for (int i = 0; i < size; ++i) {
+      controlPoints[i] = Point.createXY(x[i * 2], x[i * 2 + 1]);
+    }
+
+    return SplineCurve.create(m_degree, controlPoints, knots(), Range.create(m_startTime, m_lastTime));
+  }
+
+  /**
+   * 追加された点数を返します。
+   *
+   * @return 点数
+   */
+  public int pointsNum() {
+    return m_pointsNum;
+  }
+
+  /**
+   * 現在の制御点数を返します。
+   *
+   * @return 制御点数
+   */
+  public int controlPointsNum() {
+    return (m_intervalsNum == 0) ? 0 : m_intervalsNum + m_degree;
+  }
+
+  /**
+   * 現在の節点系列を返します。
+   *
+   * @return 節点系列
+   */
+  public double[] knots() {
+    double[] knots = new double[m_intervalsNum + 2 * m_degree - 1];
+    for (int i = 0; i < knots.length; ++i) {
+      knots[i] = m_startTime + (i - m_degree + 1) * m_knotInterval;
+    }
+    return knots;
+  }
+
+  /**
+   * 未分解の末尾の行について帯コレスキー分解と前進消去を行います。
+   *
+   * @param _size 制御点数
+   * @return 分解できた場合はtrue
+   */
+  private boolean factorize(int _size) {
+    final int width = m_degree + 1;
+    final int bw = m_degree;
+    for (int i = m_factoredRows; i < _size; ++i) {
+      int iOffset = i * width + bw - i;
+      for (int j = Math.max(0, i - bw); j <= i; ++j) {
+        int jOffset = j * width + bw - j;
+        double sum = m_gram[iOffset + j];
+        for (int k = Math.max(0, i - bw); k < j; ++k) {
+          sum -= m_factor[iOffset + k] * m_factor[jOffset + k];
+        }
+        if (i == j) {
+          if (!(sum > 0.0)) {
+            m_factoredRows = i;
+            return false;
+          }
+          m_factor[iOffset + i] = Math.sqrt(sum);
+        } else {
+          m_factor[iOffset + j] = sum / m_factor[jOffset + j];
+        }
+      }
+      // 前進消去 Ly = A^T b
+      double diagonal = m_factor[iOffset + i];
+      for (int c = 0; c < 2; ++c) {
+        double d = m_rhs[i * 2 + c];
+        for (int k = Math.max(0, i - bw); k < i; ++k) {
+          d -= m_factor[iOffset + k] * m_forward[k * 2 + c];
+        }
+        m_forward[i * 2 + c] = d / diagonal;
+      }
+    }
+    m_factoredRows = _size;
+    return true;
+  }
+
+  /**
+   * 指定した制御点数を保持できるように作業領域を拡張します。
+   *
+   * @param _size 制御点数
+   */
+  private void ensureCapacity(int _size) {
+    final int width = m_degree + 1;
+    if (m_gram.length >= _size * width) {
+      return;
+    }
+    int capacity = Math.max(_size, 2 * m_gram.length / width);
+    m_gram = Arrays.copyOf(m_gram, capacity * width);
+    m_factor = Arrays.copyOf(m_factor, capacity * width);
+    m_rhs = Arrays.copyOf(m_rhs, capacity * 2);
+    m_forward = Arrays.copyOf(m_forward, capacity * 2);
+  }
+
+
+  /**
+   * コンストラクタ
+   *
+   * @param _degree       次数
+   * @param _knotInterval 節点間隔
+   */
+  private IncrementalSplineInterpolator(int _degree, double _knotInterval) {
+    m_degree = _degree;
+    m_knotInterval = _knotInterval;
+    // 一区間 [0, h) のみを有効定義域とする一様な節点系列
+    double[] knots = new double[2 * _degree];
+    for (int i = 0; i < knots.length; ++i) {
+      knots[i] = (i - _degree + 1) * _knotInterval;
+    }
+    m_basis = SplineBasis.create(knots, _degree);
+    int capacity = 16 * (_degree + 1);
+    m_gram = new double[capacity * (_degree + 1)];
+    m_factor = new double[capacity * (_degree + 1)];
+    m_rhs = new double[capacity * 2];
+    m_forward = new double[capacity * 2];
+  }
+
+  /** 空白の区間の制御点に加える差分の正則化項の重み */
+  private static final double REGULARIZATION = 1.0e-6;
+
+  /** 次数 */
+  private final int m_degree;
+  /** 節点間隔 */
+  private final double m_knotInterval;
+  /** 一区間分の基底関数の評価器 */
+  private final SplineBasis m_basis;
+  /** A^T A (帯の要素、BandedMatrix と同じ形式) */
+  private double[] m_gram;
+  /** A^T A の帯コレスキー分解 L (BandedMatrix と同じ形式) */
+  private double[] m_factor;
+  /** A^T b (行ごとに x, y) */
+  private double[] m_rhs;
+  /** 前進消去の結果 L^-1 A^T b (行ごとに x, y) */
+  private double[] m_forward;
+  /** 点の影響を受けた先頭からの制御点数 */
+  private int m_touchedRows;
+  /** 分解済みの行数 */
+  private int m_factoredRows;
+  /** 節点区間数 */
+  private int m_intervalsNum;
+  /** 点数 */
+  private int m_pointsNum;
+  /** 最初の点の時刻 */
+  private double m_startTime;
+  /** 最後の点の時刻 */
+  private double m_lastTime;
+}
@@ -0,0 +1,40 @@
+package jp.sagalab.b3semi;
+
+/**
+ * スプライン曲線補間の途中経過を受け取るためのインターフェースです。
+ * <p>
+ * GUI での表示など、計算以外の処理は補間処理に直接組み込まず、
+ * このインターフェースを通じて行います。
+ * </p>
+ */
+public interface InterpolationListener {
+
+  /**
+   * 節点系列が決定したときに呼び出されます。
+   *
+   * @param _points 点列
+   * @param _knots  節点系列
+   */
+  void knotsDetermined(Point[] _points, double[] _knots);
+
+  /**
+   * {@link PointSeries} を入力とする補間で節点系列が決定したときに呼び出されます。
+   * <p>
+   * 既定では点列を {@link Point} の配列に変換して {@link #knotsDetermined(Point[], double[])} を呼び出します。
+   * </p>
+   *
+   * @param _points 点列
+   * @param _knots  節点系列
+   */
+  default void knotsDetermined(PointSeries _points, double[] _knots) {
+    knotsDetermined(_points.toPoints(), _knots);
+  }
+
+  /**
+   * スプライン曲線が求まったときに呼び出されます。
+   *
+   * @param _splineCurve スプライン曲線
+   */
+  default void interpolated(SplineCurve _splineCurve) {
+  }
+}
@@ -0,0 +1,92 @@
+package jp.sagalab.b3semi;
+
+/**
+ * 一つの点列に対するスプライン曲線補間の結果を表すクラスです。
+ * <p>
+ * 補間に成功した場合はスプライン曲線を、失敗した場合はその原因となった例外を保持します。
+ * </p>
+ */
+public final class InterpolationResult {
+
+  /**
+   * 補間に成功した結果を生成します。
+   *
+   * @param _splineCurve スプライン曲線
+   * @return 補間の結果
+   * @throws NullPointerException スプライン曲線にnullが指定された場合にスローします。
+   */
+  public static InterpolationResult succeeded(SplineCurve _splineCurve) {
+    if (_splineCurve == null) {
+      throw new NullPointerException("_splineCurve is null.");
+    }
+    return new InterpolationResult(_splineCurve, null);
+  }
+
+  /**
+   * 補間に失敗した結果を生成します。
+   *
+   * @param _failure 失敗の原因
+   * @return 補間の結果
+   * @throws NullPointerException 失敗の原因にnullが指定された場合にスローします。
+   */
+  public static InterpolationResult failed(RuntimeException _failure) {
+    if (_failure == null) {
+      throw new NullPointerException("_failure is null.");
+    }
+    return new InterpolationResult(null, _failure);
+  }
+
+  /**
+   * 補間に成功したかどうかを返します。
+   *
+   * @return 成功した場合はtrue
+   */
+  public boolean isSucceeded() {
+    return m_splineCurve != null;
+  }
+
+  /**
+   * スプライン曲線を返します。
+   *
+   * @return スプライン曲線(失敗した場合はnull)
+   */
+  public SplineCurve splineCurve() {
+    return m_splineCurve;
+  }
+
+  /**
+   * 失敗の原因を返します。
+   *
+   * @return 失敗の原因(成功した場合はnull)
+   */
+  public RuntimeException failure() {
+    return m_failure;
+  }
+
+  /**
+   * この InterpolationResult の文字列表現を返します。
+   *
+   * @return スプライン曲線もしくは失敗の原因を表す String
+   */
+  @Override
+  public String toString() {
+    return isSucceeded() ? "succeeded:" + m_splineCurve : "failed:" + m_failure;
+  }
+
+
+  /**
+   * コンストラクタ
+   *
+   * @param _splineCurve スプライン曲線
+   * @param _failure     失敗の原因
+   */
+  private InterpolationResult(SplineCurve _splineCurve, RuntimeException _failure) {
+    m_splineCurve = _splineCurve;
+    m_failure = _failure;
+  }
+
+  /** スプライン曲線 */
+  private final SplineCurve m_splineCurve;
+  /** 失敗の原因 */
+  private final RuntimeException m_failure;
+}
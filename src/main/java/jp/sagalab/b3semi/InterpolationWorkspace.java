@@ -0,0 +1,54 @@
+package jp.sagalab.b3semi;
+
+/**
+ * スプライン曲線補間の作業領域を表すクラスです。
+ * <p>
+ * 重み行列の各行のオフセットと非零要素の配列を保持し、必要な大きさに足りない場合のみ確保し直します。
+ * 同じスレッドで多数の点列を補間する場合に、点列ごとの重み行列の確保を避けるために用います。
+ * スレッドセーフではないため、スレッドごとに生成してください。
+ * </p>
+ */
+final class InterpolationWorkspace {
+
+  /**
+   * 重み行列の各行のオフセットの格納先を返します。
+   *
+   * @param _rowSize 行数
+   * @return 要素数が行数以上の配列
+   */
+  int[] offsets(int _rowSize) {
+    if (m_offsets.length < _rowSize) {
+      m_offsets = new int[grow(m_offsets.length, _rowSize)];
+    }
+    return m_offsets;
+  }
+
+  /**
+   * 重み行列の非零要素の格納先を返します。
+   *
+   * @param _size 要素数
+   * @return 要素数が指定した数以上の配列
+   */
+  double[] values(int _size) {
+    if (m_values.length < _size) {
+      m_values = new double[grow(m_values.length, _size)];
+    }
+    return m_values;
+  }
+
+  /**
+   * 確保し直す配列の要素数を求めます。
+   *
+   * @param _current  現在の要素数
+   * @param _required 必要な要素数
+   * @return 新しい要素数
+   */
+  private static int grow(int _current, int _required) {
+    return Math.max(_required, Math.min(Integer.MAX_VALUE - 8, _current + (_current >> 1)));
+  }
+
+  /** 重み行列の各行のオフセット */
+  private int[] m_offsets = new int[0];
+  /** 重み行列の非零要素 */
+  private double[] m_values = new double[0];
+}
@@ -0,0 +1,129 @@
+package jp.sagalab.b3semi;
+
+/**
+ * 行列演算とスプライン曲線の評価の内側のループを実装するクラスです。
+ * <p>
+ * スカラーによる実装 {@link ScalarKernels} と、jdk.incubator.vector (Vector API) による実装
+ * {@link VectorApiKernels} があり、どちらも同じ順序で演算を行うため結果は一致します。
+ * 実装はシステムプロパティ {@value #PROPERTY} で選択します。
+ * </p>
+ * <ul>
+ *   <li>auto (既定): Vector API が利用でき、2レーン以上の SIMD を使える場合は Vector API、それ以外はスカラー</li>
+ *   <li>vector: Vector API (利用できない場合は警告を出してスカラー)</li>
+ *   <li>scalar: スカラー</li>
+ * </ul>
+ * <p>
+ * Vector API を利用するには実行時に {@code --add-modules jdk.incubator.vector} を指定してください。
+ * </p>
+ */
+abstract class Kernels {
+
+  /** 実装を選択するシステムプロパティ名 */
+  static final String PROPERTY = "b3semi.kernels";
+
+  /**
+   * 選択された実装を返します。
+   *
+   * @return 実装
+   */
+  static Kernels get() {
+    return c_instance;
+  }
+
+  /**
+   * _y[_yOffset + i] += _a * _x[_xOffset + i] (0 ≤ i &lt; _length) を計算します。
+   *
+   * @param _a       係数
+   * @param _x       加える配列
+   * @param _xOffset 加える配列の先頭
+   * @param _y       加えられる配列
+   * @param _yOffset 加えられる配列の先頭
+   * @param _length  要素数
+   */
+  abstract void multiplyAdd(double _a, double[] _x, int _xOffset, double[] _y, int _yOffset, int _length);
+
+  /**
+   * 同じ節点区間に含まれる複数のパラメータでの点を de Boor のアルゴリズムにより評価します。
+   * <p>
+   * 計算は {@link SplineCurve#evaluate(double)} と同じ内分計算です。
+   * 内分の途中結果は _work に保持し、呼び出しごとの配列の生成は行いません。
+   * </p>
+   *
+   * @param _knots   節点系列
+   * @param _degree  次数
+   * @param _cpX     制御点列の x 座標
+   * @param _cpY     制御点列の y 座標
+   * @param _knotNum 節点番号
+   * @param _ts      パラメータ列
+   * @param _from    評価するパラメータの先頭
+   * @param _to      評価するパラメータの終端(この番号を含まない)
+   * @param _outX    評価点の x 座標の格納先(パラメータ列と同じ番号に格納する)
+   * @param _outY    評価点の y 座標の格納先(パラメータ列と同じ番号に格納する)
+   * @param _work    作業領域(要素数は {@link #deBoorWorkSize(int)} 以上)
+   */
+  abstract void deBoor(double[] _knots, int _degree, double[] _cpX, double[] _cpY, int _knotNum,
+                       double[] _ts, int _from, int _to, double[] _outX, double[] _outY, double[] _work);
+
+  /**
+   * {@link #deBoor} の作業領域に必要な要素数を返します。
+   *
+   * @param _degree 次数
+   * @return 作業領域の要素数
+   */
+  abstract int deBoorWorkSize(int _degree);
+
+  /**
+   * 実装の名前を返します。
+   *
+   * @return 実装の名前
+   */
+  abstract String name();
+
+  /**
+   * システムプロパティに従って実装を選択します。
+   *
+   * @return 実装
+   */
+  private static Kernels select() {
+    String mode = System.getProperty(PROPERTY, "auto");
+    if ("scalar".equals(mode)) {
+      return new ScalarKernels();
+    }
+    Kernels vector = loadVectorApiKernels();
+    if ("vector".equals(mode)) {
+      if (vector == null) {
+        System.err.println("Warning: jdk.incubator.vector is not available, using scalar kernels.");
+        return new ScalarKernels();
+      }
+      return vector;
+    }
+    if (!"auto".equals(mode)) {
+      System.err.println("Warning: unknown " + PROPERTY + "=" + mode + ", using auto.");
+    }
+    return (vector != null && ((VectorApiKernels) vector).lanes() >= 2) ? vector : new ScalarKernels();
+  }
+
+  /**
+   * Vector API による実装を読み込みます。
+   * <p>
+   * jdk.incubator.vector モジュールが読み込まれていない場合は、クラスの初期化時に
+   * {@link LinkageError} が発生するため、リフレクションで読み込みます。
+   * </p>
+   *
+   * @return 実装(利用できない場合はnull)
+   */
+  private static Kernels loadVectorApiKernels() {
+    if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+      return null;
+    }
+    try {
+      return (Kernels) Class.forName("jp.sagalab.b3semi.VectorApiKernels")
+              .getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      return null;
+    }
+  }
+
+  /** 選択された実装 */
+  private static final Kernels c_instance = select();
+}
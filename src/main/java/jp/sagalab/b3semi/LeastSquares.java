@@ -8,16 +8,89 @@ package jp.sagalab.b3semi;
 public final class LeastSquares {
   /**
    * Ax = b を x について解きます。
+   * <p>
+   * 正規方程式 A<sup>T</sup>Ax = A<sup>T</sup>b の係数行列を帯行列として構成し、
+   * 帯コレスキー分解で解きます。帯コレスキー分解に失敗した場合は LU 分解で解き直します。
+   * </p>
    *
    * @param _A
    * @param _b
    * @return x
    */
   public static Matrix solve(Matrix _A, Matrix _b) {
-    Matrix A_T = _A.transpose();
-    Matrix A_TA = A_T.product(_A);
+    return solveNormalEquation(BandedMatrix.gram(_A), _A.transposeTimes(_b));
+  }
+
+  /**
+   * Ax = b を x について解きます。
+   * <p>
+   * 疎な重み行列から A<sup>T</sup>A、A<sup>T</sup>b を密な行列を経由せずに求めます。
+   * 帯コレスキー分解に失敗した場合は、A<sup>T</sup>A を経由しない QR 分解({@link #solveQR(WeightMatrix, Matrix)})で解き直し、
+   * それにも失敗した場合は LU 分解で解き直します。
+   * </p>
+   *
+   * @param _A
+   * @param _b
+   * @return x
+   */
+  public static Matrix solve(WeightMatrix _A, Matrix _b) {
+    BandedMatrix A_TA = _A.gram();
+    Matrix A_Tb = _A.transposeProduct(_b);
+    Matrix x = A_TA.solve(A_Tb);
+    if (x == null) {
+      x = solveQR(_A, _b);
+    }
+    if (x == null) {
+      x = A_TA.toMatrix().solve(A_Tb);
+    }
+    return x;
+  }
 
-    return A_TA.solve(A_T.product(_b));
+  /**
+   * Ax = b を x について Givens 回転による QR 分解で解きます。
+   * <p>
+   * 重み行列の行を一行ずつ取り込んで上三角の帯行列 R を求め、Rx = Q<sup>T</sup>b を後退代入で解きます。
+   * 正規方程式の係数行列 A<sup>T</sup>A を構成しないため条件数が二乗されず、
+   * 節点が密な場合など A<sup>T</sup>A の分解に失敗する場合にも解を求めることができます。
+   * 計算量は正規方程式を帯コレスキー分解で解く場合のおよそ2倍です。
+   * </p>
+   * <p>
+   * 解が求められない(A の列が一次従属な)場合はnullを返します。
+   * </p>
+   *
+   * @param _A
+   * @param _b
+   * @return x
+   */
+  public static Matrix solveQR(WeightMatrix _A, Matrix _b) {
+    try {
+      return _A.qr(_b).solve();
+    } catch (SingularMatrixException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Ax = b を x について Cx = d の条件下で、Givens 回転による QR 分解を用いて解きます。
+   * <p>
+   * 制約のない解は QR 分解で求め、制約による補正は A<sup>T</sup>A = R<sup>T</sup>R を用いたシューア補行列で求めます。
+   * </p>
+   * <p>
+   * 解が求められない場合はnullを返します。
+   * </p>
+   *
+   * @param _A
+   * @param _b
+   * @param _C
+   * @param _d
+   * @return 解とラグランジュ乗数
+   */
+  public static ConstrainedSolution solveConstrainedQR(WeightMatrix _A, Matrix _b, Matrix _C, Matrix _d) {
+    try {
+      return _A.qr(_b).solveConstrained(_C, _d);
+    } catch (SingularMatrixException e) {
+      return null;
+    }
   }
 
   /**
@@ -27,19 +100,262 @@ public final class LeastSquares {
    * @param _b
    * @param _C
    * @param _d
-   * @return x
+   * @return (x λ)<sup>T</sup>
    */
   public static Matrix solveConstrained(Matrix _A, Matrix _b, Matrix _C, Matrix _d) {
-    Matrix A_T = _A.transpose();
-    Matrix A_TA = A_T.product(_A);
+    ConstrainedSolution solution = solveConstrainedWithMultipliers(_A, _b, _C, _d);
+    return (solution != null) ? solution.toMatrix() : null;
+  }
+
+  /**
+   * Ax = b を x について Cx = d の条件下で解きます。
+   * <p>
+   * 疎な重み行列から A<sup>T</sup>A、A<sup>T</sup>b を密な行列を経由せずに求めます。
+   * </p>
+   *
+   * @param _A
+   * @param _b
+   * @param _C
+   * @param _d
+   * @return (x λ)<sup>T</sup>
+   */
+  public static Matrix solveConstrained(WeightMatrix _A, Matrix _b, Matrix _C, Matrix _d) {
+    ConstrainedSolution solution = solveConstrainedWithMultipliers(_A, _b, _C, _d);
+    return (solution != null) ? solution.toMatrix() : null;
+  }
+
+  /**
+   * Ax = b を x について Cx = d の条件下で解き、解とラグランジュ乗数を別々に返します。
+   * <p>
+   * KKT 系の係数行列は構成せず、シューア補行列 C(A<sup>T</sup>A)<sup>-1</sup>C<sup>T</sup> を用いて解きます。
+   * </p>
+   * <p>
+   * 解が求められない場合はnullを返します。
+   * </p>
+   *
+   * @param _A
+   * @param _b
+   * @param _C
+   * @param _d
+   * @return 解とラグランジュ乗数
+   */
+  public static ConstrainedSolution solveConstrainedWithMultipliers(Matrix _A, Matrix _b, Matrix _C, Matrix _d) {
+    return solveConstrainedNormalEquation(BandedMatrix.gram(_A), _A.transposeTimes(_b), _C, _d);
+  }
+
+  /**
+   * Ax = b を x について Cx = d の条件下で解き、解とラグランジュ乗数を別々に返します。
+   * <p>
+   * KKT 系の係数行列は構成せず、シューア補行列 C(A<sup>T</sup>A)<sup>-1</sup>C<sup>T</sup> を用いて解きます。
+   * 疎な重み行列から A<sup>T</sup>A、A<sup>T</sup>b を密な行列を経由せずに求めます。
+   * A<sup>T</sup>A の帯コレスキー分解に失敗した場合は QR 分解({@link #solveConstrainedQR(WeightMatrix, Matrix, Matrix, Matrix)})で、
+   * それにも失敗した場合は KKT 系を LU 分解で解き直します。
+   * </p>
+   * <p>
+   * 解が求められない場合はnullを返します。
+   * </p>
+   *
+   * @param _A
+   * @param _b
+   * @param _C
+   * @param _d
+   * @return 解とラグランジュ乗数
+   */
+  public static ConstrainedSolution solveConstrainedWithMultipliers(WeightMatrix _A, Matrix _b, Matrix _C, Matrix _d) {
+    BandedMatrix A_TA = _A.gram();
+    Matrix A_Tb = _A.transposeProduct(_b);
+    try {
+      return solveBySchurComplement(A_TA.cholesky(), A_Tb, _C, _d);
+    } catch (SingularMatrixException e) {
+      // A^T A を経由しない QR 分解で解き直し、それにも失敗した場合は KKT 系を解く
+      ConstrainedSolution solution = solveConstrainedQR(_A, _b, _C, _d);
+      return (solution != null) ? solution : solveKKT(A_TA, A_Tb, _C, _d);
+    }
+  }
+
+  /**
+   * 正規方程式 A<sup>T</sup>Ax = A<sup>T</sup>b を x について解きます。
+   *
+   * @param _A_TA A<sup>T</sup>A
+   * @param _A_Tb A<sup>T</sup>b
+   * @return x
+   */
+  private static Matrix solveNormalEquation(BandedMatrix _A_TA, Matrix _A_Tb) {
+    Matrix x = _A_TA.solve(_A_Tb);
+    if (x == null) {
+      x = _A_TA.toMatrix().solve(_A_Tb);
+    }
+    return x;
+  }
+
+  /**
+   * Cx = d の条件下での正規方程式を x について解きます。
+   * <p>
+   * A<sup>T</sup>A が正定値でない場合、シューア補行列で解けない場合は KKT 系を LU 分解で解きます。
+   * </p>
+   *
+   * @param _A_TA A<sup>T</sup>A
+   * @param _A_Tb A<sup>T</sup>b
+   * @param _C
+   * @param _d
+   * @return 解とラグランジュ乗数
+   */
+  private static ConstrainedSolution solveConstrainedNormalEquation(BandedMatrix _A_TA, Matrix _A_Tb, Matrix _C, Matrix _d) {
+    try {
+      return solveBySchurComplement(_A_TA.cholesky(), _A_Tb, _C, _d);
+    } catch (SingularMatrixException e) {
+      return solveKKT(_A_TA, _A_Tb, _C, _d);
+    }
+  }
 
+  /**
+   * シューア補行列を用いて Cx = d の条件下での正規方程式を解きます。
+   * <p>
+   * KKT 系 [2G C<sup>T</sup>; C 0][x; λ] = [2A<sup>T</sup>b; d] (G = A<sup>T</sup>A) から x を消去すると
+   * S(λ/2) = Cx<sub>0</sub> - d (S = CG<sup>-1</sup>C<sup>T</sup>, x<sub>0</sub> = G<sup>-1</sup>A<sup>T</sup>b) となり、
+   * x = x<sub>0</sub> - G<sup>-1</sup>C<sup>T</sup>(λ/2) で解が求まります。
+   * G の分解は x<sub>0</sub> と G<sup>-1</sup>C<sup>T</sup> の前進消去・後退代入にまとめて一度だけ使います。
+   * </p>
+   *
+   * @param _factor A<sup>T</sup>A の帯コレスキー分解
+   * @param _A_Tb   A<sup>T</sup>b
+   * @param _C
+   * @param _d
+   * @return 解とラグランジュ乗数
+   * @throws SingularMatrixException 解が求められない場合にスローします。
+   */
+  static ConstrainedSolution solveBySchurComplement(BandedCholesky _factor, Matrix _A_Tb, Matrix _C, Matrix _d) {
+    final int n = _factor.size();
+    final int k = _A_Tb.columnSize();
+    final int c = _C.rowSize();
+    if (_A_Tb.rowSize() != n || _C.columnSize() != n) {
+      throw new IllegalArgumentException("size of matrices is wrong.");
+    }
+    if (_d.rowSize() != c || _d.columnSize() != k) {
+      throw new IllegalArgumentException("size of _d is wrong.");
+    }
+
+    // [x0 | G^-1 C^T] = G^-1 [A^T b | C^T]
+    final int width = k + c;
+    double[] z = new double[n * width];
+    for (int i = 0; i < n; ++i) {
+      for (int j = 0; j < k; ++j) {
+        z[i * width + j] = _A_Tb.get(i, j);
+      }
+      for (int j = 0; j < c; ++j) {
+        z[i * width + k + j] = _C.get(j, i);
+      }
+    }
+    _factor.solveInPlace(z, width);
+
+    return solveBySchurComplement(z, k, _C, _d);
+  }
+
+  /**
+   * x<sub>0</sub> = G<sup>-1</sup>A<sup>T</sup>b と G<sup>-1</sup>C<sup>T</sup> (G = A<sup>T</sup>A) から
+   * シューア補行列を用いて Cx = d の条件下での解を求めます。
+   * <p>
+   * G の分解の方法(帯コレスキー分解、QR 分解)によらない部分です。
+   * </p>
+   *
+   * @param _z [x<sub>0</sub> | G<sup>-1</sup>C<sup>T</sup>] (行数:未知数の数, 列数:右辺の列数 + 制約の数の行優先)
+   * @param _k 右辺の列数
+   * @param _C
+   * @param _d
+   * @return 解とラグランジュ乗数
+   * @throws SingularMatrixException 解が求められない場合にスローします。
+   */
+  static ConstrainedSolution solveBySchurComplement(double[] _z, int _k, Matrix _C, Matrix _d) {
+    final double[] z = _z;
+    final int n = _C.columnSize();
+    final int k = _k;
+    final int c = _C.rowSize();
+    final int width = k + c;
+
+    // S = C G^-1 C^T, r = C x0 - d
+    double[][] s = new double[c][c];
+    double[][] r = new double[c][k];
+    for (int i = 0; i < c; ++i) {
+      for (int j = 0; j < k; ++j) {
+        r[i][j] = -_d.get(i, j);
+      }
+      for (int m = 0; m < n; ++m) {
+        double cim = _C.get(i, m);
+        if (cim != 0.0) {
+          int offset = m * width;
+          for (int j = 0; j < k; ++j) {
+            r[i][j] += cim * z[offset + j];
+          }
+          for (int j = 0; j < c; ++j) {
+            s[i][j] += cim * z[offset + k + j];
+          }
+        }
+      }
+    }
+    // 丸め誤差で非対称にならないように対称化する
+    for (int i = 0; i < c; ++i) {
+      for (int j = 0; j < i; ++j) {
+        double mean = 0.5 * (s[i][j] + s[j][i]);
+        s[i][j] = mean;
+        s[j][i] = mean;
+      }
+    }
+
+    // λ/2 = S^-1 r
+    Matrix halfLambda = Matrix.create(s).solveSymmetric(Matrix.create(r));
+
+    // x = x0 - G^-1 C^T (λ/2)
+    double[] x = new double[n * k];
+    for (int i = 0; i < n; ++i) {
+      int offset = i * width;
+      for (int j = 0; j < k; ++j) {
+        double d = z[offset + j];
+        for (int m = 0; m < c; ++m) {
+          d -= z[offset + k + m] * halfLambda.get(m, j);
+        }
+        x[i * k + j] = d;
+      }
+    }
+
+    return ConstrainedSolution.create(new Matrix(x, k), halfLambda.magnify(2));
+  }
+
+  /**
+   * KKT 系を LU 分解で解きます。
+   *
+   * @param _A_TA A<sup>T</sup>A
+   * @param _A_Tb A<sup>T</sup>b
+   * @param _C
+   * @param _d
+   * @return 解とラグランジュ乗数(解が求められない場合はnull)
+   */
+  private static ConstrainedSolution solveKKT(BandedMatrix _A_TA, Matrix _A_Tb, Matrix _C, Matrix _d) {
     Matrix lhs = Matrix.concatVertical(
-            Matrix.concatHorizontal(A_TA.magnify(2), _C.transpose()),
+            Matrix.concatHorizontal(_A_TA.toMatrix().magnify(2), _C.transpose()),
             Matrix.concatHorizontal(_C, Matrix.create(new double[_C.rowSize()][_C.rowSize()]))
     );
 
-    Matrix rhs = Matrix.concatVertical(A_T.product(_b).magnify(2), _d);
+    Matrix rhs = Matrix.concatVertical(_A_Tb.magnify(2), _d);
+
+    Matrix result = lhs.solve(rhs);
+    if (result == null) {
+      return null;
+    }
 
-    return lhs.solve(rhs);
+    // 解行列(x λ)T を x と λ に分ける
+    final int n = _A_TA.size();
+    final int c = _C.rowSize();
+    final int k = result.columnSize();
+    double[][] x = new double[n][k];
+    double[][] lambda = new double[c][k];
+    for (int j = 0; j < k; ++j) {
+      for (int i = 0; i < n; ++i) {
+        x[i][j] = result.get(i, j);
+      }
+      for (int i = 0; i < c; ++i) {
+        lambda[i][j] = result.get(n + i, j);
+      }
+    }
+    return ConstrainedSolution.create(Matrix.create(x), Matrix.create(lambda));
   }
-}
\ No newline at end of file
+}
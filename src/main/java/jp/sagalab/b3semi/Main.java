@@ -9,11 +9,12 @@ import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
-import java.awt.geom.Ellipse2D;
-import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * @author yako, takashima, inagaki
@@ -24,7 +25,8 @@ public class Main extends JFrame {
    * @param _args the command line arguments
    */
   public static void main(String[] _args) {
-    new Main();
+    // Swing のコンポーネントはイベントディスパッチスレッドで生成、操作する
+    SwingUtilities.invokeLater(Main::new);
   }
 
   /**
@@ -32,8 +34,6 @@ public class Main extends JFrame {
    */
   public Main() {
     setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-    m_canvas.setSize(800, 600);
-    m_canvas.setBackground(Color.WHITE);
     setTitle("b3zemi");
 
     // 入力点列を保存する"save points"ボタン
@@ -79,10 +79,13 @@ public class Main extends JFrame {
               public void mousePressed(MouseEvent e) {
                 clear();
                 m_points.clear();
+                m_preview = IncrementalSplineInterpolator.create(PREVIEW_DEGREE, PREVIEW_KNOT_INTERVAL);
               }
 
               @Override
               public void mouseReleased(MouseEvent e) {
+                m_preview = null;
+                m_canvas.setPreview(null, null);
                 drawSplineCurve();
               }
             }
@@ -93,13 +96,25 @@ public class Main extends JFrame {
               @Override
               public void mouseDragged(MouseEvent e) {
                 Point point = Point.createXYT(e.getX(), e.getY(), System.currentTimeMillis() * 0.001);
+                boolean advanced = m_points.isEmpty() || m_points.get(m_points.size() - 1).time() < point.time();
                 m_points.add(point);
                 drawPoint(point.x(), point.y(), 1.5, Color.BLACK);
+                // 時刻が進んだ点のみプレビューに加える(同じ時刻の点は逐次補間に加えられない)
+                if (m_preview != null && advanced) {
+                  m_preview.add(point);
+                  drawPreview();
+                }
               }
             }
     );
   }
 
+  /**
+   * 点列と節点列を表すグラフを表示する.
+   *
+   * @param _points 点列
+   * @param _knots  節点列
+   */
   public static void createPointsGraph(Point[] _points, double[] _knots) {
     PointsGraph pointsGraph = PointsGraph.create(_points, _knots);
     POINTS_GRAPH_FRAME.getContentPane().removeAll();
@@ -110,12 +125,60 @@ public class Main extends JFrame {
 
   /**
    * スプライン曲線を求め、描画を行う.
+   * <p>
+   * 補間は描画スレッド(イベントディスパッチスレッド)を止めないように別スレッドで行い、
+   * 求めた曲線を一本の Path2D として裏画面に描画する.
+   * 補間中に描画が消去された場合や次の補間が要求された場合は、古い結果を描画しない.
+   * </p>
    */
   public void drawSplineCurve() {
+    // 点列はイベントディスパッチスレッドで更新されるため、ここで補間に用いる点列を確定しておく
+    final List<Point> points = new ArrayList<>(m_points);
+    final long generation = ++m_generation;
+    m_fittingExecutor.execute(() -> {
+      Path2D path;
+      try {
+        path = createSplineCurvePath(points);
+      } catch (RuntimeException e) {
+        System.err.println("Warning: fault interpolating spline curve. " + e);
+        return;
+      }
+      SwingUtilities.invokeLater(() -> {
+        if (generation == m_generation) {
+          m_canvas.draw(path, Color.RED);
+        }
+      });
+    });
+  }
+
+  /**
+   * 描画中のストロークのプレビューとして、これまでの点列に対するスプライン曲線を描画する.
+   * <p>
+   * {@link IncrementalSplineInterpolator} で点の追加ごとに曲線を更新し、裏画面の上に重ねて表示する.
+   * 制御点が定まらない間は以前のプレビューをそのまま表示する.
+   * </p>
+   */
+  private void drawPreview() {
+    SplineCurve curve = m_preview.curve();
+    if (curve != null) {
+      m_canvas.setPreview(createPath(curve), Color.BLUE);
+    }
+  }
+
+  /**
+   * スプライン曲線を求め、その評価点を結ぶ折れ線を生成する.
+   * <p>
+   * 補間用のスレッドから呼び出される.
+   * </p>
+   *
+   * @param _points 点列
+   * @return スプライン曲線の評価点を結ぶ折れ線
+   */
+  private static Path2D createSplineCurvePath(List<Point> _points) {
 
     // ---------- ↓knotを指定しない場合↓ (節点間隔に合わせて節点列を自動で生成) ----------
     // 分かりやすいように時刻パラメータを0から始まるようにシフトしておく.
-    List<Point> shiftedPoints = shiftPointsTimeZero();
+    List<Point> shiftedPoints = shiftPointsTimeZero(_points);
     // リストを配列に変換する.
     Point[] points = shiftedPoints.toArray(new Point[0]);
 
@@ -126,8 +189,11 @@ public class Main extends JFrame {
     double knotInterval = 0.1;
 
     // スプライン補間を行う
-    // SplineCurveInterpolator.interpolateの引数は(点列(Point[]型), 次数(int型), 節点間隔(double型))にする.
-    SplineCurve splineCurve = SplineCurveInterpolator.interpolate(points, degree, knotInterval);
+    // SplineCurveInterpolator.interpolateの引数は(点列(Point[]型), 次数(int型), 節点間隔(double型), リスナ)にする.
+    // 同じ点列を読み込み直した場合などはキャッシュした結果を使う(引数はSplineCurveInterpolator.interpolateと同じ).
+    // 節点系列が決まった時点でPointsGraphを表示する(Swing の操作はイベントディスパッチスレッドで行う).
+    SplineCurve splineCurve = FITTING_CACHE.interpolate(points, degree, knotInterval,
+            (p, k) -> SwingUtilities.invokeLater(() -> createPointsGraph(p, k)));
     // ---------- ↑knotを指定しない場合↑ (節点間隔に合わせて節点列を自動で生成) ----------
 
 
@@ -135,7 +201,7 @@ public class Main extends JFrame {
 //    // 時刻パラメータを正規化しておくと節点を自分で定義しやすい.
 //    Range timeRange = Range.create(0.0, 1.0);
 //    // 点列の時系列を正規化する.
-//    List<Point> normalizedPoints = normalizePoints(timeRange);
+//    List<Point> normalizedPoints = normalizePoints(_points, timeRange);
 //    // リストを配列に変換する.
 //    Point[] points = normalizedPoints.toArray(new Point[0]);
 //
@@ -145,25 +211,43 @@ public class Main extends JFrame {
 //    // 節点を定義する.
 //    double[] knot = new double[]{-0.4, -0.2, 0.0, 0.2, 0.4, 0.6, 0.8, 1.0, 1.2, 1.4};
 //    // スプライン補間を行う
-//    //SplineCurveInterpolator.interpolateの引数は(点列(Point[]型), 次数(int型), 節点列(double[]型))
-//    SplineCurve splineCurve = SplineCurveInterpolator.interpolate(points, knot, degree);
+//    //SplineCurveInterpolator.interpolateの引数は(点列(Point[]型), 節点列(double[]型), 次数(int型), リスナ)
+//    SplineCurve splineCurve = SplineCurveInterpolator.interpolate(points, knot, degree,
+//            (p, k) -> SwingUtilities.invokeLater(() -> createPointsGraph(p, k)));
 //    // ++++++++++ ↑knotを指定する場合↑ ++++++++++
 
+    return createPath(splineCurve);
+  }
 
+  /**
+   * スプライン曲線の評価点を結ぶ折れ線を生成する.
+   *
+   * @param _splineCurve スプライン曲線
+   * @return スプライン曲線の評価点を結ぶ折れ線
+   */
+  private static Path2D createPath(SplineCurve _splineCurve) {
     // スプライン曲線の評価点を求める↓
-    double start = splineCurve.range().start();
-    double end = splineCurve.range().end();
-    List<Point> evaluateList = new ArrayList<>();
-
-    for (double t = start; t < end; t += 0.01) {
-      evaluateList.add(splineCurve.evaluate(t));
+    double start = _splineCurve.range().start();
+    double end = _splineCurve.range().end();
+    int num = (int) Math.ceil((end - start) / 0.01);
+    double[] ts = new double[num];
+    for (int i = 0; i < num; i++) {
+      ts[i] = start + i * 0.01;
     }
-
-    // SplineCurveの描画
-    for (int i = 1; i < evaluateList.size(); i++) {
-      drawLine(evaluateList.get(i-1), evaluateList.get(i), Color.RED);
+    double[] xs = new double[num];
+    double[] ys = new double[num];
+    _splineCurve.evaluate(ts, xs, ys);
+
+    // SplineCurveの評価点を結ぶ折れ線
+    Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO, num);
+    if (num > 0) {
+      path.moveTo(xs[0], ys[0]);
+    }
+    for (int i = 1; i < num; i++) {
+      path.lineTo(xs[i], ys[i]);
     }
 
+    return path;
   }
 
   /**
@@ -175,11 +259,7 @@ public class Main extends JFrame {
    * @param _color  点の色
    */
   public void drawPoint(double _x, double _y, double _radius, Color _color) {
-    Graphics2D g = (Graphics2D) m_canvas.getGraphics();
-    g.setColor(_color);
-
-    Ellipse2D.Double oval = new Ellipse2D.Double(_x - _radius, _y - _radius, _radius * 2, _radius * 2);
-    g.draw(oval);
+    m_canvas.drawPoint(_x, _y, _radius, _color);
   }
 
   /**
@@ -190,27 +270,38 @@ public class Main extends JFrame {
    * @param _color 線の色
    */
   public void drawLine(Point _p1, Point _p2, Color _color) {
-    Graphics2D g = (Graphics2D)m_canvas.getGraphics();
-    g.setColor(_color);
+    drawLine(_p1.x(), _p1.y(), _p2.x(), _p2.y(), _color);
+  }
 
-    Line2D.Double line = new Line2D.Double(_p1.x(), _p1.y(), _p2.x(), _p2.y());
-    g.draw(line);
+  /**
+   * 線を描画する.
+   *
+   * @param _x1    始点のx座標
+   * @param _y1    始点のy座標
+   * @param _x2    終点のx座標
+   * @param _y2    終点のy座標
+   * @param _color 線の色
+   */
+  public void drawLine(double _x1, double _y1, double _x2, double _y2, Color _color) {
+    m_canvas.drawLine(_x1, _y1, _x2, _y2, _color);
   }
 
   /**
    * 描画を初期化する.
+   * <p>
+   * 補間中のスプライン曲線は描画しない.
+   * </p>
    */
   public void clear() {
-    Graphics g = m_canvas.getGraphics();
-
-    g.clearRect(0, 0, m_canvas.getWidth(), m_canvas.getHeight());
+    ++m_generation;
+    m_canvas.clear();
   }
 
   /**
    * 点列の時刻パラメータが0始まりになるように全体をシフトします.
    */
   public List<Point> shiftPointsTimeZero() {
-    return normalizePoints(Range.create(0, m_points.get(m_points.size() - 1).time() - m_points.get(0).time()));
+    return shiftPointsTimeZero(m_points);
   }
 
   /**
@@ -220,11 +311,30 @@ public class Main extends JFrame {
    * @param _range 正規化後の時刻パラメータの範囲
    */
   public List<Point> normalizePoints(Range _range) {
-    double startTime = m_points.get(0).time();
-    double timeLength = m_points.get(m_points.size() - 1).time() - startTime;
+    return normalizePoints(m_points, _range);
+  }
+
+  /**
+   * 指定した点列の時刻パラメータが0始まりになるように全体をシフトします.
+   *
+   * @param _points 点列
+   */
+  private static List<Point> shiftPointsTimeZero(List<Point> _points) {
+    return normalizePoints(_points, Range.create(0, _points.get(_points.size() - 1).time() - _points.get(0).time()));
+  }
+
+  /**
+   * 指定した点列の時刻パラメータが_range区間に収まるように正規化します.
+   *
+   * @param _points 点列
+   * @param _range  正規化後の時刻パラメータの範囲
+   */
+  private static List<Point> normalizePoints(List<Point> _points, Range _range) {
+    double startTime = _points.get(0).time();
+    double timeLength = _points.get(_points.size() - 1).time() - startTime;
     double rangeLength = _range.length();
     List<Point> points = new ArrayList<>();
-    for (Point point : m_points) {
+    for (Point point : _points) {
       points.add(Point.createXYT(point.x(), point.y()
               , _range.start() + (point.time() - startTime) * (rangeLength / timeLength)));
     }
@@ -258,9 +368,11 @@ public class Main extends JFrame {
       if (Double.isNaN(t) || Double.isInfinite(t)) {
         throw new IllegalArgumentException("point's time include NaN or infinite");
       }
-      if (t <= preTime) {
+      // 同じ時刻の点が続くことは許す
+      if (t < preTime) {
         throw new IllegalArgumentException("time series is not a positive order");
       }
+      preTime = t;
     }
 
     m_points = new ArrayList<>(_points);
@@ -269,8 +381,30 @@ public class Main extends JFrame {
   /** PointsGraphを保持するためのJFrame */
   private static final JFrame POINTS_GRAPH_FRAME = new JFrame();
 
-  /** キャンバスを表す変数 */
-  private final Canvas m_canvas = new Canvas();
+  /** プレビューの次数 */
+  private static final int PREVIEW_DEGREE = 3;
+
+  /** プレビューの節点間隔 */
+  private static final double PREVIEW_KNOT_INTERVAL = 0.1;
+
+  /** スプライン補間の結果のキャッシュ */
+  private static final FittingCache FITTING_CACHE = FittingCache.create(16);
+
+  /** キャンバスを表す変数(描画内容は裏画面に保持する) */
+  private final BufferedCanvas m_canvas = new BufferedCanvas(800, 600, Color.WHITE);
+
+  /** スプライン補間を行うスレッド(補間中も描画スレッドが止まらないようにする) */
+  private final ExecutorService m_fittingExecutor = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "b3zemi-fitting");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /** 描画の世代(消去や補間の要求のたびに増やし、古い補間結果を描画しないために用いる) */
+  private long m_generation;
+
+  /** ドラッグ中のストロークのプレビューを求める逐次補間(ドラッグしていない間はnull) */
+  private IncrementalSplineInterpolator m_preview;
 
   /** ドラッグで打たれた点列を保持するリスト */
   private List<Point> m_points = new ArrayList<>();
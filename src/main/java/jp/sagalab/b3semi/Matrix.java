@@ -1,6 +1,8 @@
 package jp.sagalab.b3semi;
 
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * m×n行列を表すクラスです。
@@ -274,22 +276,205 @@ public class Matrix {
     int oColumnSize = _right.columnSize();
 
     double[] elements = new double[rowSize * oColumnSize];
-    for (int i = 0; i < rowSize; ++i) {
-      int offset = i * columnSize;
-      int resultOffset = i * oColumnSize;
-      for (int j = 0; j < columnSize; ++j) {
-        if (m_elements[offset + j] != 0.0) {
-          int oOffset = j * oColumnSize;
-          for (int k = 0; k < oColumnSize; ++k) {
-            if (_right.m_elements[oOffset + k] != 0.0) {
-              elements[resultOffset + k] += m_elements[offset + j] * _right.m_elements[oOffset + k];
+    final double[] left = m_elements;
+    final double[] right = _right.m_elements;
+    forEachBlock(rowSize, (long) rowSize * columnSize * oColumnSize,
+            (_from, _to) -> productRows(left, columnSize, right, oColumnSize, elements, _from, _to));
+
+    return Matrix.create(elements, oColumnSize);
+  }
+
+  /**
+   * この行列の転置と指定された行列との積 A<sup>T</sup>B (A はこの行列)を求めます。
+   * <p>
+   * 転置行列は生成せず、A と B を行の順に走査します。結果は {@code transpose().product(_right)} と同じです。
+   * </p>
+   *
+   * @param _right 右辺行列
+   * @return 積演算の結果
+   * @throws IllegalArgumentException 指定された行列の行数がこの行列の行数に等しくない場合にスローします。
+   */
+  public Matrix transposeTimes(Matrix _right) {
+    int rowSize = rowSize();
+    if (rowSize != _right.rowSize()) {
+      throw new IllegalArgumentException("not equals other matrix's row size.");
+    }
+    int columnSize = columnSize();
+    int oColumnSize = _right.columnSize();
+
+    double[] elements = new double[columnSize * oColumnSize];
+    final double[] left = m_elements;
+    final double[] right = _right.m_elements;
+    forEachBlock(columnSize, (long) rowSize * columnSize * oColumnSize,
+            (_from, _to) -> transposeTimesRows(left, rowSize, columnSize, right, oColumnSize, elements, _from, _to, false));
+
+    return Matrix.create(elements, oColumnSize);
+  }
+
+  /**
+   * この行列のグラム行列 A<sup>T</sup>A (A はこの行列)を求めます。
+   * <p>
+   * 転置行列は生成せず、対称性を利用して上三角部分のみを計算します。
+   * </p>
+   *
+   * @return A<sup>T</sup>A
+   */
+  public Matrix gram() {
+    int rowSize = rowSize();
+    int columnSize = columnSize();
+
+    double[] elements = new double[columnSize * columnSize];
+    final double[] values = m_elements;
+    forEachBlock(columnSize, (long) rowSize * columnSize * columnSize / 2,
+            (_from, _to) -> transposeTimesRows(values, rowSize, columnSize, values, columnSize, elements, _from, _to, true));
+    // 下三角部分を上三角部分から複写する
+    for (int i = 0; i < columnSize; ++i) {
+      for (int j = 0; j < i; ++j) {
+        elements[i * columnSize + j] = elements[j * columnSize + i];
+      }
+    }
+
+    return Matrix.create(elements, columnSize);
+  }
+
+  /**
+   * 結果の行 [_from, _to) について積 AB を求めます。
+   * <p>
+   * A の列と B の列をブロックに分け、B のブロックをキャッシュに載せたまま A の各行に用います。
+   * 結果の各要素への加算は A の列番号の昇順に行うため、分割によらず結果は同じです。
+   * </p>
+   *
+   * @param _a           A の要素
+   * @param _aColumnSize A の列数
+   * @param _b           B の要素
+   * @param _bColumnSize B の列数
+   * @param _c           結果の格納先
+   * @param _from        結果の先頭行
+   * @param _to          結果の終端行(この行を含まない)
+   */
+  private static void productRows(double[] _a, int _aColumnSize, double[] _b, int _bColumnSize,
+                                  double[] _c, int _from, int _to) {
+    final Kernels kernels = Kernels.get();
+    for (int kk = 0; kk < _aColumnSize; kk += BLOCK_SIZE) {
+      int kEnd = Math.min(kk + BLOCK_SIZE, _aColumnSize);
+      for (int jj = 0; jj < _bColumnSize; jj += BLOCK_SIZE) {
+        int jEnd = Math.min(jj + BLOCK_SIZE, _bColumnSize);
+        for (int i = _from; i < _to; ++i) {
+          int aOffset = i * _aColumnSize;
+          int cOffset = i * _bColumnSize;
+          for (int k = kk; k < kEnd; ++k) {
+            double aik = _a[aOffset + k];
+            if (aik != 0.0) {
+              kernels.multiplyAdd(aik, _b, k * _bColumnSize + jj, _c, cOffset + jj, jEnd - jj);
             }
           }
         }
       }
     }
+  }
 
-    return Matrix.create(elements, oColumnSize);
+  /**
+   * 結果の行 [_from, _to) について積 A<sup>T</sup>B を求めます。
+   * <p>
+   * A と B の行をブロックごとに走査し、結果の各要素への加算は A の行番号の昇順に行います。
+   * </p>
+   *
+   * @param _a           A の要素
+   * @param _rowSize     A、B の行数
+   * @param _aColumnSize A の列数
+   * @param _b           B の要素
+   * @param _bColumnSize B の列数
+   * @param _c           結果の格納先
+   * @param _from        結果の先頭行(A の列番号)
+   * @param _to          結果の終端行(この行を含まない)
+   * @param _upper       結果の上三角部分(列番号 ≥ 行番号)のみを求める場合はtrue
+   */
+  private static void transposeTimesRows(double[] _a, int _rowSize, int _aColumnSize, double[] _b, int _bColumnSize,
+                                         double[] _c, int _from, int _to, boolean _upper) {
+    final Kernels kernels = Kernels.get();
+    for (int rr = 0; rr < _rowSize; rr += BLOCK_SIZE) {
+      int rEnd = Math.min(rr + BLOCK_SIZE, _rowSize);
+      for (int k = _from; k < _to; ++k) {
+        int cOffset = k * _bColumnSize;
+        int jStart = _upper ? k : 0;
+        for (int r = rr; r < rEnd; ++r) {
+          double ark = _a[r * _aColumnSize + k];
+          if (ark != 0.0) {
+            kernels.multiplyAdd(ark, _b, r * _bColumnSize + jStart, _c, cOffset + jStart, _bColumnSize - jStart);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * 結果の行を分割して処理します。
+   * <p>
+   * 演算量が閾値以上の場合は行をブロックに分け、{@link ForkJoinPool#commonPool()} で並列に処理します。
+   * 各ブロックは結果の異なる行に書き込むため、並列に処理しても結果は変わりません。
+   * </p>
+   *
+   * @param _rowSize    結果の行数
+   * @param _operations 積和演算の回数
+   * @param _kernel     行 [_from, _to) を処理する関数
+   */
+  private static void forEachBlock(int _rowSize, long _operations, RowKernel _kernel) {
+    if (_operations < PARALLEL_THRESHOLD || _rowSize < 2 * BLOCK_ROWS
+            || ForkJoinPool.getCommonPoolParallelism() < 2) {
+      _kernel.compute(0, _rowSize);
+      return;
+    }
+    ForkJoinPool.commonPool().invoke(new RowTask(_kernel, 0, _rowSize));
+  }
+
+  /**
+   * 結果の行 [_from, _to) を計算する関数です。
+   */
+  @FunctionalInterface
+  private interface RowKernel {
+    /**
+     * 結果の行 [_from, _to) を計算します。
+     *
+     * @param _from 先頭行
+     * @param _to   終端行(この行を含まない)
+     */
+    void compute(int _from, int _to);
+  }
+
+  /**
+   * 結果の行を二分しながら並列に計算するタスクです。
+   */
+  private static final class RowTask extends RecursiveAction {
+
+    /**
+     * コンストラクタ
+     *
+     * @param _kernel 行を計算する関数
+     * @param _from   先頭行
+     * @param _to     終端行(この行を含まない)
+     */
+    RowTask(RowKernel _kernel, int _from, int _to) {
+      m_kernel = _kernel;
+      m_from = _from;
+      m_to = _to;
+    }
+
+    @Override
+    protected void compute() {
+      if (m_to - m_from <= BLOCK_ROWS) {
+        m_kernel.compute(m_from, m_to);
+        return;
+      }
+      int middle = (m_from + m_to) >>> 1;
+      invokeAll(new RowTask(m_kernel, m_from, middle), new RowTask(m_kernel, middle, m_to));
+    }
+
+    /** 行を計算する関数 */
+    private final RowKernel m_kernel;
+    /** 先頭行 */
+    private final int m_from;
+    /** 終端行 */
+    private final int m_to;
   }
 
   /**
@@ -323,6 +508,7 @@ public class Matrix {
     double[][] elem = elements();
 
     // ピボット操作によるLU分解
+    final Kernels kernels = Kernels.get();
     for (int i = 0; i < rowSize; ++i) {
       pivot(elem, processHistory, i);
 
@@ -334,9 +520,8 @@ public class Matrix {
             System.err.println("Warning: fault solving in Matrix.");
             return null;
           }
-          for (int k = i + 1; k < rowSize; ++k) {
-            elem[j][k] -= elem[j][i] * elem[i][k];
-          }
+          // elem[j][k] -= elem[j][i] * elem[i][k] (k > i)
+          kernels.multiplyAdd(-elem[j][i], elem[i], i + 1, elem[j], i + 1, rowSize - i - 1);
         }
       }
     }
@@ -381,6 +566,146 @@ public class Matrix {
     return Matrix.create(result, rColumnSize);
   }
 
+  /**
+   * 指定された行列との解をコレスキー分解により求めます。
+   * <p>
+   * Ax = b （ただし　A(this)、b(_right)）の x を求めます。
+   * この行列は対称正定値である必要があります。上三角部分は参照しません。
+   * LU 分解の約半分の演算量で、行ごとの配列を生成せずに要素群の複製上で分解を行います。
+   * </p>
+   *
+   * @param _right 右辺行列
+   * @return 解行列
+   * @throws IllegalArgumentException 指定された行列の行数とこの行列の行数が
+   *                                  等しくない場合、この行列が正方行列でない場合にスローします。
+   * @throws SingularMatrixException  この行列が正定値でない場合にスローします。
+   */
+  public Matrix solveCholesky(Matrix _right) {
+    final int size = rowSize();
+    if (size != columnSize()) {
+      throw new IllegalArgumentException("matrix is not square.");
+    }
+    if (size != _right.rowSize()) {
+      throw new IllegalArgumentException("not equals other matrix's row size.");
+    }
+
+    //-- コレスキー分解 A = LL^T (下三角部分に L を格納する) --
+    double[] l = m_elements.clone();
+    for (int i = 0; i < size; ++i) {
+      int iOffset = i * size;
+      for (int j = 0; j <= i; ++j) {
+        int jOffset = j * size;
+        double sum = l[iOffset + j];
+        for (int k = 0; k < j; ++k) {
+          sum -= l[iOffset + k] * l[jOffset + k];
+        }
+        if (i == j) {
+          if (!(sum > 0.0)) {
+            throw new SingularMatrixException("matrix is not positive definite.");
+          }
+          l[iOffset + i] = Math.sqrt(sum);
+        } else {
+          l[iOffset + j] = sum / l[jOffset + j];
+        }
+      }
+    }
+
+    //-- 前進消去・後退代入 --
+    int rColumnSize = _right.columnSize();
+    double[] result = _right.m_elements.clone();
+
+    // 前進消去 Ly = b
+    for (int i = 0; i < size; ++i) {
+      int iOffset = i * size;
+      int resultOffset = i * rColumnSize;
+      for (int k = 0; k < i; ++k) {
+        double lik = l[iOffset + k];
+        if (lik != 0.0) {
+          int kOffset = k * rColumnSize;
+          for (int c = 0; c < rColumnSize; ++c) {
+            result[resultOffset + c] -= lik * result[kOffset + c];
+          }
+        }
+      }
+      double diagonal = l[iOffset + i];
+      for (int c = 0; c < rColumnSize; ++c) {
+        result[resultOffset + c] /= diagonal;
+      }
+    }
+
+    // 後退代入 L^T x = y
+    for (int i = size - 1; i >= 0; --i) {
+      int resultOffset = i * rColumnSize;
+      for (int k = i + 1; k < size; ++k) {
+        double lki = l[k * size + i];
+        if (lki != 0.0) {
+          int kOffset = k * rColumnSize;
+          for (int c = 0; c < rColumnSize; ++c) {
+            result[resultOffset + c] -= lki * result[kOffset + c];
+          }
+        }
+      }
+      double diagonal = l[i * size + i];
+      for (int c = 0; c < rColumnSize; ++c) {
+        double d = result[resultOffset + c] / diagonal;
+        if (Double.isNaN(d) || Double.isInfinite(d)) {
+          throw new SingularMatrixException("fault solving in Matrix.");
+        }
+        result[resultOffset + c] = d;
+      }
+    }
+
+    return Matrix.create(result, rColumnSize);
+  }
+
+  /**
+   * 指定された行列との解を、この行列の性質に応じた方法で求めます。
+   * <p>
+   * この行列が対称な場合はコレスキー分解を試み、正定値でない場合や対称でない場合は
+   * ピボット操作付きの LU 分解で解きます。
+   * </p>
+   *
+   * @param _right 右辺行列
+   * @return 解行列
+   * @throws IllegalArgumentException 指定された行列の行数とこの行列の行数が
+   *                                  等しくない場合にスローします。
+   * @throws SingularMatrixException  解が求められない場合にスローします。
+   */
+  public Matrix solveSymmetric(Matrix _right) {
+    if (isSymmetric()) {
+      try {
+        return solveCholesky(_right);
+      } catch (SingularMatrixException e) {
+        // 正定値でない対称行列は LU 分解で解く
+      }
+    }
+    Matrix result = solve(_right);
+    if (result == null) {
+      throw new SingularMatrixException("fault solving in Matrix.");
+    }
+    return result;
+  }
+
+  /**
+   * この行列が対称行列かどうかを返します。
+   *
+   * @return 対称行列の場合はtrue
+   */
+  public boolean isSymmetric() {
+    final int size = rowSize();
+    if (size != columnSize()) {
+      return false;
+    }
+    for (int i = 0; i < size; ++i) {
+      for (int j = 0; j < i; ++j) {
+        if (m_elements[i * size + j] != m_elements[j * size + i]) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
   /**
    * ピボット操作を行います。
    *
@@ -544,6 +869,13 @@ public class Matrix {
     m_columnSize = _columnSize;
   }
 
+  /** キャッシュブロックの一辺の要素数 */
+  private static final int BLOCK_SIZE = 128;
+  /** 並列に処理する際の一タスクあたりの最小行数 */
+  private static final int BLOCK_ROWS = 32;
+  /** 並列に処理する積和演算回数の閾値 */
+  private static final long PARALLEL_THRESHOLD = 1L << 21;
+
   /** 行列の要素 */
   private final double[] m_elements;
   /** 行列の列数 */
@@ -0,0 +1,261 @@
+package jp.sagalab.b3semi;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 点列を x座標、y座標、時刻の配列として保持する不変なクラスです。
+ * <p>
+ * 点ごとに {@link Point} オブジェクトを生成しないため、点列が連続したメモリに格納され、
+ * 重み行列の構成など点列全体を走査する処理で用います。
+ * </p>
+ */
+public final class PointSeries {
+
+  /**
+   * x座標、y座標、時刻の配列から点列を生成します。
+   * <p>
+   * 配列は複製して保持します。
+   * </p>
+   *
+   * @param _x x座標
+   * @param _y y座標
+   * @param _t 時刻
+   * @return 点列
+   * @throws IllegalArgumentException 配列がnullの場合、配列の要素数が異なる場合、
+   *                                  要素にNaNまたはInfiniteが含まれる場合
+   */
+  public static PointSeries create(double[] _x, double[] _y, double[] _t) {
+    if (_x == null || _y == null || _t == null) {
+      throw new IllegalArgumentException("coordinates are null.");
+    }
+    if (_x.length != _y.length || _x.length != _t.length) {
+      throw new IllegalArgumentException("length of coordinates are different.");
+    }
+    return create(_x, _y, _t, _x.length);
+  }
+
+  /**
+   * x座標、y座標、時刻の配列の先頭 _size 個から点列を生成します。
+   * <p>
+   * 配列は複製して保持します。
+   * </p>
+   *
+   * @param _x    x座標
+   * @param _y    y座標
+   * @param _t    時刻
+   * @param _size 点数
+   * @return 点列
+   * @throws IllegalArgumentException 配列がnullの場合、点数が負もしくは配列の要素数より大きい場合、
+   *                                  要素にNaNまたはInfiniteが含まれる場合
+   */
+  public static PointSeries create(double[] _x, double[] _y, double[] _t, int _size) {
+    if (_x == null || _y == null || _t == null) {
+      throw new IllegalArgumentException("coordinates are null.");
+    }
+    if (_size < 0 || _size > _x.length || _size > _y.length || _size > _t.length) {
+      throw new IllegalArgumentException("_size is out of range.");
+    }
+    double[] x = Arrays.copyOf(_x, _size);
+    double[] y = Arrays.copyOf(_y, _size);
+    double[] t = Arrays.copyOf(_t, _size);
+    checkFinite(x, "_x");
+    checkFinite(y, "_y");
+    checkFinite(t, "_t");
+    return new PointSeries(x, y, t);
+  }
+
+  /**
+   * 点の配列から点列を生成します。
+   *
+   * @param _points 点の配列
+   * @return 点列
+   * @throws IllegalArgumentException 点の配列がnullの場合、nullが含まれる場合
+   */
+  public static PointSeries create(Point[] _points) {
+    if (_points == null) {
+      throw new IllegalArgumentException("_points is null.");
+    }
+    return create(Arrays.asList(_points));
+  }
+
+  /**
+   * 点のリストから点列を生成します。
+   *
+   * @param _points 点のリスト
+   * @return 点列
+   * @throws IllegalArgumentException 点のリストがnullの場合、nullが含まれる場合
+   */
+  public static PointSeries create(List<Point> _points) {
+    if (_points == null) {
+      throw new IllegalArgumentException("_points is null.");
+    }
+    final int size = _points.size();
+    double[] x = new double[size];
+    double[] y = new double[size];
+    double[] t = new double[size];
+    for (int i = 0; i < size; ++i) {
+      Point p = _points.get(i);
+      if (p == null) {
+        throw new IllegalArgumentException(" points include null ");
+      }
+      // Point は生成時に NaN、Infinite を検査済み
+      x[i] = p.x();
+      y[i] = p.y();
+      t[i] = p.time();
+    }
+    return new PointSeries(x, y, t);
+  }
+
+  /**
+   * 点数を返します。
+   *
+   * @return 点数
+   */
+  public int size() {
+    return m_x.length;
+  }
+
+  /**
+   * 指定した点のx座標を返します。
+   *
+   * @param _i 点の番号
+   * @return x座標
+   */
+  public double x(int _i) {
+    return m_x[_i];
+  }
+
+  /**
+   * 指定した点のy座標を返します。
+   *
+   * @param _i 点の番号
+   * @return y座標
+   */
+  public double y(int _i) {
+    return m_y[_i];
+  }
+
+  /**
+   * 指定した点の時刻を返します。
+   *
+   * @param _i 点の番号
+   * @return 時刻
+   */
+  public double time(int _i) {
+    return m_t[_i];
+  }
+
+  /**
+   * 指定した点を返します。
+   *
+   * @param _i 点の番号
+   * @return 点
+   */
+  public Point get(int _i) {
+    return new Point(m_x[_i], m_y[_i], m_t[_i]);
+  }
+
+  /**
+   * x座標の配列を返します。
+   *
+   * @return x座標の配列(複製)
+   */
+  public double[] xs() {
+    return m_x.clone();
+  }
+
+  /**
+   * y座標の配列を返します。
+   *
+   * @return y座標の配列(複製)
+   */
+  public double[] ys() {
+    return m_y.clone();
+  }
+
+  /**
+   * 時刻の配列を返します。
+   *
+   * @return 時刻の配列(複製)
+   */
+  public double[] times() {
+    return m_t.clone();
+  }
+
+  /**
+   * 時刻の範囲(最初の点の時刻から最後の点の時刻まで)を返します。
+   *
+   * @return 時刻の範囲
+   * @throws IllegalArgumentException 点列が空の場合
+   */
+  public Range range() {
+    if (m_t.length == 0) {
+      throw new IllegalArgumentException("point series is empty.");
+    }
+    return Range.create(m_t[0], m_t[m_t.length - 1]);
+  }
+
+  /**
+   * 点の配列に変換します。
+   *
+   * @return 点の配列
+   */
+  public Point[] toPoints() {
+    Point[] points = new Point[m_x.length];
+    for (int i = 0; i < points.length; ++i) {
+      points[i] = new Point(m_x[i], m_y[i], m_t[i]);
+    }
+    return points;
+  }
+
+  /**
+   * この PointSeries の文字列表現を返します。
+   *
+   * @return 点数と時刻の範囲を表す String
+   */
+  @Override
+  public String toString() {
+    return (m_t.length == 0) ? "size:0"
+            : String.format("size:%d t:[%.3f, %.3f]", m_t.length, m_t[0], m_t[m_t.length - 1]);
+  }
+
+  /**
+   * 配列にNaN、Infiniteが含まれていないことを確認します。
+   *
+   * @param _values 配列
+   * @param _name   配列の名前
+   * @throws IllegalArgumentException NaN、Infiniteが含まれる場合
+   */
+  private static void checkFinite(double[] _values, String _name) {
+    for (double d : _values) {
+      if (Double.isNaN(d)) {
+        throw new IllegalArgumentException(_name + " is NaN.");
+      }
+      if (Double.isInfinite(d)) {
+        throw new IllegalArgumentException(_name + " is Inf.");
+      }
+    }
+  }
+
+
+  /**
+   * コンストラクタ
+   *
+   * @param _x x座標
+   * @param _y y座標
+   * @param _t 時刻
+   */
+  private PointSeries(double[] _x, double[] _y, double[] _t) {
+    m_x = _x;
+    m_y = _y;
+    m_t = _t;
+  }
+
+  /** x座標 */
+  private final double[] m_x;
+  /** y座標 */
+  private final double[] m_y;
+  /** 時刻 */
+  private final double[] m_t;
+}
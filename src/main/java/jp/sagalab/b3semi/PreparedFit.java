@@ -0,0 +1,369 @@
+package jp.sagalab.b3semi;
+
+/**
+ * 時刻の並び、次数、節点系列が共通な点列のスプライン曲線補間を繰り返し行うためのクラスです。
+ * <p>
+ * 重み行列と正規方程式の係数行列 A<sup>T</sup>A は時刻と次数、節点系列のみで決まるため、
+ * 生成時に一度だけ求めて A<sup>T</sup>A を帯コレスキー分解しておきます。
+ * 点列(座標)ごとの補間は A<sup>T</sup>b の計算と前進消去・後退代入のみで、
+ * 計算量は点数と次数の積に比例します。
+ * </p>
+ * <p>
+ * 共通の時刻に再標本化した多数のストロークを補間する場合などに用います。
+ * 補間の結果は {@link SplineCurveInterpolator} で同じ点列を補間した場合と同じです。
+ * 生成後は状態を変更しないため、複数のスレッドから使うことができます。
+ * </p>
+ */
+public final class PreparedFit {
+
+  /**
+   * 節点間隔を指定して PreparedFit を生成します。
+   *
+   * @param _times        時刻の並び
+   * @param _degree       次数
+   * @param _knotInterval 節点間隔
+   * @return PreparedFit
+   * @throws IllegalArgumentException 次数が0以下の場合
+   * @throws IllegalArgumentException 節点間隔が0以下の場合
+   * @throws IllegalArgumentException 時刻の並びがnullの場合
+   * @throws IllegalArgumentException 時刻の要素数が1以下の場合
+   * @throws IllegalArgumentException 時刻がNaN、もしくは無限大の場合
+   * @throws IllegalArgumentException 時刻に逆行している箇所があった場合
+   */
+  public static PreparedFit create(double[] _times, int _degree, double _knotInterval) {
+    if (_degree < 1) {
+      throw new IllegalArgumentException(" degree is must be greater than 0 ");
+    }
+    if (_knotInterval <= 0.0) {
+      throw new IllegalArgumentException(" knot's interval is must be greater than 0 ");
+    }
+    PointSeries grid = createGrid(_times);
+    SplineCurveInterpolator.checkPoints(grid);
+    double[] knots = SplineCurveInterpolator.createKnots(grid.range(), _degree, _knotInterval);
+    return create(grid, knots, _degree);
+  }
+
+  /**
+   * 節点系列を指定して PreparedFit を生成します。
+   *
+   * @param _times  時刻の並び
+   * @param _knots  節点系列
+   * @param _degree 次数
+   * @return PreparedFit
+   * @throws IllegalArgumentException 次数が0以下の場合
+   * @throws IllegalArgumentException 節点系列がnullの場合
+   * @throws IllegalArgumentException 節点系列の要素数が2*degree-1以下の場合
+   * @throws IllegalArgumentException 時刻の並びがnullの場合
+   * @throws IllegalArgumentException 時刻の要素数が1以下の場合
+   * @throws IllegalArgumentException 時刻がNaN、もしくは無限大の場合
+   * @throws IllegalArgumentException 時刻に逆行している箇所があった場合
+   */
+  public static PreparedFit create(double[] _times, double[] _knots, int _degree) {
+    if (_degree < 1) {
+      throw new IllegalArgumentException(" degree is must be greater than 0 ");
+    }
+    if (_knots == null) {
+      throw new IllegalArgumentException(" _knots is null");
+    }
+    if (_knots.length <= 2 * _degree - 1) {
+      throw new IllegalArgumentException(" knots's length must be greater than 2 * _degree - 1 ");
+    }
+    PointSeries grid = createGrid(_times);
+    SplineCurveInterpolator.checkPoints(grid);
+    return create(grid, _knots.clone(), _degree);
+  }
+
+  /**
+   * 検査済みの点列の時刻と節点系列から PreparedFit を生成します。
+   * <p>
+   * A<sup>T</sup>A が正定値でない場合は分解を保持せず、補間のたびに {@link LeastSquares} で解き直します。
+   * </p>
+   *
+   * @param _points 点列(時刻のみを用いる)
+   * @param _knots  節点系列(複製済み)
+   * @param _degree 次数
+   * @return PreparedFit
+   */
+  static PreparedFit create(PointSeries _points, double[] _knots, int _degree) {
+    WeightMatrix weights = SplineCurveInterpolator.createSparseWeightMatrix(_points, _degree, _knots);
+    BandedCholesky factor;
+    try {
+      factor = weights.gram().cholesky();
+    } catch (SingularMatrixException e) {
+      factor = null;
+    }
+    return new PreparedFit(_points.times(), _knots, _degree, weights, factor);
+  }
+
+  /**
+   * 生成時の時刻の並びでの座標からスプライン曲線補間を行います。
+   *
+   * @param _x x 座標
+   * @param _y y 座標
+   * @return スプライン曲線
+   * @throws IllegalArgumentException 座標がnullの場合
+   * @throws IllegalArgumentException 座標の要素数が時刻の要素数と等しくない場合
+   * @throws IllegalArgumentException 座標がNaN、もしくは無限大の場合
+   */
+  public SplineCurve fit(double[] _x, double[] _y) {
+    if (_x == null || _y == null) {
+      throw new IllegalArgumentException("_x or _y is null.");
+    }
+    if (_x.length != m_times.length || _y.length != m_times.length) {
+      throw new IllegalArgumentException("length of _x and _y must be equal to the number of times.");
+    }
+    return fit(PointSeries.create(_x, _y, m_times), null);
+  }
+
+  /**
+   * 生成時と時刻の並びが等しい点列に対してスプライン曲線補間を行います。
+   *
+   * @param _points   点列(時刻は生成時と等しいこと)
+   * @param _listener 途中経過を受け取るリスナ(nullの場合は通知しない)
+   * @return スプライン曲線
+   */
+  SplineCurve fit(PointSeries _points, InterpolationListener _listener) {
+    return SplineCurveInterpolator.fitWithFactor(_points, m_knots, m_degree, m_weights, m_factor, _listener);
+  }
+
+  /**
+   * 生成時の時刻の並びでの全チャンネルの値からスプライン曲線補間を行います。
+   *
+   * @param _channels チャンネルの値(チャンネルごとの配列、チャンネル 0, 1 を x 座標、y 座標とする)
+   * @return スプライン曲線
+   * @throws IllegalArgumentException チャンネルの値がnullの場合、チャンネル数が1以下の場合
+   * @throws IllegalArgumentException チャンネルの要素数が時刻の要素数と等しくない場合
+   * @throws IllegalArgumentException 値がNaN、もしくは無限大の場合
+   * @see #fit(ChannelSeries)
+   */
+  public ChannelSplineCurve fit(double[][] _channels) {
+    return fit(ChannelSeries.create(m_times, _channels));
+  }
+
+  /**
+   * 生成時と時刻の並びが等しい点列の全チャンネルに対してスプライン曲線補間を行います。
+   * <p>
+   * チャンネル 0, 1 を x 座標、y 座標とみなし、{@link #fit(double[], double[])} と同じく制約 Cd = q を課して解きます。
+   * 残りのチャンネルは制約を課さず、全てを右辺の列として並べて一つの分解で一度に解きます。
+   * 全てのチャンネルに制約を課さない場合は {@link #fitUnconstrained(ChannelSeries)} を用いてください。
+   * </p>
+   *
+   * @param _series 点列
+   * @return スプライン曲線
+   * @throws IllegalArgumentException 点列がnullの場合、チャンネル数が1以下の場合
+   * @throws IllegalArgumentException 点列の時刻が生成時の時刻の並びと等しくない場合
+   * @throws SingularMatrixException  解が求められない場合
+   */
+  public ChannelSplineCurve fit(ChannelSeries _series) {
+    checkSeries(_series);
+    final int dimension = _series.dimension();
+    if (dimension < 2) {
+      throw new IllegalArgumentException("_series must have x and y channels.");
+    }
+    PointSeries points = PointSeries.create(_series.channel(0), _series.channel(1), m_times);
+    Point[] xy = SplineCurveInterpolator.calculateControlPoints(m_weights, m_factor, points, m_knots, m_degree);
+
+    // 制約を課さないチャンネル
+    final int extra = dimension - 2;
+    Matrix others = null;
+    if (extra > 0) {
+      double[] values = new double[m_times.length * extra];
+      for (int i = 0; i < m_times.length; ++i) {
+        for (int c = 0; c < extra; ++c) {
+          values[i * extra + c] = _series.value(i, c + 2);
+        }
+      }
+      others = solve(new Matrix(values, extra));
+    }
+
+    final int size = m_weights.columnSize();
+    double[] controlPoints = new double[size * dimension];
+    for (int i = 0; i < size; ++i) {
+      controlPoints[i * dimension] = xy[i].x();
+      controlPoints[i * dimension + 1] = xy[i].y();
+      for (int c = 0; c < extra; ++c) {
+        controlPoints[i * dimension + c + 2] = others.get(i, c);
+      }
+    }
+    return ChannelSplineCurve.create(m_degree, controlPoints, dimension, m_knots.clone(),
+            Range.create(m_times[0], m_times[m_times.length - 1]));
+  }
+
+  /**
+   * 生成時と時刻の並びが等しい点列の全チャンネルに対して、制約を課さずにスプライン曲線補間を行います。
+   * <p>
+   * 全てのチャンネルを右辺の列として並べ、一つの分解で一度に解きます。
+   * 各チャンネルの最小二乗解を求めるため、チャンネル 0, 1 の結果は {@link #fit(ChannelSeries)} とは異なります。
+   * </p>
+   *
+   * @param _series 点列
+   * @return スプライン曲線
+   * @throws IllegalArgumentException 点列がnullの場合
+   * @throws IllegalArgumentException 点列の時刻が生成時の時刻の並びと等しくない場合
+   * @throws SingularMatrixException  解が求められない場合
+   */
+  public ChannelSplineCurve fitUnconstrained(ChannelSeries _series) {
+    checkSeries(_series);
+    final int dimension = _series.dimension();
+    Matrix result = solve(new Matrix(_series.toRowMajor(), dimension));
+
+    final int size = m_weights.columnSize();
+    double[] controlPoints = new double[size * dimension];
+    for (int i = 0; i < size; ++i) {
+      for (int c = 0; c < dimension; ++c) {
+        controlPoints[i * dimension + c] = result.get(i, c);
+      }
+    }
+    return ChannelSplineCurve.create(m_degree, controlPoints, dimension, m_knots.clone(),
+            Range.create(m_times[0], m_times[m_times.length - 1]));
+  }
+
+  /**
+   * 次数を返します。
+   *
+   * @return 次数
+   */
+  public int degree() {
+    return m_degree;
+  }
+
+  /**
+   * 節点系列を返します。
+   *
+   * @return 節点系列
+   */
+  public double[] knots() {
+    return m_knots.clone();
+  }
+
+  /**
+   * 時刻の並びを返します。
+   *
+   * @return 時刻の並び(複製)
+   */
+  public double[] times() {
+    return m_times.clone();
+  }
+
+  /**
+   * 点数(時刻の要素数)を返します。
+   *
+   * @return 点数
+   */
+  public int pointsNum() {
+    return m_times.length;
+  }
+
+  /**
+   * 制御点数を返します。
+   *
+   * @return 制御点数
+   */
+  public int controlPointsNum() {
+    return m_weights.columnSize();
+  }
+
+  /**
+   * A<sup>T</sup>A の分解を保持しているかどうかを返します。
+   *
+   * @return 分解を保持している場合はtrue(正定値でない場合はfalse)
+   */
+  public boolean isFactorized() {
+    return m_factor != null;
+  }
+
+  /**
+   * この PreparedFit の文字列表現を返します。
+   *
+   * @return 次数、点数、制御点数を表す String
+   */
+  @Override
+  public String toString() {
+    return String.format("degree:%d points:%d controlPoints:%d factorized:%b",
+            m_degree, m_times.length, m_weights.columnSize(), m_factor != null);
+  }
+
+  /**
+   * 点列がnullでなく、時刻の並びが生成時と等しいことを検査します。
+   *
+   * @param _series 点列
+   * @throws IllegalArgumentException 点列がnullの場合
+   * @throws IllegalArgumentException 点列の時刻が生成時の時刻の並びと等しくない場合
+   */
+  private void checkSeries(ChannelSeries _series) {
+    if (_series == null) {
+      throw new IllegalArgumentException("_series is null.");
+    }
+    if (!_series.hasTimes(m_times)) {
+      throw new IllegalArgumentException("times of _series are different from the prepared times.");
+    }
+  }
+
+  /**
+   * 制約を課さずに最小二乗解を求めます。
+   *
+   * @param _b 右辺(行数:点数, 列数:右辺の列数)
+   * @return 解(行数:制御点数, 列数:右辺の列数)
+   * @throws SingularMatrixException 解が求められない場合
+   */
+  private Matrix solve(Matrix _b) {
+    Matrix result = null;
+    if (m_factor != null) {
+      try {
+        result = m_factor.solve(m_weights.transposeProduct(_b));
+      } catch (SingularMatrixException e) {
+        result = null;
+      }
+    }
+    if (result == null) {
+      result = LeastSquares.solve(m_weights, _b);
+    }
+    if (result == null) {
+      throw new SingularMatrixException("can not solve the normal equation.");
+    }
+    return result;
+  }
+
+  /**
+   * 時刻の並びを検査するための、座標が0の点列を生成します。
+   *
+   * @param _times 時刻の並び
+   * @return 点列
+   * @throws IllegalArgumentException 時刻の並びがnullの場合
+   */
+  private static PointSeries createGrid(double[] _times) {
+    if (_times == null) {
+      throw new IllegalArgumentException("_times is null.");
+    }
+    double[] zeros = new double[_times.length];
+    return PointSeries.create(zeros, zeros, _times);
+  }
+
+  /**
+   * コンストラクタ
+   *
+   * @param _times   時刻の並び
+   * @param _knots   節点系列
+   * @param _degree  次数
+   * @param _weights 重み行列
+   * @param _factor  A<sup>T</sup>A の帯コレスキー分解(正定値でない場合はnull)
+   */
+  private PreparedFit(double[] _times, double[] _knots, int _degree, WeightMatrix _weights, BandedCholesky _factor) {
+    m_times = _times;
+    m_knots = _knots;
+    m_degree = _degree;
+    m_weights = _weights;
+    m_factor = _factor;
+  }
+
+  /** 時刻の並び */
+  private final double[] m_times;
+  /** 節点系列 */
+  private final double[] m_knots;
+  /** 次数 */
+  private final int m_degree;
+  /** 重み行列 */
+  private final WeightMatrix m_weights;
+  /** A<sup>T</sup>A の帯コレスキー分解(正定値でない場合はnull) */
+  private final BandedCholesky m_factor;
+}
@@ -0,0 +1,55 @@
+package jp.sagalab.b3semi;
+
+/**
+ * {@link Kernels} のスカラーによる実装です。
+ */
+final class ScalarKernels extends Kernels {
+
+  @Override
+  void multiplyAdd(double _a, double[] _x, int _xOffset, double[] _y, int _yOffset, int _length) {
+    for (int i = 0; i < _length; ++i) {
+      _y[_yOffset + i] += _a * _x[_xOffset + i];
+    }
+  }
+
+  @Override
+  void deBoor(double[] _knots, int _degree, double[] _cpX, double[] _cpY, int _knotNum,
+              double[] _ts, int _from, int _to, double[] _outX, double[] _outY, double[] _work) {
+    // 作業領域の [0, 次数] を x 座標、[次数 + 1, 2 * 次数 + 1] を y 座標に用いる
+    final double[] x = _work;
+    final double[] y = _work;
+    final int yOffset = _degree + 1;
+    for (int n = _from; n < _to; ++n) {
+      double t = _ts[n];
+      // 部分制御点列の抽出
+      System.arraycopy(_cpX, _knotNum - _degree, x, 0, _degree + 1);
+      System.arraycopy(_cpY, _knotNum - _degree, y, yOffset, _degree + 1);
+      for (int i = 0; i < _degree; ++i) {
+        for (int j = 0; j < _degree - i; ++j) {
+          int k = _knotNum - j - 1;
+          double w = (t - _knots[k]) / (_knots[k + _degree - i] - _knots[k]);
+          // Point#internalDivision と同じ内分計算
+          double sum = (1 - w) + w;
+          double nx = (w * x[_degree - j] + (1 - w) * x[_degree - j - 1]) / sum;
+          double ny = (w * y[yOffset + _degree - j] + (1 - w) * y[yOffset + _degree - j - 1]) / sum;
+          if (!(Double.isInfinite(nx) || Double.isNaN(nx) || Double.isInfinite(ny) || Double.isNaN(ny))) {
+            x[_degree - j] = nx;
+            y[yOffset + _degree - j] = ny;
+          }
+        }
+      }
+      _outX[n] = x[_degree];
+      _outY[n] = y[yOffset + _degree];
+    }
+  }
+
+  @Override
+  int deBoorWorkSize(int _degree) {
+    return 2 * (_degree + 1);
+  }
+
+  @Override
+  String name() {
+    return "scalar";
+  }
+}
@@ -0,0 +1,16 @@
+package jp.sagalab.b3semi;
+
+/**
+ * 行列が正則でない、あるいは正定値でないために連立方程式が解けない場合にスローされる例外です。
+ */
+public class SingularMatrixException extends ArithmeticException {
+
+  /**
+   * 詳細メッセージを指定して例外を生成します。
+   *
+   * @param _message 詳細メッセージ
+   */
+  public SingularMatrixException(String _message) {
+    super(_message);
+  }
+}
@@ -0,0 +1,252 @@
+package jp.sagalab.b3semi;
+
+import java.util.Arrays;
+
+/**
+ * スプライン曲線の基底関数(重み)を評価するクラスです。
+ * <p>
+ * ある時刻で非零となる基底関数は高々 (次数 + 1) 個です。
+ * 時刻を含む節点区間を一度だけ探索し、その (次数 + 1) 個の基底関数のみを
+ * de Boor の三角形スキーム(Piegl & Tiller, The NURBS Book, A2.2)で評価します。
+ * 評価結果は内部のバッファに格納され、評価のたびに上書きされます。
+ * </p>
+ * <p>
+ * 節点系列の外側の節点を参照する項は考慮しません。
+ * これは左端、右端の基底関数でブレンドの外側を考慮しない扱い(p.48 図3.14、p.50 図3.16、図3.17)と同じです。
+ * </p>
+ * <p>
+ * 内部のバッファを持つため、スレッド間で共有しないでください。
+ * </p>
+ */
+public final class SplineBasis {
+
+  /**
+   * 基底関数の評価器を生成します。
+   *
+   * @param _knots  節点系列
+   * @param _degree 次数
+   * @return 基底関数の評価器
+   * @throws IllegalArgumentException 次数が0以下の場合
+   * @throws IllegalArgumentException 節点系列がnullの場合
+   * @throws IllegalArgumentException 節点系列の要素数が2*degree-1以下の場合
+   */
+  public static SplineBasis create(double[] _knots, int _degree) {
+    if (_degree < 1) {
+      throw new IllegalArgumentException(" degree is must be greater than 0 ");
+    }
+    if (_knots == null) {
+      throw new IllegalArgumentException(" _knots is null");
+    }
+    if (_knots.length <= 2 * _degree - 1) {
+      throw new IllegalArgumentException(" knots's length must be greater than 2 * _degree - 1 ");
+    }
+    return new SplineBasis(_knots, _degree);
+  }
+
+  /**
+   * 指定された時刻における非零の基底関数を評価します。
+   * <p>
+   * 評価した (次数 + 1) 個の重みは {@link #value(int)} で取得できます。
+   * 時刻がどの節点区間にも含まれない場合は全ての重みが0となります。
+   * </p>
+   *
+   * @param _time 時刻
+   * @return 評価した重みの先頭に対応する制御点のインデックス
+   */
+  public int evaluate(double _time) {
+    // knots[span - 1] <= _time < knots[span] となる span を探す
+    return evaluate(_time, searchSpan(_time));
+  }
+
+  /**
+   * 指定されたパラメータにおける非零の基底関数を、曲線の評価と同じ節点区間で評価します。
+   * <p>
+   * {@link #evaluate(double)} と異なり、節点区間は {@link SplineCurve#searchKnotNum(double, int, int)} と同じく
+   * 定義域 [knots[次数 - 1], knots[要素数 - 次数]] の節点区間に制限します。
+   * そのため、定義域の終端(次数が1の場合や端の節点が重複する場合の最後の節点を含む)でも重みの和は1となります。
+   * </p>
+   *
+   * @param _time パラメータ
+   * @return 評価した重みの先頭に対応する制御点のインデックス
+   */
+  int evaluateInDomain(double _time) {
+    return evaluate(_time, searchDomainSpan(_time));
+  }
+
+  /**
+   * 指定された節点区間で非零の基底関数を評価します。
+   *
+   * @param _time 時刻
+   * @param _span knots[span - 1] &lt;= _time &lt; knots[span] となる span (該当する節点区間がない場合は -1)
+   * @return 評価した重みの先頭に対応する制御点のインデックス
+   */
+  private int evaluate(double _time, int _span) {
+    final double[] knots = m_knots;
+    final int degree = m_degree;
+    final int knotsSize = knots.length;
+    final int controlPointsNum = controlPointsNum();
+
+    int span = _span;
+    int offset = Math.max(0, Math.min(span - degree, controlPointsNum - degree - 1));
+    if (span < 0) {
+      Arrays.fill(m_values, 0.0);
+      return offset;
+    }
+
+    // 0次: B(0, span) = 1
+    double[] prev = m_previous;
+    double[] cur = m_current;
+    prev[0] = 1.0;
+    for (int d = 1; d <= degree; ++d) {
+      // 有効なインデックスの上限（最高次のみ右端の制御点まで）
+      int maxIndex = (d == degree) ? knotsSize - degree : knotsSize - 1 - d;
+      for (int k = 0; k <= d; ++k) {
+        int i = span - d + k;
+        double w = 0.0;
+        if (i >= 0 && i <= maxIndex) {
+          // 左側のブレンド B(d-1, i)
+          if (k >= 1 && i >= 1) {
+            // 分母が0になる項の係数は0とする（右端の最高次は従来通りそのまま割る）
+            double denom = knots[i + d - 1] - knots[i - 1];
+            if (denom != 0.0 || (d == degree && i == knotsSize - degree)) {
+              w += (_time - knots[i - 1]) / denom * prev[k - 1];
+            }
+          }
+          // 右側のブレンド B(d-1, i+1)
+          if (k <= d - 1 && i + d <= knotsSize - 1) {
+            // 分母が0になる項の係数は0とする（左端の最高次は従来通りそのまま割る）
+            double denom = knots[i + d] - knots[i];
+            if (denom != 0.0 || (d == degree && i == 0)) {
+              w += (knots[i + d] - _time) / denom * prev[k];
+            }
+          }
+        }
+        cur[k] = w;
+      }
+      double[] tmp = prev;
+      prev = cur;
+      cur = tmp;
+    }
+
+    // prev[k] は制御点 span - degree + k の重み
+    int shift = offset - (span - degree);
+    for (int k = 0; k <= degree; ++k) {
+      int from = k + shift;
+      m_values[k] = (from >= 0 && from <= degree) ? prev[from] : 0.0;
+    }
+
+    return offset;
+  }
+
+  /**
+   * 直前の {@link #evaluate(double)} で求めた重みを返します。
+   *
+   * @param _k 先頭の制御点からの相対インデックス(0 以上 次数 以下)
+   * @return 重み
+   */
+  public double value(int _k) {
+    return m_values[_k];
+  }
+
+  /**
+   * 次数を返します。
+   *
+   * @return 次数
+   */
+  public int degree() {
+    return m_degree;
+  }
+
+  /**
+   * 制御点数を返します。
+   *
+   * @return 制御点数
+   */
+  public int controlPointsNum() {
+    return m_knots.length - m_degree + 1;
+  }
+
+  /**
+   * knots[span - 1] &lt;= _time &lt; knots[span] となる span を探索します。
+   *
+   * @param _time 時刻
+   * @return span (該当する節点区間がない場合は -1)
+   */
+  private int searchSpan(double _time) {
+    final double[] knots = m_knots;
+    int last = knots.length - 1;
+    if (!(knots[0] <= _time) || knots[last] <= _time) {
+      return -1;
+    }
+    // knots[low] <= _time < knots[high] を保ったまま二分探索
+    int low = 0;
+    int high = last;
+    while (high - low > 1) {
+      int mid = (low + high) >>> 1;
+      if (knots[mid] <= _time) {
+        low = mid;
+      } else {
+        high = mid;
+      }
+    }
+    return high;
+  }
+
+  /**
+   * 定義域の節点区間 (span は 次数 以上 要素数 - 次数 以下)のうち、時刻を含む span を探索します。
+   * <p>
+   * 定義域の外側の時刻は端の節点区間に含めます。
+   * </p>
+   *
+   * @param _time 時刻
+   * @return span
+   */
+  private int searchDomainSpan(double _time) {
+    final double[] knots = m_knots;
+    int low = m_degree;
+    int high = knots.length - m_degree;
+    if (!(knots[low] <= _time)) {
+      return low;
+    }
+    if (knots[high - 1] <= _time) {
+      return high;
+    }
+    // knots[low] <= _time < knots[high - 1] を保ったまま二分探索
+    --high;
+    while (high - low > 1) {
+      int mid = (low + high) >>> 1;
+      if (knots[mid] <= _time) {
+        low = mid;
+      } else {
+        high = mid;
+      }
+    }
+    return high;
+  }
+
+
+  /**
+   * コンストラクタ
+   *
+   * @param _knots  節点系列
+   * @param _degree 次数
+   */
+  private SplineBasis(double[] _knots, int _degree) {
+    m_knots = _knots;
+    m_degree = _degree;
+    m_values = new double[_degree + 1];
+    m_previous = new double[_degree + 1];
+    m_current = new double[_degree + 1];
+  }
+
+  /** 節点系列 */
+  private final double[] m_knots;
+  /** 次数 */
+  private final int m_degree;
+  /** 評価した重み */
+  private final double[] m_values;
+  /** 三角形スキームの作業領域(一つ前の次数) */
+  private final double[] m_previous;
+  /** 三角形スキームの作業領域(現在の次数) */
+  private final double[] m_current;
+}
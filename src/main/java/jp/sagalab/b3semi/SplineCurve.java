@@ -48,6 +48,26 @@ public class SplineCurve {
     return new SplineCurve(_degree, _controlPoints, _knots, _range);
   }
 
+  /**
+   * 制御点列を {@link PointSeries} で指定してスプライン曲線を生成します。
+   *
+   * @param _degree        次数
+   * @param _controlPoints 制御点列
+   * @param _knots         節点系列
+   * @param _range         存在範囲
+   * @return スプライン曲線
+   * @throws IllegalArgumentException 制御点列がnullの場合
+   * @throws IllegalArgumentException スプライン曲線の次数が1未満の場合
+   * @throws IllegalArgumentException 存在範囲の始点が節点系列の(次数 - 1)番目よりも小さい場合、
+   *                                  または、存在範囲の終点が節点系列の(節点系列の要素数 - 次数)番目よりも大きい場合
+   */
+  public static SplineCurve create(int _degree, PointSeries _controlPoints, double[] _knots, Range _range) {
+    if (_controlPoints == null) {
+      throw new IllegalArgumentException("_controlPoints is null.");
+    }
+    return create(_degree, _controlPoints.toPoints(), _knots, _range);
+  }
+
   /**
    * 指定されたパラメータでの点を評価します。
    *
@@ -73,6 +93,320 @@ public class SplineCurve {
     return Point.createXYT(p.x(), p.y(), _t);
   }
 
+  /**
+   * 指定されたパラメータ列での点をまとめて評価します。
+   * <p>
+   * 評価点の x 座標、y 座標をそれぞれ _outX、_outY に格納します。
+   * パラメータ列が昇順の場合は節点区間を先頭から順にたどるため、パラメータごとの二分探索を行いません。
+   * 同じ節点区間に含まれる連続したパラメータは {@link Kernels} でまとめて評価し、
+   * 評価点ごとのオブジェクト生成は行いません。
+   * </p>
+   *
+   * @param _ts   パラメータ列
+   * @param _outX 評価点の x 座標の格納先
+   * @param _outY 評価点の y 座標の格納先
+   * @throws IllegalArgumentException 格納先の要素数がパラメータ列の要素数より小さい場合
+   */
+  public void evaluate(double[] _ts, double[] _outX, double[] _outY) {
+    if (_outX.length < _ts.length || _outY.length < _ts.length) {
+      throw new IllegalArgumentException("output arrays are shorter than _ts.");
+    }
+    evaluate(_ts, _ts.length, _outX, _outY);
+  }
+
+  /**
+   * 存在範囲を等間隔に分割したパラメータでの点をまとめて評価します。
+   * <p>
+   * 存在範囲の始点から終点までを (_num - 1) 等分した _num 個のパラメータで評価し、
+   * 評価点の x 座標、y 座標をそれぞれ _outX、_outY に格納します。
+   * </p>
+   *
+   * @param _num  評価点数
+   * @param _outX 評価点の x 座標の格納先
+   * @param _outY 評価点の y 座標の格納先
+   * @throws IllegalArgumentException 評価点数が負の場合、格納先の要素数が評価点数より小さい場合
+   */
+  public void evaluateUniform(int _num, double[] _outX, double[] _outY) {
+    if (_num < 0) {
+      throw new IllegalArgumentException("_num is negative.");
+    }
+    if (_outX.length < _num || _outY.length < _num) {
+      throw new IllegalArgumentException("output arrays are shorter than _num.");
+    }
+    if (_num == 0) {
+      return;
+    }
+    double start = m_range.start();
+    double step = (_num > 1) ? m_range.length() / (_num - 1) : 0.0;
+    // パラメータ列は一定の長さずつ生成して評価する
+    final int chunkSize = Math.min(_num, UNIFORM_CHUNK_SIZE);
+    double[] ts = new double[chunkSize];
+    double[] x = (chunkSize == _num) ? _outX : new double[chunkSize];
+    double[] y = (chunkSize == _num) ? _outY : new double[chunkSize];
+    for (int offset = 0; offset < _num; offset += chunkSize) {
+      int length = Math.min(chunkSize, _num - offset);
+      for (int i = 0; i < length; ++i) {
+        int n = offset + i;
+        ts[i] = (n == _num - 1) ? m_range.end() : start + step * n;
+      }
+      evaluate(ts, length, x, y);
+      if (x != _outX) {
+        System.arraycopy(x, 0, _outX, offset, length);
+        System.arraycopy(y, 0, _outY, offset, length);
+      }
+    }
+  }
+
+  /**
+   * 導関数を表すスプライン曲線を求めます。
+   * <p>
+   * 導関数は次数が一つ低いスプライン曲線で、制御点列は
+   * p(P<sub>i+1</sub> - P<sub>i</sub>) / (u<sub>i+p</sub> - u<sub>i</sub>)、
+   * 節点系列は先頭と末尾の節点を除いたもの、存在範囲はこの曲線と同じです。
+   * 制御点の時刻は 0 とします。
+   * </p>
+   *
+   * @return 導関数を表すスプライン曲線
+   * @throws IllegalStateException 次数が1の場合(導関数が0次となるため)
+   */
+  public SplineCurve derivative() {
+    if (m_degree < 2) {
+      throw new IllegalStateException("derivative of degree 1 curve is not supported.");
+    }
+    double[] dX = derivativeControlPoints(m_degree, m_knots, m_cpX);
+    double[] dY = derivativeControlPoints(m_degree, m_knots, m_cpY);
+    Point[] controlPoints = new Point[dX.length];
+    for (int i = 0; i < controlPoints.length; ++i) {
+      controlPoints[i] = Point.createXY(dX[i], dY[i]);
+    }
+    double[] knots = Arrays.copyOfRange(m_knots, 1, m_knots.length - 1);
+    return new SplineCurve(m_degree - 1, controlPoints, knots, m_range.copy());
+  }
+
+  /**
+   * 指定されたパラメータ列での点と導関数をまとめて評価します。
+   * <p>
+   * 0 階から _order 階までの導関数の x 成分、y 成分をそれぞれ _outX[k][n]、_outY[k][n] に格納します
+   * (k は階数、n はパラメータの番号で、0 階は点そのもの)。
+   * パラメータごとに基底関数とその導関数を一度に求める(Piegl &amp; Tiller, The NURBS Book, A2.3)ため、
+   * 階数ごとに曲線を評価し直す必要はありません。
+   * 次数より高い階数の導関数は 0 です。
+   * </p>
+   * <p>
+   * 点の値は {@link #evaluate(double)} と計算の順序が異なるため、丸め誤差の範囲で一致しないことがあります。
+   * </p>
+   *
+   * @param _ts    パラメータ列
+   * @param _order 求める導関数の最高階数
+   * @param _outX  導関数の x 成分の格納先(要素数 _order + 1 以上、各要素はパラメータ列の要素数以上)
+   * @param _outY  導関数の y 成分の格納先(要素数 _order + 1 以上、各要素はパラメータ列の要素数以上)
+   * @throws IllegalArgumentException 階数が負の場合、格納先の要素数が足りない場合
+   */
+  public void evaluateDerivatives(double[] _ts, int _order, double[][] _outX, double[][] _outY) {
+    if (_order < 0) {
+      throw new IllegalArgumentException("_order is negative.");
+    }
+    if (_outX.length <= _order || _outY.length <= _order) {
+      throw new IllegalArgumentException("output arrays are fewer than _order + 1.");
+    }
+    for (int k = 0; k <= _order; ++k) {
+      if (_outX[k].length < _ts.length || _outY[k].length < _ts.length) {
+        throw new IllegalArgumentException("output arrays are shorter than _ts.");
+      }
+    }
+    if (_ts.length == 0) {
+      return;
+    }
+    final int order = Math.min(_order, m_degree);
+    final int width = m_degree + 1;
+    DerivativeBasis basis = new DerivativeBasis(m_degree);
+    int span = searchKnotNum(_ts[0], m_degree - 1, m_knots.length - m_degree);
+    for (int n = 0; n < _ts.length; ++n) {
+      span = nextKnotNum(_ts[n], span);
+      double[] ders = basis.evaluate(m_knots, span, _ts[n], order);
+      int first = span - m_degree;
+      for (int k = 0; k <= order; ++k) {
+        double x = 0.0;
+        double y = 0.0;
+        for (int j = 0; j <= m_degree; ++j) {
+          double w = ders[k * width + j];
+          x += w * m_cpX[first + j];
+          y += w * m_cpY[first + j];
+        }
+        _outX[k][n] = x;
+        _outY[k][n] = y;
+      }
+      for (int k = order + 1; k <= _order; ++k) {
+        _outX[k][n] = 0.0;
+        _outY[k][n] = 0.0;
+      }
+    }
+  }
+
+  /**
+   * 存在範囲の始点から指定されたパラメータまでの弧長を求めます。
+   * <p>
+   * 弧長表は最初に弧長を求める際に生成し、曲線とともに保持します。
+   * </p>
+   *
+   * @param _t パラメータ
+   * @return 弧長
+   * @throws IllegalArgumentException パラメータが存在範囲外の場合
+   */
+  public double lengthAt(double _t) {
+    if (!m_range.isInner(_t)) {
+      throw new IllegalArgumentException("_t is out of range.");
+    }
+    return arcLengthTable().lengthAt(_t);
+  }
+
+  /**
+   * 存在範囲の始点からの弧長が指定された値となるパラメータを求めます。
+   * <p>
+   * 弧長表を二分探索して小区間を定め、小区間内で Newton 法(収束しない場合は二分法)を用います。
+   * 丸め誤差により 0 や全弧長をわずかに(全弧長の数 ulp 以内)超えた弧長は、0 もしくは全弧長として扱います。
+   * </p>
+   *
+   * @param _s 弧長
+   * @return パラメータ
+   * @throws IllegalArgumentException 弧長が負、全弧長より大きい、もしくはNaNの場合
+   */
+  public double parameterAtLength(double _s) {
+    ArcLengthTable table = arcLengthTable();
+    final double total = table.totalLength();
+    final double tolerance = LENGTH_TOLERANCE_ULPS * Math.ulp(total);
+    if (!(_s >= -tolerance && _s <= total + tolerance)) {
+      throw new IllegalArgumentException("_s is out of length.");
+    }
+    return table.parameterAtLength(Math.min(Math.max(_s, 0.0), total));
+  }
+
+  /**
+   * 存在範囲全体の弧長を返します。
+   *
+   * @return 弧長
+   */
+  public double totalLength() {
+    return arcLengthTable().totalLength();
+  }
+
+  /**
+   * 存在範囲を弧長で等間隔に分割した点をまとめて評価します。
+   * <p>
+   * 存在範囲の始点から終点までを弧長で (_num - 1) 等分した _num 個の点を評価し、
+   * 評価点の x 座標、y 座標をそれぞれ _outX、_outY に格納します。
+   * </p>
+   *
+   * @param _num  評価点数
+   * @param _outX 評価点の x 座標の格納先
+   * @param _outY 評価点の y 座標の格納先
+   * @throws IllegalArgumentException 評価点数が負の場合、格納先の要素数が評価点数より小さい場合
+   */
+  public void evaluateByLength(int _num, double[] _outX, double[] _outY) {
+    if (_num < 0) {
+      throw new IllegalArgumentException("_num is negative.");
+    }
+    if (_outX.length < _num || _outY.length < _num) {
+      throw new IllegalArgumentException("output arrays are shorter than _num.");
+    }
+    double[] ts = new double[_num];
+    arcLengthTable().uniformParameters(_num, ts);
+    evaluate(ts, _num, _outX, _outY);
+  }
+
+  /**
+   * パラメータ列の先頭 _length 個での点を評価します。
+   * <p>
+   * 同じ節点区間に含まれる連続したパラメータをまとめて {@link Kernels#deBoor} で評価します。
+   * 作業領域は呼び出しごとに一度だけ確保し、全ての節点区間で使い回します。
+   * </p>
+   *
+   * @param _ts     パラメータ列
+   * @param _length 評価するパラメータ数
+   * @param _outX   評価点の x 座標の格納先
+   * @param _outY   評価点の y 座標の格納先
+   */
+  private void evaluate(double[] _ts, int _length, double[] _outX, double[] _outY) {
+    if (_length == 0) {
+      return;
+    }
+    final Kernels kernels = Kernels.get();
+    final double[] work = new double[kernels.deBoorWorkSize(m_degree)];
+    int span = searchKnotNum(_ts[0], m_degree - 1, m_knots.length - m_degree);
+    int from = 0;
+    while (from < _length) {
+      span = nextKnotNum(_ts[from], span);
+      int to = from + 1;
+      while (to < _length && nextKnotNum(_ts[to], span) == span) {
+        ++to;
+      }
+      kernels.deBoor(m_knots, m_degree, m_cpX, m_cpY, span, _ts, from, to, _outX, _outY, work);
+      from = to;
+    }
+  }
+
+  /**
+   * 直前に評価したパラメータの節点番号から、指定されたパラメータの節点番号を求めます。
+   * <p>
+   * パラメータが増加する方向には節点列を順にたどり、減少した場合は二分探索を行います。
+   * 結果は {@link #searchKnotNum(double, int, int)} と同じです。
+   * </p>
+   *
+   * @param _t    パラメータ
+   * @param _span 直前に評価したパラメータの節点番号
+   * @return 節点番号
+   */
+  private int nextKnotNum(double _t, int _span) {
+    int maxIndex = m_knots.length - m_degree;
+    if (_span > m_degree && _t < m_knots[_span - 1]) {
+      return searchKnotNum(_t, m_degree - 1, maxIndex);
+    }
+    while (_span < maxIndex && m_knots[_span] <= _t) {
+      ++_span;
+    }
+    return _span;
+  }
+
+  /**
+   * 導関数の制御点列の一つの成分を求めます。
+   * <p>
+   * 分母の節点間隔が 0 となる制御点は 0 とします。
+   * </p>
+   *
+   * @param _degree 次数
+   * @param _knots  節点系列
+   * @param _cp     制御点列の一つの成分
+   * @return 導関数の制御点列の成分(要素数は制御点数 - 1)
+   */
+  static double[] derivativeControlPoints(int _degree, double[] _knots, double[] _cp) {
+    double[] d = new double[Math.max(_cp.length - 1, 0)];
+    for (int i = 0; i < d.length; ++i) {
+      double interval = _knots[i + _degree] - _knots[i];
+      if (interval > 0.0) {
+        d[i] = _degree * (_cp[i + 1] - _cp[i]) / interval;
+      }
+    }
+    return d;
+  }
+
+  /**
+   * 弧長表を返します。
+   * <p>
+   * 弧長表は最初の呼び出しで生成します。
+   * 複数のスレッドから同時に呼び出された場合は重複して生成されることがありますが、結果は同じです。
+   * </p>
+   *
+   * @return 弧長表
+   */
+  private ArcLengthTable arcLengthTable() {
+    ArcLengthTable table = m_arcLength;
+    if (table == null) {
+      table = ArcLengthTable.create(m_degree, m_knots, m_cpX, m_cpY, m_range);
+      m_arcLength = table;
+    }
+    return table;
+  }
+
   /**
    * 節点番号の探索を行います。
    *
@@ -210,8 +544,129 @@ public class SplineCurve {
     m_cp = _controlPoints;
     m_knots = _knots;
     m_range = _range;
+    m_cpX = new double[_controlPoints.length];
+    m_cpY = new double[_controlPoints.length];
+    for (int i = 0; i < _controlPoints.length; ++i) {
+      m_cpX[i] = _controlPoints[i].x();
+      m_cpY[i] = _controlPoints[i].y();
+    }
   }
 
+  /**
+   * 基底関数とその導関数を評価する作業領域です(Piegl &amp; Tiller, The NURBS Book, A2.3)。
+   * <p>
+   * 節点系列は先頭と末尾の節点を除いて保持しているため、文献の節点 u<sub>j</sub> は _knots[j - 1] に対応します。
+   * 節点番号 span の区間では制御点 span - 次数 から span までの基底関数が非零です。
+   * </p>
+   */
+  private static final class DerivativeBasis {
+
+    /**
+     * 基底関数とその導関数を評価します。
+     *
+     * @param _knots 節点系列
+     * @param _span  節点番号
+     * @param _t     パラメータ
+     * @param _order 最高階数(次数以下)
+     * @return k 階の導関数の j 番目の基底関数を k * (次数 + 1) + j 番目に格納した配列
+     */
+    double[] evaluate(double[] _knots, int _span, double _t, int _order) {
+      final int p = m_degree;
+      final int w = p + 1;
+      final double[] ndu = m_ndu;
+      final double[] a = m_a;
+      final double[] ders = m_ders;
+      // 基底関数と節点間隔の三角形(ndu[j][r] を j * w + r に格納する)
+      ndu[0] = 1.0;
+      for (int j = 1; j <= p; ++j) {
+        m_left[j] = _t - _knots[_span - j];
+        m_right[j] = _knots[_span + j - 1] - _t;
+        double saved = 0.0;
+        for (int r = 0; r < j; ++r) {
+          ndu[j * w + r] = m_right[r + 1] + m_left[j - r];
+          double temp = ndu[r * w + j - 1] / ndu[j * w + r];
+          ndu[r * w + j] = saved + m_right[r + 1] * temp;
+          saved = m_left[j - r] * temp;
+        }
+        ndu[j * w + j] = saved;
+      }
+      for (int j = 0; j <= p; ++j) {
+        ders[j] = ndu[j * w + p];
+      }
+      // 導関数(a は二行を交互に用いる)
+      for (int r = 0; r <= p; ++r) {
+        int s1 = 0;
+        int s2 = w;
+        a[0] = 1.0;
+        for (int k = 1; k <= _order; ++k) {
+          double d = 0.0;
+          int rk = r - k;
+          int pk = p - k;
+          if (r >= k) {
+            a[s2] = a[s1] / ndu[(pk + 1) * w + rk];
+            d = a[s2] * ndu[rk * w + pk];
+          }
+          int j1 = (rk >= -1) ? 1 : -rk;
+          int j2 = (r - 1 <= pk) ? k - 1 : p - r;
+          for (int j = j1; j <= j2; ++j) {
+            a[s2 + j] = (a[s1 + j] - a[s1 + j - 1]) / ndu[(pk + 1) * w + rk + j];
+            d += a[s2 + j] * ndu[(rk + j) * w + pk];
+          }
+          if (r <= pk) {
+            a[s2 + k] = -a[s1 + k - 1] / ndu[(pk + 1) * w + r];
+            d += a[s2 + k] * ndu[r * w + pk];
+          }
+          ders[k * w + r] = d;
+          int tmp = s1;
+          s1 = s2;
+          s2 = tmp;
+        }
+      }
+      // 係数 p! / (p - k)! を掛ける
+      int factor = p;
+      for (int k = 1; k <= _order; ++k) {
+        for (int j = 0; j <= p; ++j) {
+          ders[k * w + j] *= factor;
+        }
+        factor *= (p - k);
+      }
+      return ders;
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param _degree 次数
+     */
+    DerivativeBasis(int _degree) {
+      m_degree = _degree;
+      m_ndu = new double[(_degree + 1) * (_degree + 1)];
+      m_a = new double[2 * (_degree + 1)];
+      m_ders = new double[(_degree + 1) * (_degree + 1)];
+      m_left = new double[_degree + 1];
+      m_right = new double[_degree + 1];
+    }
+
+    /** 次数 */
+    private final int m_degree;
+    /** 基底関数と節点間隔の三角形 */
+    private final double[] m_ndu;
+    /** 導関数の係数(二行) */
+    private final double[] m_a;
+    /** 基底関数とその導関数 */
+    private final double[] m_ders;
+    /** パラメータと左側の節点の差 */
+    private final double[] m_left;
+    /** 右側の節点とパラメータの差 */
+    private final double[] m_right;
+  }
+
+  /** 存在範囲を等分して評価する際に一度に生成するパラメータ数 */
+  private static final int UNIFORM_CHUNK_SIZE = 1024;
+
+  /** 弧長の範囲外とみなさない、全弧長からのはみ出しの許容量(全弧長の ulp の倍数) */
+  private static final int LENGTH_TOLERANCE_ULPS = 4;
+
   /** 次数 */
   private final int m_degree;
   /** 制御点列 */
@@ -220,4 +675,10 @@ public class SplineCurve {
   private final double[] m_knots;
   /** パラメータ範囲 */
   private final Range m_range;
+  /** 制御点列の x 座標 */
+  private final double[] m_cpX;
+  /** 制御点列の y 座標 */
+  private final double[] m_cpY;
+  /** 弧長表(最初に弧長を求める際に生成する) */
+  private volatile ArcLengthTable m_arcLength;
 }
\ No newline at end of file
@@ -1,7 +1,5 @@
 package jp.sagalab.b3semi;
 
-import java.util.Arrays;
-
 /**
  * スプライン曲線補間を行うためのクラスです。
  *
@@ -25,6 +23,63 @@ public final class SplineCurveInterpolator {
    * @throws IllegalArgumentException 点列中に時間的に逆行している箇所があった場合
    */
   public static SplineCurve interpolate(Point[] _points, int _degree, double _knotInterval) {
+    return interpolate(_points, _degree, _knotInterval, null);
+  }
+
+  /**
+   * 指定された点列に対してスプライン曲線補間を行います。
+   *
+   * @param _points       点列
+   * @param _degree       次数
+   * @param _knotInterval 節点間隔
+   * @param _listener     途中経過を受け取るリスナ(nullの場合は通知しない)
+   * @return スプライン曲線
+   * @throws IllegalArgumentException 次数が0以下の場合
+   * @throws IllegalArgumentException 節点間隔が0以下の場合
+   * @throws IllegalArgumentException 点列がnullの場合
+   * @throws IllegalArgumentException 点列にnullが含まれる場合
+   * @throws IllegalArgumentException 点列の要素数が1以下の場合
+   * @throws IllegalArgumentException 点列中の時刻がNaN、もしくは無限大の場合
+   * @throws IllegalArgumentException 点列中に時間的に逆行している箇所があった場合
+   */
+  public static SplineCurve interpolate(Point[] _points, int _degree, double _knotInterval,
+                                        InterpolationListener _listener) {
+    return interpolate(PointSeries.create(_points), _degree, _knotInterval, _listener);
+  }
+
+  /**
+   * 指定された点列に対してスプライン曲線補間を行います。
+   *
+   * @param _points       点列
+   * @param _degree       次数
+   * @param _knotInterval 節点間隔
+   * @return スプライン曲線
+   * @throws IllegalArgumentException 次数が0以下の場合
+   * @throws IllegalArgumentException 節点間隔が0以下の場合
+   * @throws IllegalArgumentException 点列がnullの場合
+   * @throws IllegalArgumentException 点列の要素数が1以下の場合
+   * @throws IllegalArgumentException 点列中に時間的に逆行している箇所があった場合
+   */
+  public static SplineCurve interpolate(PointSeries _points, int _degree, double _knotInterval) {
+    return interpolate(_points, _degree, _knotInterval, null);
+  }
+
+  /**
+   * 指定された点列に対してスプライン曲線補間を行います。
+   *
+   * @param _points       点列
+   * @param _degree       次数
+   * @param _knotInterval 節点間隔
+   * @param _listener     途中経過を受け取るリスナ(nullの場合は通知しない)
+   * @return スプライン曲線
+   * @throws IllegalArgumentException 次数が0以下の場合
+   * @throws IllegalArgumentException 節点間隔が0以下の場合
+   * @throws IllegalArgumentException 点列がnullの場合
+   * @throws IllegalArgumentException 点列の要素数が1以下の場合
+   * @throws IllegalArgumentException 点列中に時間的に逆行している箇所があった場合
+   */
+  public static SplineCurve interpolate(PointSeries _points, int _degree, double _knotInterval,
+                                        InterpolationListener _listener) {
     // 次数のチェック
     if (_degree < 1) {
       throw new IllegalArgumentException(" degree is must be greater than 0 ");
@@ -33,46 +88,14 @@ public final class SplineCurveInterpolator {
     if (_knotInterval <= 0.0) {
       throw new IllegalArgumentException(" knot's interval is must be greater than 0 ");
     }
-    if (_points == null) {
-      throw new IllegalArgumentException("_points is null.");
-    }
-    // 入力点列にnullが混入していないかチェック
-    if (Arrays.asList(_points).contains(null)) {
-      throw new IllegalArgumentException(" points include null ");
-    }
-    // 点列の要素数チェック
-    if (_points.length < 2) {
-      throw new IllegalArgumentException(" points's length must be greater than 1 ");
-    }
-
-    // 時系列チェック
-    double preTime = Double.NEGATIVE_INFINITY;
-    for (Point p : _points) {
-      double t = p.time();
-      if (Double.isNaN(t) || Double.isInfinite(t)) {
-        throw new IllegalArgumentException("point's time include NaN or infinite");
-      }
-      if (t <= preTime) {
-        throw new IllegalArgumentException("time series is not a positive order");
-      }
-    }
+    checkPoints(_points);
 
-    Range range = Range.create(_points[0].time(), _points[_points.length - 1].time());
+    Range range = _points.range();
 
     // 節点系列の生成
     double[] knots = createKnots(range, _degree, _knotInterval);
 
-    // PointsGraphの生成
-    Main.createPointsGraph(_points, knots);
-
-    // 重み行列の生成
-    Matrix wmat = createWeightMatrix(_points, _degree, knots);
-
-    // 制御点列の導出
-    Point[] controlPoints = calculateControlPoints(wmat, _points, knots, _degree);
-
-    // スプライン曲線構築
-    return SplineCurve.create(_degree, controlPoints, knots, range);
+    return fit(_points, knots, _degree, range, _listener, null);
   }
 
   /**
@@ -92,6 +115,66 @@ public final class SplineCurveInterpolator {
    * @throws IllegalArgumentException 点列中に時間的に逆行している箇所があった場合
    */
   public static SplineCurve interpolate(Point[] _points, double[] _knots,int _degree) {
+    return interpolate(_points, _knots, _degree, null);
+  }
+
+  /**
+   * 指定された点列に対してスプライン曲線補間を行います。
+   *
+   * @param _points       点列
+   * @param _degree       次数
+   * @param _knots        節点
+   * @param _listener     途中経過を受け取るリスナ(nullの場合は通知しない)
+   * @return スプライン曲線
+   * @throws IllegalArgumentException 次数が0以下の場合
+   * @throws IllegalArgumentException 節点列がnullの場合
+   * @throws IllegalArgumentException 節点列の要素数が2*degree-1以下の場合
+   * @throws IllegalArgumentException 点列がnullの場合
+   * @throws IllegalArgumentException 点列にnullが含まれる場合
+   * @throws IllegalArgumentException 点列の要素数が1以下の場合
+   * @throws IllegalArgumentException 点列中の時刻がNaN、もしくは無限大の場合
+   * @throws IllegalArgumentException 点列中に時間的に逆行している箇所があった場合
+   */
+  public static SplineCurve interpolate(Point[] _points, double[] _knots, int _degree,
+                                        InterpolationListener _listener) {
+    return interpolate(PointSeries.create(_points), _knots, _degree, _listener);
+  }
+
+  /**
+   * 指定された点列に対してスプライン曲線補間を行います。
+   *
+   * @param _points       点列
+   * @param _degree       次数
+   * @param _knots        節点
+   * @return スプライン曲線
+   * @throws IllegalArgumentException 次数が0以下の場合
+   * @throws IllegalArgumentException 節点列がnullの場合
+   * @throws IllegalArgumentException 節点列の要素数が2*degree-1以下の場合
+   * @throws IllegalArgumentException 点列がnullの場合
+   * @throws IllegalArgumentException 点列の要素数が1以下の場合
+   * @throws IllegalArgumentException 点列中に時間的に逆行している箇所があった場合
+   */
+  public static SplineCurve interpolate(PointSeries _points, double[] _knots, int _degree) {
+    return interpolate(_points, _knots, _degree, null);
+  }
+
+  /**
+   * 指定された点列に対してスプライン曲線補間を行います。
+   *
+   * @param _points       点列
+   * @param _degree       次数
+   * @param _knots        節点
+   * @param _listener     途中経過を受け取るリスナ(nullの場合は通知しない)
+   * @return スプライン曲線
+   * @throws IllegalArgumentException 次数が0以下の場合
+   * @throws IllegalArgumentException 節点列がnullの場合
+   * @throws IllegalArgumentException 節点列の要素数が2*degree-1以下の場合
+   * @throws IllegalArgumentException 点列がnullの場合
+   * @throws IllegalArgumentException 点列の要素数が1以下の場合
+   * @throws IllegalArgumentException 点列中に時間的に逆行している箇所があった場合
+   */
+  public static SplineCurve interpolate(PointSeries _points, double[] _knots, int _degree,
+                                        InterpolationListener _listener) {
     // 次数のチェック
     if (_degree < 1) {
       throw new IllegalArgumentException(" degree is must be greater than 0 ");
@@ -104,44 +187,209 @@ public final class SplineCurveInterpolator {
     if (_knots.length <= 2 * _degree - 1) {
       throw new IllegalArgumentException(" knots's length must be greater than 2 * _degree - 1 ");
     }
-    //入力点列のチェック
+    checkPoints(_points);
+
+    Range range = _points.range();
+
+    return fit(_points, _knots, _degree, range, _listener, null);
+  }
+
+  /**
+   * 指定された点列の全チャンネルに対してスプライン曲線補間を行います。
+   * <p>
+   * 重み行列と A<sup>T</sup>A の分解は一度だけ求めます。
+   * チャンネル 0, 1 は x 座標、y 座標として {@link #interpolate(PointSeries, int, double)} と同じく制約 Cd = q を課し、
+   * 残りのチャンネルは制約を課さずに一度に解きます。
+   * 全てのチャンネルに制約を課さない場合は {@link PreparedFit#fitUnconstrained(ChannelSeries)} を用いてください。
+   * </p>
+   *
+   * @param _points       点列
+   * @param _degree       次数
+   * @param _knotInterval 節点間隔
+   * @return スプライン曲線
+   * @throws IllegalArgumentException 次数が0以下の場合
+   * @throws IllegalArgumentException 節点間隔が0以下の場合
+   * @throws IllegalArgumentException 点列がnullの場合、チャンネル数が1以下の場合
+   * @throws IllegalArgumentException 点列の要素数が1以下の場合
+   * @throws IllegalArgumentException 点列中に時間的に逆行している箇所があった場合
+   * @see PreparedFit#fit(ChannelSeries)
+   */
+  public static ChannelSplineCurve interpolate(ChannelSeries _points, int _degree, double _knotInterval) {
     if (_points == null) {
       throw new IllegalArgumentException("_points is null.");
     }
-    // 入力点列にnullが混入していないかチェック
-    if (Arrays.asList(_points).contains(null)) {
-      throw new IllegalArgumentException(" points include null ");
-    }
-    // 点列の要素数チェック
-    if (_points.length < 2) {
-      throw new IllegalArgumentException(" points's length must be greater than 1 ");
+    return PreparedFit.create(_points.times(), _degree, _knotInterval).fit(_points);
+  }
+
+  /**
+   * 指定された点列の全チャンネルに対してスプライン曲線補間を行います。
+   * <p>
+   * 重み行列と A<sup>T</sup>A の分解は一度だけ求めます。
+   * チャンネル 0, 1 は x 座標、y 座標として {@link #interpolate(PointSeries, int, double)} と同じく制約 Cd = q を課し、
+   * 残りのチャンネルは制約を課さずに一度に解きます。
+   * 全てのチャンネルに制約を課さない場合は {@link PreparedFit#fitUnconstrained(ChannelSeries)} を用いてください。
+   * </p>
+   *
+   * @param _points 点列
+   * @param _knots  節点
+   * @param _degree 次数
+   * @return スプライン曲線
+   * @throws IllegalArgumentException 次数が0以下の場合
+   * @throws IllegalArgumentException 節点列がnullの場合
+   * @throws IllegalArgumentException 節点列の要素数が2*degree-1以下の場合
+   * @throws IllegalArgumentException 点列がnullの場合、チャンネル数が1以下の場合
+   * @throws IllegalArgumentException 点列の要素数が1以下の場合
+   * @throws IllegalArgumentException 点列中に時間的に逆行している箇所があった場合
+   * @see PreparedFit#fit(ChannelSeries)
+   */
+  public static ChannelSplineCurve interpolate(ChannelSeries _points, double[] _knots, int _degree) {
+    if (_points == null) {
+      throw new IllegalArgumentException("_points is null.");
     }
+    return PreparedFit.create(_points.times(), _knots, _degree).fit(_points);
+  }
 
-    // 時系列チェック
-    double preTime = Double.NEGATIVE_INFINITY;
-    for (Point p : _points) {
-      double t = p.time();
-      if (Double.isNaN(t) || Double.isInfinite(t)) {
-        throw new IllegalArgumentException("point's time include NaN or infinite");
-      }
-      if (t <= preTime) {
-        throw new IllegalArgumentException("time series is not a positive order");
-      }
+  /**
+   * 作業領域を使い回してスプライン曲線補間を行います。
+   * <p>
+   * 引数の検査は {@link #interpolate(PointSeries, int, double)} と同じです。
+   * </p>
+   *
+   * @param _points       点列
+   * @param _degree       次数
+   * @param _knotInterval 節点間隔
+   * @param _workspace    作業領域
+   * @return スプライン曲線
+   */
+  static SplineCurve interpolateWith(PointSeries _points, int _degree, double _knotInterval,
+                                     InterpolationWorkspace _workspace) {
+    if (_degree < 1) {
+      throw new IllegalArgumentException(" degree is must be greater than 0 ");
     }
+    if (_knotInterval <= 0.0) {
+      throw new IllegalArgumentException(" knot's interval is must be greater than 0 ");
+    }
+    checkPoints(_points);
+    Range range = _points.range();
+    return fit(_points, createKnots(range, _degree, _knotInterval), _degree, range, null, _workspace);
+  }
 
-    Range range = Range.create(_points[0].time(), _points[_points.length - 1].time());
+  /**
+   * 作業領域を使い回してスプライン曲線補間を行います。
+   * <p>
+   * 引数の検査は {@link #interpolate(PointSeries, double[], int)} と同じです。
+   * </p>
+   *
+   * @param _points    点列
+   * @param _knots     節点
+   * @param _degree    次数
+   * @param _workspace 作業領域
+   * @return スプライン曲線
+   */
+  static SplineCurve interpolateWith(PointSeries _points, double[] _knots, int _degree,
+                                     InterpolationWorkspace _workspace) {
+    if (_degree < 1) {
+      throw new IllegalArgumentException(" degree is must be greater than 0 ");
+    }
+    if (_knots == null) {
+      throw new IllegalArgumentException(" _knots is null");
+    }
+    if (_knots.length <= 2 * _degree - 1) {
+      throw new IllegalArgumentException(" knots's length must be greater than 2 * _degree - 1 ");
+    }
+    checkPoints(_points);
+    return fit(_points, _knots, _degree, _points.range(), null, _workspace);
+  }
 
-    // PointsGraphの生成
-    Main.createPointsGraph(_points, _knots);
+  /**
+   * 検査済みの点列と節点系列からスプライン曲線を求めます。
+   *
+   * @param _points    点列
+   * @param _knots     節点系列
+   * @param _degree    次数
+   * @param _range     存在範囲
+   * @param _listener  途中経過を受け取るリスナ(nullの場合は通知しない)
+   * @param _workspace 作業領域(nullの場合は重み行列を新たに確保する)
+   * @return スプライン曲線
+   */
+  private static SplineCurve fit(PointSeries _points, double[] _knots, int _degree, Range _range,
+                                 InterpolationListener _listener, InterpolationWorkspace _workspace) {
+    // 節点系列の決定を通知
+    if (_listener != null) {
+      _listener.knotsDetermined(_points, _knots);
+    }
 
     // 重み行列の生成
-    Matrix wmat = createWeightMatrix(_points, _degree, _knots);
+    WeightMatrix wmat = createSparseWeightMatrix(_points, _degree, _knots, _workspace);
 
     // 制御点列の導出
-    Point[] controlPoints = calculateControlPoints(wmat, _points, _knots, _degree);
+    Point[] controlPoints = calculateControlPoints(wmat, null, _points, _knots, _degree);
 
     // スプライン曲線構築
-    return SplineCurve.create(_degree, controlPoints, _knots, range);
+    SplineCurve splineCurve = SplineCurve.create(_degree, controlPoints, _knots, _range);
+    if (_listener != null) {
+      _listener.interpolated(splineCurve);
+    }
+    return splineCurve;
+  }
+
+  /**
+   * 分解済みの正規方程式の係数行列を用いて、検査済みの点列と節点系列からスプライン曲線を求めます。
+   * <p>
+   * 重み行列と A<sup>T</sup>A の分解は点列の時刻と次数、節点系列のみで決まるため、
+   * 時刻が同じ点列であれば使い回すことができます。
+   * 点列ごとの計算は A<sup>T</sup>b の計算と分解を用いた前進消去・後退代入のみとなります。
+   * </p>
+   *
+   * @param _points   点列
+   * @param _knots    節点系列
+   * @param _degree   次数
+   * @param _mat      点列の時刻での重み行列
+   * @param _factor   A<sup>T</sup>A の帯コレスキー分解(nullの場合は点列ごとに正規方程式を解く)
+   * @param _listener 途中経過を受け取るリスナ(nullの場合は通知しない)
+   * @return スプライン曲線
+   */
+  static SplineCurve fitWithFactor(PointSeries _points, double[] _knots, int _degree, WeightMatrix _mat,
+                                   BandedCholesky _factor, InterpolationListener _listener) {
+    if (_listener != null) {
+      _listener.knotsDetermined(_points, _knots);
+    }
+    Point[] controlPoints = calculateControlPoints(_mat, _factor, _points, _knots, _degree);
+    SplineCurve splineCurve = SplineCurve.create(_degree, controlPoints, _knots, _points.range());
+    if (_listener != null) {
+      _listener.interpolated(splineCurve);
+    }
+    return splineCurve;
+  }
+
+  /**
+   * 入力点列を検査します。
+   *
+   * @param _points 点列
+   * @throws IllegalArgumentException 点列がnullの場合
+   * @throws IllegalArgumentException 点列の要素数が1以下の場合
+   * @throws IllegalArgumentException 点列中に時間的に逆行している箇所があった場合
+   */
+  static void checkPoints(PointSeries _points) {
+    //入力点列のチェック
+    if (_points == null) {
+      throw new IllegalArgumentException("_points is null.");
+    }
+    // 点列の要素数チェック
+    if (_points.size() < 2) {
+      throw new IllegalArgumentException(" points's length must be greater than 1 ");
+    }
+
+    // 時系列チェック(NaN、無限大は PointSeries の生成時に検査済み)
+    double preTime = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < _points.size(); ++i) {
+      double t = _points.time(i);
+      // 同じ時刻の点が続くことは許す
+      if (t < preTime) {
+        throw new IllegalArgumentException("time series is not a positive order");
+      }
+      preTime = t;
+    }
   }
 
   /**
@@ -152,7 +400,7 @@ public final class SplineCurveInterpolator {
    * @param _knotInterval 節点間隔
    * @return 節点系列
    */
-  private static double[] createKnots(Range _range, int _degree, double _knotInterval) {
+  public static double[] createKnots(Range _range, int _degree, double _knotInterval) {
     // 節点系列の生成
     double start = _range.start();
     double end = _range.end();
@@ -178,91 +426,108 @@ public final class SplineCurveInterpolator {
    * @return 重み行列
    */
   public static Matrix createWeightMatrix(Point[] _points, int _degree, double[] _knots) {
-    // 生成する行列は行数：入力点数、列数：制御点数
-    final int pointsNum = _points.length;
-    double[][] elements = new double[pointsNum][];
-
-    // 各入力点の時刻での重み列を導出し、重み行列として構成する
-    for (int i = 0; i < pointsNum; ++i) {
-      // ある時刻における重み列（各制御点に対応する重みの列）の導出
-      elements[i] = calculateWeights(_knots, _degree, _points[i].time());
-    }
-
-    return Matrix.create(elements);
+    return createSparseWeightMatrix(_points, _degree, _knots).toMatrix();
   }
 
   /**
-   * ある時刻における重み列を導出します。
+   * スプライン曲線の重み行列を生成します。<br>
+   * 生成する行列は行数：入力点数、列数：制御点数となります。
    *
-   * @param _knots 節点系列
-   * @param _time  時刻
-   * @return 重み列
+   * @param _points 入力点列
+   * @param _degree 次数
+   * @param _knots  節点系列
+   * @return 重み行列
    */
-  private static double[] calculateWeights(double[] _knots, int _degree, double _time) {
-    int size = _knots.length - _degree + 1;
-
-    double[] weights = new double[size];
-    for (int i = 0; i < size; ++i) {
-      weights[i] = calculateWeight(_knots, _degree, i, _time);
-    }
-
-    return weights;
+  public static Matrix createWeightMatrix(PointSeries _points, int _degree, double[] _knots) {
+    return createSparseWeightMatrix(_points, _degree, _knots).toMatrix();
   }
 
   /**
-   * ある時刻における重みを導出します。
+   * スプライン曲線の重み行列を疎な形式で生成します。<br>
+   * 生成する行列は行数：入力点数、列数：制御点数となり、
+   * 各行には非零となり得る (次数 + 1) 個の重みのみを保持します。
    *
+   * @param _points 入力点列
+   * @param _degree 次数
    * @param _knots  節点系列
+   * @return 重み行列
+   */
+  public static WeightMatrix createSparseWeightMatrix(Point[] _points, int _degree, double[] _knots) {
+    return createSparseWeightMatrix(PointSeries.create(_points), _degree, _knots);
+  }
+
+  /**
+   * スプライン曲線の重み行列を疎な形式で生成します。<br>
+   * 生成する行列は行数：入力点数、列数：制御点数となり、
+   * 各行には非零となり得る (次数 + 1) 個の重みのみを保持します。
+   *
+   * @param _points 入力点列
    * @param _degree 次数
-   * @param _i      制御点のインデックス
-   * @param _time   時刻
-   * @return 重み
+   * @param _knots  節点系列
+   * @return 重み行列
    */
-  private static double calculateWeight(double[] _knots, int _degree, int _i, double _time)
-  {
-    { // 特別な場合の処理
-      int knotsSize = _knots.length;
-
-      // 左端ではブレンドの左側を考慮しない（p.48 図3.14、p.50 図3.16、図3.17）
-      if (_i == 0) {
-        double coeff = (_knots[_i + _degree] - _time) / (_knots[_i + _degree] - _knots[_i]);
-        return coeff * calculateWeight(_knots, _degree- 1, _i + 1, _time);
-      }
+  public static WeightMatrix createSparseWeightMatrix(PointSeries _points, int _degree, double[] _knots) {
+    return createSparseWeightMatrix(_points, _degree, _knots, null);
+  }
 
-      // 右端ではブレンドの右側を考慮しない（p.48 図3.14、p.50 図3.16、図3.17）
-      if (_i == knotsSize - _degree) {
-        double coeff = (_time - _knots[_i - 1]) / (_knots[_i + _degree- 1] - _knots[_i - 1]);
-        return coeff * calculateWeight(_knots, _degree- 1, _i, _time);
-      }
+  /**
+   * スプライン曲線の重み行列を疎な形式で生成します。
+   * <p>
+   * 作業領域を指定した場合は、その配列を重み行列の格納先として使い回します。
+   * 返す重み行列は作業領域を次に使うまでの間のみ有効です。
+   * </p>
+   *
+   * @param _points    入力点列
+   * @param _degree    次数
+   * @param _knots     節点系列
+   * @param _workspace 作業領域(nullの場合は新たに確保する)
+   * @return 重み行列
+   * @throws IllegalArgumentException 重みにNaNまたはInfiniteが含まれる場合
+   */
+  private static WeightMatrix createSparseWeightMatrix(PointSeries _points, int _degree, double[] _knots,
+                                                       InterpolationWorkspace _workspace) {
+    final int pointsNum = _points.size();
+    final int width = _degree + 1;
+    int[] offsets = (_workspace != null) ? _workspace.offsets(pointsNum) : new int[pointsNum];
+    double[] values = (_workspace != null) ? _workspace.values(pointsNum * width) : new double[pointsNum * width];
+
+    // 基底関数の評価器は全ての入力点で使い回す
+    SplineBasis basis = SplineBasis.create(_knots, _degree);
 
-      if (_degree== 0) {
-        return (_knots[_i - 1] <= _time && _time < _knots[_i]) ? 1.0 : 0.0;
+    // 各入力点の時刻での非零の重みを導出し、重み行列として構成する
+    for (int i = 0; i < pointsNum; ++i) {
+      offsets[i] = basis.evaluate(_points.time(i));
+      for (int k = 0; k < width; ++k) {
+        values[i * width + k] = basis.value(k);
       }
     }
 
-    // 通常処理
-    // 分母を先に計算して0になったら（0除算が発生しそうなら）その項の係数は0とする
-    double denom1 = _knots[_i + _degree- 1] - _knots[_i - 1];
-    double denom2 = _knots[_i + _degree] - _knots[_i];
-    double coeff1 = (denom1 != 0.0) ? (_time - _knots[_i - 1]) / denom1 : 0.0;
-    double coeff2 = (denom2 != 0.0) ? (_knots[_i + _degree] - _time) / denom2 : 0.0;
+    for (int i = 0; i < pointsNum * width; ++i) {
+      if (Double.isNaN(values[i]) || Double.isInfinite(values[i])) {
+        throw new IllegalArgumentException("_values has NaN or Infinite.");
+      }
+    }
 
-    return coeff1 * calculateWeight(_knots, _degree- 1, _i, _time)
-            + coeff2 * calculateWeight(_knots, _degree- 1, _i + 1, _time);
+    return new WeightMatrix(offsets, values, width, basis.controlPointsNum(), pointsNum);
   }
 
   /**
    * 制御点列を導出します。
    *
    * @param _mat    重み行列
+   * @param _factor A<sup>T</sup>A の帯コレスキー分解(nullの場合は重み行列から求める)
    * @param _points 通過点列
+   * @param _knots  節点系列
+   * @param _degree 次数
    * @return 制御点列
    */
-  private static Point[] calculateControlPoints(Matrix _mat, Point[] _points, double[] _knots, int _degree) {
-    double[][] elements = new double[_points.length][];
-    for (int i = 0; i < _points.length; ++i) {
-      Point p = _points[i];
-      elements[i] = new double[]{p.x(), p.y()};
+  static Point[] calculateControlPoints(WeightMatrix _mat, BandedCholesky _factor, PointSeries _points,
+                                        double[] _knots, int _degree) {
+    // 右辺 b (行ごとに x, y)
+    double[] elements = new double[_points.size() * 2];
+    for (int i = 0; i < _points.size(); ++i) {
+      elements[i * 2] = _points.x(i);
+      elements[i * 2 + 1] = _points.y(i);
     }
 
     // 制約行列(目的関数) Cd = q のCを生成する.
@@ -273,8 +538,21 @@ public final class SplineCurveInterpolator {
     // qは行数:制約の数, 列数:2(xの値, yの値)となるようなMatrix型の変数.
     Matrix q = ;
 
-    // 解行列(d λ)T を求める.
-    Matrix result = LeastSquares.solveConstrained(_mat, Matrix.create(elements), C, q);
+    // 解 d とラグランジュ乗数 λ を求める.(KKT系は構成せずシューア補行列で解く)
+    Matrix b = new Matrix(elements, 2);
+    ConstrainedSolution solution = null;
+    if (_factor != null) {
+      try {
+        solution = LeastSquares.solveBySchurComplement(_factor, _mat.transposeProduct(b), C, q);
+      } catch (SingularMatrixException e) {
+        // シューア補行列が正則でない場合は分解を使わずに解き直す
+        solution = null;
+      }
+    }
+    if (solution == null) {
+      solution = LeastSquares.solveConstrainedWithMultipliers(_mat, b, C, q);
+    }
+    Matrix result = solution.solution();
 
     // 制御点列の構成
     Point[] controlPoints = new Point[_knots.length - _degree + 1];
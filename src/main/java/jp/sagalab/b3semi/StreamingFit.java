@@ -0,0 +1,284 @@
+package jp.sagalab.b3semi;
+
+/**
+ * 点を逐次的に加えながらスプライン曲線補間を行うクラスです。
+ * <p>
+ * 点を加えるたびに、その時刻で非零となる (次数 + 1) 個の重みを求め、
+ * 重み行列の行として {@link BandedQR} に取り込みます。
+ * 点列と重み行列は保持しないため、メモリ使用量は制御点数と次数の積に比例し、加えた点数によりません。
+ * ヒープに収まらない長時間の記録を一定の点数ずつ読み込みながら補間する場合などに用います。
+ * </p>
+ * <p>
+ * 節点系列は点を加える前に決める必要があります。節点間隔から生成する場合は、点列の時刻の範囲を指定してください。
+ * 点は時刻の順(同じ時刻の点が続くことは許します)に加えてください。
+ * 全体の点列と重み行列が必要な制約 Cd = q は課さず、制約を課す場合は {@link #curve(Matrix, Matrix)} で指定します。
+ * スレッドセーフではありません。
+ * </p>
+ */
+public final class StreamingFit {
+
+  /**
+   * 節点系列を指定して StreamingFit を生成します。
+   *
+   * @param _knots  節点系列
+   * @param _degree 次数
+   * @return StreamingFit
+   * @throws IllegalArgumentException 次数が0以下の場合
+   * @throws IllegalArgumentException 節点系列がnullの場合
+   * @throws IllegalArgumentException 節点系列の要素数が2*degree-1以下の場合
+   */
+  public static StreamingFit create(double[] _knots, int _degree) {
+    if (_degree < 1) {
+      throw new IllegalArgumentException(" degree is must be greater than 0 ");
+    }
+    if (_knots == null) {
+      throw new IllegalArgumentException(" _knots is null");
+    }
+    if (_knots.length <= 2 * _degree - 1) {
+      throw new IllegalArgumentException(" knots's length must be greater than 2 * _degree - 1 ");
+    }
+    return new StreamingFit(_knots.clone(), _degree);
+  }
+
+  /**
+   * 点列の時刻の範囲と節点間隔を指定して StreamingFit を生成します。
+   * <p>
+   * 節点系列は {@link SplineCurveInterpolator#createKnots(Range, int, double)} で生成します。
+   * </p>
+   *
+   * @param _range        点列の時刻の範囲
+   * @param _degree       次数
+   * @param _knotInterval 節点間隔
+   * @return StreamingFit
+   * @throws IllegalArgumentException 範囲がnullの場合
+   * @throws IllegalArgumentException 次数が0以下の場合
+   * @throws IllegalArgumentException 節点間隔が0以下の場合
+   */
+  public static StreamingFit create(Range _range, int _degree, double _knotInterval) {
+    if (_range == null) {
+      throw new IllegalArgumentException("_range is null.");
+    }
+    if (_degree < 1) {
+      throw new IllegalArgumentException(" degree is must be greater than 0 ");
+    }
+    if (_knotInterval <= 0.0) {
+      throw new IllegalArgumentException(" knot's interval is must be greater than 0 ");
+    }
+    return new StreamingFit(SplineCurveInterpolator.createKnots(_range, _degree, _knotInterval), _degree);
+  }
+
+  /**
+   * 点を加えます。
+   *
+   * @param _x x座標
+   * @param _y y座標
+   * @param _t 時刻
+   * @throws IllegalArgumentException 値がNaN、もしくは無限大の場合
+   * @throws IllegalArgumentException 時刻が直前に加えた点の時刻より小さい場合
+   * @throws IllegalArgumentException 時刻が節点系列の定義域外の場合
+   */
+  public void add(double _x, double _y, double _t) {
+    if (Double.isNaN(_x) || Double.isInfinite(_x) || Double.isNaN(_y) || Double.isInfinite(_y)) {
+      throw new IllegalArgumentException("coordinates are NaN or Inf.");
+    }
+    if (Double.isNaN(_t) || Double.isInfinite(_t)) {
+      throw new IllegalArgumentException("_t is NaN or Inf.");
+    }
+    if (_t < m_lastTime) {
+      throw new IllegalArgumentException("time series is not a positive order");
+    }
+    if (_t < m_knots[m_degree - 1] || m_knots[m_knots.length - m_degree] < _t) {
+      throw new IllegalArgumentException("_t is out of range of knots.");
+    }
+
+    int offset = m_basis.evaluate(_t);
+    boolean zero = true;
+    for (int k = 0; k <= m_degree; ++k) {
+      m_row[k] = m_basis.value(k);
+      zero &= (m_row[k] == 0.0);
+    }
+    // 最後の節点上の点など、重みが全て0の行は解に影響しないため加えない(重み行列でも全て0の行となる)
+    if (!zero) {
+      m_right[0] = _x;
+      m_right[1] = _y;
+      m_qr.addRow(offset, m_row, 0, m_right, 0);
+    }
+
+    // 行を加えた後に状態を更新する
+    if (m_size == 0) {
+      m_firstTime = _t;
+    }
+    m_lastTime = _t;
+    ++m_size;
+  }
+
+  /**
+   * 配列の先頭 _size 個の点を加えます。
+   *
+   * @param _x    x座標
+   * @param _y    y座標
+   * @param _t    時刻
+   * @param _size 点数
+   * @throws IllegalArgumentException 配列がnullの場合、点数が負もしくは配列の要素数より大きい場合
+   * @see #add(double, double, double)
+   */
+  public void add(double[] _x, double[] _y, double[] _t, int _size) {
+    if (_x == null || _y == null || _t == null) {
+      throw new IllegalArgumentException("coordinates are null.");
+    }
+    if (_size < 0 || _size > _x.length || _size > _y.length || _size > _t.length) {
+      throw new IllegalArgumentException("_size is out of range.");
+    }
+    for (int i = 0; i < _size; ++i) {
+      add(_x[i], _y[i], _t[i]);
+    }
+  }
+
+  /**
+   * 加えた点に対するスプライン曲線を求めます。
+   * <p>
+   * 存在範囲は最初に加えた点の時刻から最後に加えた点の時刻までとなります。
+   * 求めた後も点を加えて、改めて求めることができます。
+   * </p>
+   *
+   * @return スプライン曲線
+   * @throws IllegalStateException   加えた点数が1以下の場合
+   * @throws SingularMatrixException 点を含まない節点区間があるなど、解が一意に定まらない場合
+   */
+  public SplineCurve curve() {
+    checkSize();
+    return createCurve(m_qr.solve());
+  }
+
+  /**
+   * 加えた点に対して、Cd = q (d は制御点列)の条件下でスプライン曲線を求めます。
+   *
+   * @param _C 制約行列(行数:制約の数, 列数:制御点数)
+   * @param _q 制約の右辺(行数:制約の数, 列数:2(xの値, yの値))
+   * @return スプライン曲線
+   * @throws IllegalArgumentException 行列の大きさが整合しない場合
+   * @throws IllegalStateException    加えた点数が1以下の場合
+   * @throws SingularMatrixException  解が一意に定まらない場合
+   */
+  public SplineCurve curve(Matrix _C, Matrix _q) {
+    if (_C == null || _q == null) {
+      throw new IllegalArgumentException("_C or _q is null.");
+    }
+    checkSize();
+    return createCurve(m_qr.solveConstrained(_C, _q).solution());
+  }
+
+  /**
+   * 制約のない場合の残差の二乗和(x座標、y座標の合計)を返します。
+   *
+   * @return 残差の二乗和
+   */
+  public double residual() {
+    return m_qr.residual(0) + m_qr.residual(1);
+  }
+
+  /**
+   * 加えた点数を返します。
+   *
+   * @return 点数
+   */
+  public int size() {
+    return m_size;
+  }
+
+  /**
+   * 次数を返します。
+   *
+   * @return 次数
+   */
+  public int degree() {
+    return m_degree;
+  }
+
+  /**
+   * 節点系列を返します。
+   *
+   * @return 節点系列
+   */
+  public double[] knots() {
+    return m_knots.clone();
+  }
+
+  /**
+   * 制御点数を返します。
+   *
+   * @return 制御点数
+   */
+  public int controlPointsNum() {
+    return m_qr.columnSize();
+  }
+
+  /**
+   * この StreamingFit の文字列表現を返します。
+   *
+   * @return 次数、点数、制御点数を表す String
+   */
+  @Override
+  public String toString() {
+    return String.format("degree:%d points:%d controlPoints:%d", m_degree, m_size, m_qr.columnSize());
+  }
+
+  /**
+   * 加えた点数を検査します。
+   *
+   * @throws IllegalStateException 加えた点数が1以下の場合
+   */
+  private void checkSize() {
+    if (m_size < 2) {
+      throw new IllegalStateException("points are fewer than 2.");
+    }
+  }
+
+  /**
+   * 解からスプライン曲線を構成します。
+   *
+   * @param _solution 解(行数:制御点数, 列数:2)
+   * @return スプライン曲線
+   */
+  private SplineCurve createCurve(Matrix _solution) {
+    Point[] controlPoints = new Point[m_qr.columnSize()];
+    for (int i = 0; i < controlPoints.length; ++i) {
+      controlPoints[i] = Point.createXY(_solution.get(i, 0), _solution.get(i, 1));
+    }
+    return SplineCurve.create(m_degree, controlPoints, m_knots.clone(), Range.create(m_firstTime, m_lastTime));
+  }
+
+  /**
+   * コンストラクタ
+   *
+   * @param _knots  節点系列
+   * @param _degree 次数
+   */
+  private StreamingFit(double[] _knots, int _degree) {
+    m_knots = _knots;
+    m_degree = _degree;
+    m_basis = SplineBasis.create(_knots, _degree);
+    m_qr = BandedQR.create(m_basis.controlPointsNum(), _degree, 2);
+    m_row = new double[_degree + 1];
+    m_right = new double[2];
+  }
+
+  /** 節点系列 */
+  private final double[] m_knots;
+  /** 次数 */
+  private final int m_degree;
+  /** 基底関数の評価器 */
+  private final SplineBasis m_basis;
+  /** 重み行列の QR 分解 */
+  private final BandedQR m_qr;
+  /** 重み行列の行の作業領域 */
+  private final double[] m_row;
+  /** 右辺の行の作業領域 */
+  private final double[] m_right;
+  /** 加えた点数 */
+  private int m_size;
+  /** 最初に加えた点の時刻 */
+  private double m_firstTime;
+  /** 最後に加えた点の時刻 */
+  private double m_lastTime = Double.NEGATIVE_INFINITY;
+}
@@ -0,0 +1,113 @@
+package jp.sagalab.b3semi;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link Kernels} の jdk.incubator.vector (Vector API) による実装です。
+ * <p>
+ * レーン数は実行環境で利用できる最大の SIMD 幅 ({@link DoubleVector#SPECIES_PREFERRED}) とします。
+ * 融合積和(FMA)は用いず、乗算と加算を別々に行うため、結果は {@link ScalarKernels} と一致します。
+ * このクラスは {@link Kernels} からリフレクションでのみ読み込みます。
+ * </p>
+ */
+final class VectorApiKernels extends Kernels {
+
+  /**
+   * レーン数を返します。
+   *
+   * @return レーン数
+   */
+  int lanes() {
+    return SPECIES.length();
+  }
+
+  @Override
+  void multiplyAdd(double _a, double[] _x, int _xOffset, double[] _y, int _yOffset, int _length) {
+    final int bound = SPECIES.loopBound(_length);
+    int i = 0;
+    if (bound > 0) {
+      DoubleVector a = DoubleVector.broadcast(SPECIES, _a);
+      for (; i < bound; i += SPECIES.length()) {
+        DoubleVector x = DoubleVector.fromArray(SPECIES, _x, _xOffset + i);
+        DoubleVector y = DoubleVector.fromArray(SPECIES, _y, _yOffset + i);
+        y.add(a.mul(x)).intoArray(_y, _yOffset + i);
+      }
+    }
+    for (; i < _length; ++i) {
+      _y[_yOffset + i] += _a * _x[_xOffset + i];
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * パラメータをレーンに割り当て、レーン数ずつまとめて評価します。
+   * 内分の途中結果は x 座標、y 座標それぞれレーン数 × (次数 + 1) の作業領域に保持します。
+   * </p>
+   */
+  @Override
+  void deBoor(double[] _knots, int _degree, double[] _cpX, double[] _cpY, int _knotNum,
+              double[] _ts, int _from, int _to, double[] _outX, double[] _outY, double[] _work) {
+    final int lanes = SPECIES.length();
+    final int bound = _from + SPECIES.loopBound(_to - _from);
+    if (bound > _from) {
+      // 作業領域の前半を x 座標、後半を y 座標に用いる
+      final double[] x = _work;
+      final double[] y = _work;
+      final int yOffset = (_degree + 1) * lanes;
+      DoubleVector one = DoubleVector.broadcast(SPECIES, 1.0);
+      for (int n = _from; n < bound; n += lanes) {
+        DoubleVector t = DoubleVector.fromArray(SPECIES, _ts, n);
+        // 部分制御点列の抽出
+        for (int j = 0; j <= _degree; ++j) {
+          DoubleVector.broadcast(SPECIES, _cpX[_knotNum - _degree + j]).intoArray(x, j * lanes);
+          DoubleVector.broadcast(SPECIES, _cpY[_knotNum - _degree + j]).intoArray(y, yOffset + j * lanes);
+        }
+        for (int i = 0; i < _degree; ++i) {
+          for (int j = 0; j < _degree - i; ++j) {
+            int k = _knotNum - j - 1;
+            double denominator = _knots[k + _degree - i] - _knots[k];
+            DoubleVector w = t.sub(_knots[k]).div(denominator);
+            DoubleVector oneMinusW = one.sub(w);
+            DoubleVector sum = oneMinusW.add(w);
+            int upper = (_degree - j) * lanes;
+            int lower = (_degree - j - 1) * lanes;
+            DoubleVector xUpper = DoubleVector.fromArray(SPECIES, x, upper);
+            DoubleVector yUpper = DoubleVector.fromArray(SPECIES, y, yOffset + upper);
+            DoubleVector nx = w.mul(xUpper).add(oneMinusW.mul(DoubleVector.fromArray(SPECIES, x, lower))).div(sum);
+            DoubleVector yLower = DoubleVector.fromArray(SPECIES, y, yOffset + lower);
+            DoubleVector ny = w.mul(yUpper).add(oneMinusW.mul(yLower)).div(sum);
+            // 内分結果が有限でないレーンは元の値を残す
+            VectorMask<Double> finite = nx.test(VectorOperators.IS_FINITE).and(ny.test(VectorOperators.IS_FINITE));
+            xUpper.blend(nx, finite).intoArray(x, upper);
+            yUpper.blend(ny, finite).intoArray(y, yOffset + upper);
+          }
+        }
+        DoubleVector.fromArray(SPECIES, x, _degree * lanes).intoArray(_outX, n);
+        DoubleVector.fromArray(SPECIES, y, yOffset + _degree * lanes).intoArray(_outY, n);
+      }
+    }
+    if (bound < _to) {
+      m_scalar.deBoor(_knots, _degree, _cpX, _cpY, _knotNum, _ts, bound, _to, _outX, _outY, _work);
+    }
+  }
+
+  @Override
+  int deBoorWorkSize(int _degree) {
+    return 2 * (_degree + 1) * SPECIES.length();
+  }
+
+  @Override
+  String name() {
+    return "vector(" + SPECIES.length() + " lanes)";
+  }
+
+  /** 実行環境で利用できる最大の SIMD 幅 */
+  private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+  /** 端数のパラメータを評価するスカラーによる実装 */
+  private final ScalarKernels m_scalar = new ScalarKernels();
+}
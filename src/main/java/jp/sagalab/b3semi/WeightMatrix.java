@@ -0,0 +1,275 @@
+package jp.sagalab.b3semi;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * スプライン曲線の重み行列を疎な形式(CSR)で表すクラスです。
+ * <p>
+ * 重み行列の各行は連続する (次数 + 1) 個の要素のみが非零となるため、
+ * 行ごとに先頭の列番号(オフセット)と (次数 + 1) 個の値だけを保持します。
+ * 行数 m、次数 p に対してメモリ使用量は O(m・p) です。
+ * </p>
+ */
+public class WeightMatrix {
+
+  /**
+   * 重み行列を生成します。
+   *
+   * @param _offsets    各行の先頭の非零要素の列番号
+   * @param _values     各行の非零要素(行ごとに _rowWidth 個)
+   * @param _rowWidth   各行の非零要素数
+   * @param _columnSize 列数
+   * @return 重み行列
+   * @throws NullPointerException     引数の型にnullが指定された場合にスローします。
+   * @throws IllegalArgumentException 行数が0の場合、各行の非零要素数が0以下の場合、
+   *                                  要素数が整合しない場合、非零要素が列数をはみ出す場合、
+   *                                  要素にNaNまたはInfiniteが含まれる場合にスローします。
+   */
+  public static WeightMatrix create(int[] _offsets, double[] _values, int _rowWidth, int _columnSize) {
+    if (_offsets == null) {
+      throw new NullPointerException("_offsets is null.");
+    }
+    if (_values == null) {
+      throw new NullPointerException("_values is null.");
+    }
+    if (_offsets.length == 0) {
+      throw new IllegalArgumentException("row size is 0.");
+    }
+    if (_rowWidth <= 0) {
+      throw new IllegalArgumentException("_rowWidth is negative or zero.");
+    }
+    if (_values.length != _offsets.length * _rowWidth) {
+      throw new IllegalArgumentException("illegal length of _values.");
+    }
+    for (int offset : _offsets) {
+      if (offset < 0 || offset + _rowWidth > _columnSize) {
+        throw new IllegalArgumentException("offset is out of column size.");
+      }
+    }
+    for (double d : _values) {
+      if (Double.isNaN(d) || Double.isInfinite(d)) {
+        throw new IllegalArgumentException("_values has NaN or Infinite.");
+      }
+    }
+
+    return new WeightMatrix(_offsets, _values, _rowWidth, _columnSize, _offsets.length);
+  }
+
+  /**
+   * 行列の要素を返します。
+   *
+   * @param _i 行番号
+   * @param _j 列番号
+   * @return 行列の要素
+   * @throws ArrayIndexOutOfBoundsException 指定された列番号または行番号が行列のサイズ以上の場合にスローします。
+   */
+  public double get(int _i, int _j) {
+    if (_i >= rowSize() || _j >= m_columnSize) {
+      throw new ArrayIndexOutOfBoundsException("Row size or column size is wrong.");
+    }
+    int k = _j - m_offsets[_i];
+    if (k < 0 || k >= m_rowWidth) {
+      return 0.0;
+    }
+    return m_values[_i * m_rowWidth + k];
+  }
+
+  /**
+   * 指定した行の先頭の非零要素の列番号を返します。
+   *
+   * @param _i 行番号
+   * @return 列番号
+   */
+  public int offset(int _i) {
+    return m_offsets[_i];
+  }
+
+  /**
+   * 各行の非零要素数を返します。
+   *
+   * @return 非零要素数
+   */
+  public int rowWidth() {
+    return m_rowWidth;
+  }
+
+  /**
+   * 行数を返します。
+   *
+   * @return 行数
+   */
+  public int rowSize() {
+    return m_rowSize;
+  }
+
+  /**
+   * 列数を返します。
+   *
+   * @return 列数
+   */
+  public int columnSize() {
+    return m_columnSize;
+  }
+
+  /**
+   * A<sup>T</sup>A (A はこの行列)を対称帯行列として求めます。
+   *
+   * @return A<sup>T</sup>A
+   */
+  public BandedMatrix gram() {
+    final int width = m_rowWidth;
+    final int bandwidth = width - 1;
+    double[] elements = new double[m_columnSize * width];
+
+    // 各行の外積を帯の中に足し込む
+    for (int r = 0; r < m_rowSize; ++r) {
+      int offset = m_offsets[r];
+      int vOffset = r * width;
+      for (int a = 0; a < width; ++a) {
+        double va = m_values[vOffset + a];
+        if (va != 0.0) {
+          int i = offset + a;
+          int eOffset = i * width + bandwidth - i + offset;
+          for (int b = 0; b <= a; ++b) {
+            elements[eOffset + b] += va * m_values[vOffset + b];
+          }
+        }
+      }
+    }
+
+    return new BandedMatrix(elements, m_columnSize, bandwidth);
+  }
+
+  /**
+   * A = QR (A はこの行列)を Givens 回転で求め、Q<sup>T</sup>b も同時に求めます。
+   * <p>
+   * A<sup>T</sup>A は構成せず、行を先頭の非零要素の列番号の昇順に一行ずつ取り込みます。
+   * </p>
+   *
+   * @param _b 右辺行列
+   * @return QR 分解
+   * @throws IllegalArgumentException 指定された行列の行数とこの行列の行数が
+   *                                  等しくない場合にスローします。
+   */
+  public BandedQR qr(Matrix _b) {
+    if (_b.rowSize() != rowSize()) {
+      throw new IllegalArgumentException("not equals other matrix's row size.");
+    }
+    final int width = m_rowWidth;
+    final int bColumnSize = _b.columnSize();
+    BandedQR qr = BandedQR.create(m_columnSize, width - 1, bColumnSize);
+
+    // 行は通常オフセットの昇順に並んでいるが、そうでない場合は並べ替えて取り込む
+    Integer[] order = null;
+    for (int r = 1; r < m_rowSize; ++r) {
+      if (m_offsets[r] < m_offsets[r - 1]) {
+        order = new Integer[m_rowSize];
+        for (int i = 0; i < m_rowSize; ++i) {
+          order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> m_offsets[i]));
+        break;
+      }
+    }
+
+    double[] right = new double[bColumnSize];
+    for (int i = 0; i < m_rowSize; ++i) {
+      int r = (order != null) ? order[i] : i;
+      for (int c = 0; c < bColumnSize; ++c) {
+        right[c] = _b.get(r, c);
+      }
+      qr.addRow(m_offsets[r], m_values, r * width, right, 0);
+    }
+    return qr;
+  }
+
+  /**
+   * A<sup>T</sup>b (A はこの行列)を求めます。
+   *
+   * @param _b 右辺行列
+   * @return A<sup>T</sup>b
+   * @throws IllegalArgumentException 指定された行列の行数とこの行列の行数が
+   *                                  等しくない場合にスローします。
+   */
+  public Matrix transposeProduct(Matrix _b) {
+    if (_b.rowSize() != rowSize()) {
+      throw new IllegalArgumentException("not equals other matrix's row size.");
+    }
+    final int width = m_rowWidth;
+    int bColumnSize = _b.columnSize();
+    double[] elements = new double[m_columnSize * bColumnSize];
+
+    for (int r = 0; r < m_rowSize; ++r) {
+      int offset = m_offsets[r];
+      int vOffset = r * width;
+      for (int c = 0; c < bColumnSize; ++c) {
+        double b = _b.get(r, c);
+        if (b != 0.0) {
+          for (int a = 0; a < width; ++a) {
+            elements[(offset + a) * bColumnSize + c] += m_values[vOffset + a] * b;
+          }
+        }
+      }
+    }
+
+    return new Matrix(elements, bColumnSize);
+  }
+
+  /**
+   * 密な行列に変換します。
+   *
+   * @return 密な行列
+   */
+  public Matrix toMatrix() {
+    final int rowSize = rowSize();
+    double[] elements = new double[rowSize * m_columnSize];
+    for (int r = 0; r < rowSize; ++r) {
+      System.arraycopy(m_values, r * m_rowWidth, elements, r * m_columnSize + m_offsets[r], m_rowWidth);
+    }
+    return new Matrix(elements, m_columnSize);
+  }
+
+  /**
+   * この WeightMatrix の文字列表現を返します。
+   *
+   * @return 行数、列数、非零要素数を表す String
+   */
+  @Override
+  public String toString() {
+    return String.format("size:[%d,%d] rowWidth:%d", rowSize(), m_columnSize, m_rowWidth);
+  }
+
+
+  /**
+   * コンストラクタ
+   * <p>
+   * 配列は複製せずに保持します。配列の先頭 _rowSize 行分のみを用いるため、
+   * 作業領域として確保した配列を使い回すことができます。
+   * </p>
+   *
+   * @param _offsets    各行の先頭の非零要素の列番号
+   * @param _values     各行の非零要素
+   * @param _rowWidth   各行の非零要素数
+   * @param _columnSize 列数
+   * @param _rowSize    行数
+   */
+  WeightMatrix(int[] _offsets, double[] _values, int _rowWidth, int _columnSize, int _rowSize) {
+    m_offsets = _offsets;
+    m_values = _values;
+    m_rowWidth = _rowWidth;
+    m_columnSize = _columnSize;
+    m_rowSize = _rowSize;
+  }
+
+  /** 各行の先頭の非零要素の列番号 */
+  private final int[] m_offsets;
+  /** 非零要素(行 i の要素は i * 非零要素数 から格納する) */
+  private final double[] m_values;
+  /** 各行の非零要素数 */
+  private final int m_rowWidth;
+  /** 列数 */
+  private final int m_columnSize;
+  /** 行数 */
+  private final int m_rowSize;
+}
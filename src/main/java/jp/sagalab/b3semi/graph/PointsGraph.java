@@ -5,6 +5,8 @@ import jp.sagalab.b3semi.Point;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
 
 /**
  * 点列と節点列を表すグラフを作成するクラスです.
@@ -41,54 +43,99 @@ public class PointsGraph extends JPanel {
 
   /**
    * グラフの描画を行います.
+   * <p>
+   * グラフは画像に描画して保持し、パネルの大きさが変わった場合のみ描き直します.
+   * </p>
    *
    * @param g  the <code>Graphics</code> context in which to paint
    */
   @Override
   public void paint(Graphics g) {
     super.paint(g);
-    Graphics2D g2 = (Graphics2D) g;
     if (getWidth() > 100) {
+      if (m_image == null || m_image.getWidth() != getWidth() || m_image.getHeight() != getHeight()) {
+        m_image = render(getWidth(), getHeight());
+      }
+      g.drawImage(m_image, 0, 0, null);
+    }
+  }
+
+  /**
+   * グラフを画像に描画します.
+   * <p>
+   * 目盛りは横軸の画素の列ごとにまとめ、同じ列に複数の節点や点があっても一本だけ描画します.
+   * 節点のラベルは直前に描画したラベルと重なる場合は省略します.
+   * </p>
+   *
+   * @param _width  幅
+   * @param _height 高さ
+   * @return グラフの画像
+   */
+  private BufferedImage render(int _width, int _height) {
+    BufferedImage image = new BufferedImage(_width, _height, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g2 = image.createGraphics();
+    try {
+      g2.setFont(getFont());
       //横軸の描画
-      int width = getWidth();
-      int height = getHeight();
       int x_min = 50;
-      int x_max = width - 50;
-      double y = height * 0.6;
+      int x_max = _width - 50;
+      double y = _height * 0.6;
       g2.setColor(Color.BLACK);
       g2.setStroke(new BasicStroke(1.5f));
       g2.draw(new Line2D.Double(x_min, y, x_max, y));
+      double scale = (x_max - x_min) / (m_knots[m_knots.length - 1] - m_knots[0]);
+
+      //目盛りの描画
+      double knotLength = (_height < 100) ? _height * 0.2 : 20;
+      FontMetrics metrics = g2.getFontMetrics();
+      int labelEnd = Integer.MIN_VALUE;
+      boolean[] columns = new boolean[_width];
       for (double knot : m_knots) {
-        //目盛りの描画
-        double x_knot = x_min + (knot - m_knots[0]) * (x_max - x_min) / (m_knots[m_knots.length - 1] - m_knots[0]);
-        double length;
-        if (height < 100) {
-          length = height * 0.2;
-        } else {
-          length = 20;
+        int x_knot = column(x_min + (knot - m_knots[0]) * scale, _width);
+        if (x_knot < 0 || columns[x_knot]) {
+          continue;
         }
-        g2.draw(new Line2D.Double(x_knot, y, x_knot, y - length));
+        columns[x_knot] = true;
+        g2.draw(new Line2D.Double(x_knot, y, x_knot, y - knotLength));
         //フォーマットは各自いじって使う
-        String s = String.format("%2.2f", knot);
-        g.drawString(s, (int) x_knot, (int) y + 20);
+        if (x_knot >= labelEnd) {
+          String s = String.format("%2.2f", knot);
+          g2.drawString(s, x_knot, (int) y + 20);
+          labelEnd = x_knot + metrics.stringWidth(s) + LABEL_GAP;
+        }
       }
 
       //点列の描画
       g2.setColor(Color.RED);
       g2.setStroke(new BasicStroke(1.0f));
+      double pointLength = (_height < 100) ? _height * 0.1 : 10;
+      Arrays.fill(columns, false);
       for (Point p : m_points) {
-        double time = p.time();
-        //点列の描画
-        double x_point = x_min + (time - m_knots[0]) * (x_max - x_min) / (m_knots[m_knots.length - 1] - m_knots[0]);
-        double length;
-        if (height < 100) {
-          length = height * 0.1;
-        } else {
-          length = 10;
+        int x_point = column(x_min + (p.time() - m_knots[0]) * scale, _width);
+        if (x_point < 0 || columns[x_point]) {
+          continue;
         }
-        g2.draw(new Line2D.Double(x_point, y, x_point, y - length));
+        columns[x_point] = true;
+        g2.draw(new Line2D.Double(x_point, y, x_point, y - pointLength));
       }
+    } finally {
+      g2.dispose();
+    }
+    return image;
+  }
+
+  /**
+   * 横軸上の位置を画素の列に変換します.
+   *
+   * @param _x     横軸上の位置
+   * @param _width 幅
+   * @return 画素の列(画像の外の場合は-1)
+   */
+  private static int column(double _x, int _width) {
+    if (!(_x >= 0.0 && _x < _width)) {
+      return -1;
     }
+    return (int) _x;
   }
 
   /**
@@ -126,6 +173,10 @@ public class PointsGraph extends JPanel {
   private final Point[] m_points;
   /** 節点列 */
   private final double[] m_knots;
+  /** 描画したグラフ(パネルの大きさが変わった場合に描き直す) */
+  private BufferedImage m_image;
+  /** 節点のラベルの最小の間隔 */
+  private static final int LABEL_GAP = 4;
   /** 横方向のサイズ */
   private static final int WIDTH = 800;
   /** 縦方向のサイズ */
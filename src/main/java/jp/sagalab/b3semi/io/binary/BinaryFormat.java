@@ -0,0 +1,143 @@
+package jp.sagalab.b3semi.io.binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * バイナリ形式のファイルの構造を定めるクラスです.
+ * <p>
+ * ファイルは32バイトのヘッダと, リトルエンディアンの double のブロックから成ります.
+ * </p>
+ * <pre>
+ * ヘッダ(すべてリトルエンディアンの int)
+ *   0: マジックナンバー 'B3SB'
+ *   4: バージョン
+ *   8: 種類(点列, 節点系列, スプライン曲線)
+ *  12: 次数(スプライン曲線以外は0)
+ *  16: 要素数(点数, 節点数, 制御点数)
+ *  20: 節点数(スプライン曲線以外は0)
+ *  24: 予約(0)
+ *  28: 予約(0)
+ * 本体
+ *   点列        : x[要素数], y[要素数], t[要素数]
+ *   節点系列    : knots[要素数]
+ *   スプライン曲線: 存在範囲の始点, 終点, 制御点の x[要素数], y[要素数], t[要素数], knots[節点数]
+ * </pre>
+ */
+final class BinaryFormat {
+
+  /** マジックナンバー('B','3','S','B' をリトルエンディアンで読んだ値) */
+  static final int MAGIC = 'B' | ('3' << 8) | ('S' << 16) | ('B' << 24);
+  /** バージョン */
+  static final int VERSION = 1;
+  /** ヘッダのバイト数 */
+  static final int HEADER_SIZE = 32;
+  /** 種類:点列 */
+  static final int KIND_POINTS = 1;
+  /** 種類:節点系列 */
+  static final int KIND_KNOTS = 2;
+  /** 種類:スプライン曲線 */
+  static final int KIND_SPLINE_CURVE = 3;
+  /** 入出力バッファのバイト数 */
+  static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * 入出力に用いるリトルエンディアンのバッファを生成します.
+   *
+   * @return バッファ
+   */
+  static ByteBuffer allocateBuffer() {
+    return ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * double の配列をブロックとしてチャネルに書き込みます.
+   * <p>
+   * バッファに残っているデータは先に書き出します. 書き込み後のバッファは空になります.
+   * </p>
+   *
+   * @param _channel チャネル
+   * @param _buffer  書き込み中のバッファ
+   * @param _values  値
+   * @param _length  書き込む要素数
+   * @throws IOException 書き込みに失敗した場合
+   */
+  static void writeDoubles(FileChannel _channel, ByteBuffer _buffer, double[] _values, int _length)
+          throws IOException {
+    int index = 0;
+    while (true) {
+      int length = Math.min(_length - index, _buffer.remaining() / Double.BYTES);
+      DoubleBuffer doubles = _buffer.asDoubleBuffer();
+      doubles.put(_values, index, length);
+      _buffer.position(_buffer.position() + length * Double.BYTES);
+      index += length;
+      flush(_channel, _buffer);
+      if (index == _length) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * バッファの内容をチャネルに全て書き出し, バッファを空にします.
+   *
+   * @param _channel チャネル
+   * @param _buffer  バッファ
+   * @throws IOException 書き込みに失敗した場合
+   */
+  static void flush(FileChannel _channel, ByteBuffer _buffer) throws IOException {
+    _buffer.flip();
+    while (_buffer.hasRemaining()) {
+      _channel.write(_buffer);
+    }
+    _buffer.clear();
+  }
+
+  /**
+   * チャネルから double のブロックを読み込みます.
+   *
+   * @param _channel チャネル
+   * @param _buffer  読み込み用のバッファ(空の状態で渡す)
+   * @param _values  格納先
+   * @param _length  読み込む要素数
+   * @throws IOException              読み込みに失敗した場合
+   * @throws IllegalArgumentException ファイルが途中で終わっている場合
+   */
+  static void readDoubles(FileChannel _channel, ByteBuffer _buffer, double[] _values, int _length)
+          throws IOException {
+    int index = 0;
+    while (index < _length) {
+      int length = Math.min(_length - index, _buffer.capacity() / Double.BYTES);
+      fill(_channel, _buffer, length * Double.BYTES);
+      _buffer.asDoubleBuffer().get(_values, index, length);
+      _buffer.clear();
+      index += length;
+    }
+  }
+
+  /**
+   * チャネルから指定したバイト数をバッファに読み込み, 読み出せる状態にします.
+   *
+   * @param _channel チャネル
+   * @param _buffer  バッファ(空の状態で渡す)
+   * @param _bytes   バイト数
+   * @throws IOException              読み込みに失敗した場合
+   * @throws IllegalArgumentException ファイルが途中で終わっている場合
+   */
+  static void fill(FileChannel _channel, ByteBuffer _buffer, int _bytes) throws IOException {
+    _buffer.limit(_bytes);
+    while (_buffer.hasRemaining()) {
+      if (_channel.read(_buffer) < 0) {
+        throw new IllegalArgumentException("File is truncated");
+      }
+    }
+    _buffer.flip();
+  }
+
+  private BinaryFormat() {
+    throw new UnsupportedOperationException("can not create instance.");
+  }
+}
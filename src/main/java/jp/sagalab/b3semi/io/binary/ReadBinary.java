@@ -0,0 +1,202 @@
+package jp.sagalab.b3semi.io.binary;
+
+import jp.sagalab.b3semi.Point;
+import jp.sagalab.b3semi.PointSeries;
+import jp.sagalab.b3semi.Range;
+import jp.sagalab.b3semi.SplineCurve;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link WriteBinary} で書き込んだバイナリ形式のファイルを読み込むクラスです.
+ */
+public final class ReadBinary {
+
+  /**
+   * バイナリ形式の点列ファイルを読み込みます.
+   *
+   * @param _pointsFile 点列のファイル
+   * @return 点列のリスト
+   * @throws IllegalArgumentException ファイルが存在しない場合, 点列のファイルでない場合,
+   *                                  ファイルが途中で終わっている場合, 値にNaNまたはInfiniteが含まれる場合
+   * @throws UncheckedIOException     読み込みに失敗した場合
+   */
+  public static List<Point> readPoints(File _pointsFile) {
+    double[][] columns = readPointColumns(_pointsFile);
+    List<Point> points = new ArrayList<>(columns[0].length);
+    for (int i = 0; i < columns[0].length; ++i) {
+      points.add(Point.createXYT(columns[0][i], columns[1][i], columns[2][i]));
+    }
+    return points;
+  }
+
+  /**
+   * バイナリ形式の点列ファイルを {@link PointSeries} として読み込みます.
+   *
+   * @param _pointsFile 点列のファイル
+   * @return 点列
+   * @throws IllegalArgumentException ファイルが存在しない場合, 点列のファイルでない場合,
+   *                                  ファイルが途中で終わっている場合, 値にNaNまたはInfiniteが含まれる場合
+   * @throws UncheckedIOException     読み込みに失敗した場合
+   */
+  public static PointSeries readPointSeries(File _pointsFile) {
+    double[][] columns = readPointColumns(_pointsFile);
+    return PointSeries.create(columns[0], columns[1], columns[2]);
+  }
+
+  /**
+   * バイナリ形式の点列ファイルを x座標, y座標, 時刻の配列として読み込みます.
+   *
+   * @param _pointsFile 点列のファイル
+   * @return {x座標, y座標, 時刻} の配列
+   * @throws IllegalArgumentException ファイルが存在しない場合, 点列のファイルでない場合,
+   *                                  ファイルが途中で終わっている場合
+   * @throws UncheckedIOException     読み込みに失敗した場合
+   */
+  public static double[][] readPointColumns(File _pointsFile) {
+    try (FileChannel channel = open(_pointsFile)) {
+      ByteBuffer buffer = BinaryFormat.allocateBuffer();
+      int[] header = readHeader(channel, buffer, BinaryFormat.KIND_POINTS);
+      final int size = header[1];
+      double[] x = new double[size];
+      double[] y = new double[size];
+      double[] t = new double[size];
+      BinaryFormat.readDoubles(channel, buffer, x, size);
+      BinaryFormat.readDoubles(channel, buffer, y, size);
+      BinaryFormat.readDoubles(channel, buffer, t, size);
+      return new double[][]{x, y, t};
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * バイナリ形式の節点系列ファイルを読み込みます.
+   *
+   * @param _knotFile 節点系列のファイル
+   * @return 節点系列
+   * @throws IllegalArgumentException ファイルが存在しない場合, 節点系列のファイルでない場合,
+   *                                  ファイルが途中で終わっている場合
+   * @throws UncheckedIOException     読み込みに失敗した場合
+   */
+  public static double[] readKnots(File _knotFile) {
+    try (FileChannel channel = open(_knotFile)) {
+      ByteBuffer buffer = BinaryFormat.allocateBuffer();
+      int[] header = readHeader(channel, buffer, BinaryFormat.KIND_KNOTS);
+      double[] knots = new double[header[1]];
+      BinaryFormat.readDoubles(channel, buffer, knots, knots.length);
+      return knots;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * バイナリ形式のスプライン曲線ファイルを読み込みます.
+   *
+   * @param _curveFile スプライン曲線のファイル
+   * @return スプライン曲線
+   * @throws IllegalArgumentException ファイルが存在しない場合, スプライン曲線のファイルでない場合,
+   *                                  ファイルが途中で終わっている場合, スプライン曲線として不正な場合
+   * @throws UncheckedIOException     読み込みに失敗した場合
+   */
+  public static SplineCurve readSplineCurve(File _curveFile) {
+    try (FileChannel channel = open(_curveFile)) {
+      ByteBuffer buffer = BinaryFormat.allocateBuffer();
+      int[] header = readHeader(channel, buffer, BinaryFormat.KIND_SPLINE_CURVE);
+      final int degree = header[0];
+      final int size = header[1];
+      BinaryFormat.fill(channel, buffer, 2 * Double.BYTES);
+      Range range = Range.create(buffer.getDouble(), buffer.getDouble());
+      buffer.clear();
+      double[] x = new double[size];
+      double[] y = new double[size];
+      double[] t = new double[size];
+      double[] knots = new double[header[2]];
+      BinaryFormat.readDoubles(channel, buffer, x, size);
+      BinaryFormat.readDoubles(channel, buffer, y, size);
+      BinaryFormat.readDoubles(channel, buffer, t, size);
+      BinaryFormat.readDoubles(channel, buffer, knots, knots.length);
+      Point[] controlPoints = new Point[size];
+      for (int i = 0; i < size; ++i) {
+        controlPoints[i] = Point.createXYT(x[i], y[i], t[i]);
+      }
+      return SplineCurve.create(degree, controlPoints, knots, range);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * 読み込むファイルを開きます.
+   *
+   * @param _file ファイル
+   * @return チャネル
+   * @throws IOException ファイルを開けなかった場合
+   */
+  private static FileChannel open(File _file) throws IOException {
+    if (_file == null || !(_file.exists())) {
+      throw new IllegalArgumentException("File does not exist");
+    }
+    return FileChannel.open(_file.toPath(), StandardOpenOption.READ);
+  }
+
+  /**
+   * ヘッダを読み込み, 検証します.
+   * <p>
+   * 配列を確保する前に, ヘッダの要素数から求めた本体の大きさがファイルに収まっていることを確認します.
+   * </p>
+   *
+   * @param _channel チャネル
+   * @param _buffer  バッファ(空の状態で渡す. 読み込み後は空になります)
+   * @param _kind    期待する種類
+   * @return {次数, 要素数, 節点数}
+   * @throws IOException              読み込みに失敗した場合
+   * @throws IllegalArgumentException マジックナンバー, バージョン, 種類, 要素数が不正な場合,
+   *                                  ファイルが要素数に対して短い場合
+   */
+  private static int[] readHeader(FileChannel _channel, ByteBuffer _buffer, int _kind) throws IOException {
+    BinaryFormat.fill(_channel, _buffer, BinaryFormat.HEADER_SIZE);
+    if (_buffer.getInt() != BinaryFormat.MAGIC) {
+      throw new IllegalArgumentException("File is not b3semi binary file");
+    }
+    int version = _buffer.getInt();
+    if (version != BinaryFormat.VERSION) {
+      throw new IllegalArgumentException("Unsupported version " + version);
+    }
+    if (_buffer.getInt() != _kind) {
+      throw new IllegalArgumentException("Kind of file is wrong");
+    }
+    int degree = _buffer.getInt();
+    int count = _buffer.getInt();
+    int knotsCount = _buffer.getInt();
+    if (degree < 0 || count < 0 || knotsCount < 0) {
+      throw new IllegalArgumentException("Header is broken");
+    }
+    // 本体の double の数(スプライン曲線は存在範囲の2つを含む)
+    long doubles;
+    if (_kind == BinaryFormat.KIND_POINTS) {
+      doubles = 3L * count;
+    } else if (_kind == BinaryFormat.KIND_KNOTS) {
+      doubles = count;
+    } else {
+      doubles = 2L + 3L * count + knotsCount;
+    }
+    if (BinaryFormat.HEADER_SIZE + Double.BYTES * doubles > _channel.size()) {
+      throw new IllegalArgumentException("File is truncated");
+    }
+    _buffer.clear();
+    return new int[]{degree, count, knotsCount};
+  }
+
+  private ReadBinary() {
+    throw new UnsupportedOperationException("can not create instance.");
+  }
+}
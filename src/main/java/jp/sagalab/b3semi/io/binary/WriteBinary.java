@@ -0,0 +1,201 @@
+package jp.sagalab.b3semi.io.binary;
+
+import jp.sagalab.b3semi.Point;
+import jp.sagalab.b3semi.PointSeries;
+import jp.sagalab.b3semi.Range;
+import jp.sagalab.b3semi.SplineCurve;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 点列, 節点系列, スプライン曲線をバイナリ形式のファイルに書き込むクラスです.
+ * <p>
+ * 値は文字列に変換せず, リトルエンディアンの double のまま書き込みます.
+ * ファイルの構造は {@link BinaryFormat} を参照してください.
+ * </p>
+ */
+public final class WriteBinary {
+
+  /**
+   * 点列をバイナリ形式で書き込みます.
+   *
+   * @param _file   書き込み先のファイル(既に存在する場合は上書きします)
+   * @param _points 点列
+   * @return 書き込んだファイル
+   * @throws IllegalArgumentException 引数にnullが指定された場合, 点列にnullが含まれる場合
+   * @throws UncheckedIOException     書き込みに失敗した場合
+   */
+  public static File writePoints(File _file, List<Point> _points) {
+    if (_points == null) {
+      throw new IllegalArgumentException("_points is null");
+    }
+    final int size = _points.size();
+    double[] x = new double[size];
+    double[] y = new double[size];
+    double[] t = new double[size];
+    for (int i = 0; i < size; ++i) {
+      Point point = _points.get(i);
+      if (point == null) {
+        throw new IllegalArgumentException("_points include null");
+      }
+      x[i] = point.x();
+      y[i] = point.y();
+      t[i] = point.time();
+    }
+    return writePoints(_file, x, y, t);
+  }
+
+  /**
+   * 点列をバイナリ形式で書き込みます.
+   *
+   * @param _file   書き込み先のファイル(既に存在する場合は上書きします)
+   * @param _points 点列
+   * @return 書き込んだファイル
+   * @throws IllegalArgumentException 引数にnullが指定された場合
+   * @throws UncheckedIOException     書き込みに失敗した場合
+   */
+  public static File writePoints(File _file, PointSeries _points) {
+    if (_points == null) {
+      throw new IllegalArgumentException("_points is null");
+    }
+    return writePoints(_file, _points.xs(), _points.ys(), _points.times());
+  }
+
+  /**
+   * x座標, y座標, 時刻の配列で表された点列をバイナリ形式で書き込みます.
+   *
+   * @param _file 書き込み先のファイル(既に存在する場合は上書きします)
+   * @param _x    x座標
+   * @param _y    y座標
+   * @param _t    時刻
+   * @return 書き込んだファイル
+   * @throws IllegalArgumentException 引数にnullが指定された場合, 配列の長さが異なる場合
+   * @throws UncheckedIOException     書き込みに失敗した場合
+   */
+  public static File writePoints(File _file, double[] _x, double[] _y, double[] _t) {
+    if (_x == null || _y == null || _t == null) {
+      throw new IllegalArgumentException("coordinates are null");
+    }
+    if (_x.length != _y.length || _x.length != _t.length) {
+      throw new IllegalArgumentException("length of coordinates are different");
+    }
+    try (FileChannel channel = open(_file)) {
+      ByteBuffer buffer = BinaryFormat.allocateBuffer();
+      putHeader(buffer, BinaryFormat.KIND_POINTS, 0, _x.length, 0);
+      BinaryFormat.writeDoubles(channel, buffer, _x, _x.length);
+      BinaryFormat.writeDoubles(channel, buffer, _y, _y.length);
+      BinaryFormat.writeDoubles(channel, buffer, _t, _t.length);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return _file;
+  }
+
+  /**
+   * 節点系列をバイナリ形式で書き込みます.
+   *
+   * @param _file  書き込み先のファイル(既に存在する場合は上書きします)
+   * @param _knots 節点系列
+   * @return 書き込んだファイル
+   * @throws IllegalArgumentException 引数にnullが指定された場合
+   * @throws UncheckedIOException     書き込みに失敗した場合
+   */
+  public static File writeKnots(File _file, double[] _knots) {
+    if (_knots == null) {
+      throw new IllegalArgumentException("_knots is null");
+    }
+    try (FileChannel channel = open(_file)) {
+      ByteBuffer buffer = BinaryFormat.allocateBuffer();
+      putHeader(buffer, BinaryFormat.KIND_KNOTS, 0, _knots.length, 0);
+      BinaryFormat.writeDoubles(channel, buffer, _knots, _knots.length);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return _file;
+  }
+
+  /**
+   * スプライン曲線(次数, 存在範囲, 制御点列, 節点系列)をバイナリ形式で書き込みます.
+   *
+   * @param _file        書き込み先のファイル(既に存在する場合は上書きします)
+   * @param _splineCurve スプライン曲線
+   * @return 書き込んだファイル
+   * @throws IllegalArgumentException 引数にnullが指定された場合
+   * @throws UncheckedIOException     書き込みに失敗した場合
+   */
+  public static File writeSplineCurve(File _file, SplineCurve _splineCurve) {
+    if (_splineCurve == null) {
+      throw new IllegalArgumentException("_splineCurve is null");
+    }
+    Point[] controlPoints = _splineCurve.controlPoints();
+    double[] knots = _splineCurve.knots();
+    Range range = _splineCurve.range();
+    final int size = controlPoints.length;
+    double[] x = new double[size];
+    double[] y = new double[size];
+    double[] t = new double[size];
+    for (int i = 0; i < size; ++i) {
+      x[i] = controlPoints[i].x();
+      y[i] = controlPoints[i].y();
+      t[i] = controlPoints[i].time();
+    }
+    try (FileChannel channel = open(_file)) {
+      ByteBuffer buffer = BinaryFormat.allocateBuffer();
+      putHeader(buffer, BinaryFormat.KIND_SPLINE_CURVE, _splineCurve.degree(), size, knots.length);
+      buffer.putDouble(range.start());
+      buffer.putDouble(range.end());
+      BinaryFormat.writeDoubles(channel, buffer, x, size);
+      BinaryFormat.writeDoubles(channel, buffer, y, size);
+      BinaryFormat.writeDoubles(channel, buffer, t, size);
+      BinaryFormat.writeDoubles(channel, buffer, knots, knots.length);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return _file;
+  }
+
+  /**
+   * 書き込み先のファイルを開きます.
+   *
+   * @param _file ファイル
+   * @return チャネル
+   * @throws IOException ファイルを開けなかった場合
+   */
+  private static FileChannel open(File _file) throws IOException {
+    if (_file == null) {
+      throw new IllegalArgumentException("_file is null");
+    }
+    return FileChannel.open(_file.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+  }
+
+  /**
+   * ヘッダをバッファに書き込みます.
+   *
+   * @param _buffer     バッファ
+   * @param _kind       種類
+   * @param _degree     次数
+   * @param _count      要素数
+   * @param _knotsCount 節点数
+   */
+  private static void putHeader(ByteBuffer _buffer, int _kind, int _degree, int _count, int _knotsCount) {
+    _buffer.putInt(BinaryFormat.MAGIC);
+    _buffer.putInt(BinaryFormat.VERSION);
+    _buffer.putInt(_kind);
+    _buffer.putInt(_degree);
+    _buffer.putInt(_count);
+    _buffer.putInt(_knotsCount);
+    _buffer.putInt(0);
+    _buffer.putInt(0);
+  }
+
+  private WriteBinary() {
+    throw new UnsupportedOperationException("can not create instance.");
+  }
+}
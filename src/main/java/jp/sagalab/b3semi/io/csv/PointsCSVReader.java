@@ -0,0 +1,536 @@
+package jp.sagalab.b3semi.io.csv;
+
+import jp.sagalab.b3semi.Range;
+import jp.sagalab.b3semi.SingularMatrixException;
+import jp.sagalab.b3semi.SplineCurve;
+import jp.sagalab.b3semi.StreamingFit;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * CSV形式の点列ファイルを逐次的に読み込むクラスです.
+ * <p>
+ * {@link ReadCSV#readPoints(File)} と同じ形式(1行目が x,y,parameter のヘッダ)のファイルを,
+ * {@link FileChannel} から固定長のバッファに読み込みながら解析し, x座標, y座標, 時刻を
+ * プリミティブの配列に直接書き込みます. 行ごとの String や Point の生成を行わないため,
+ * 数百万行のファイルでもバッファと出力先の配列以外のメモリを消費しません.
+ * </p>
+ * <p>
+ * ヒープに収まらないファイルは {@link #chunks(int)} で一定の点数ずつ読み込んでください.
+ * </p>
+ */
+public final class PointsCSVReader implements Closeable {
+
+  /**
+   * CSV形式の点列ファイルを開き, ヘッダを検証します.
+   *
+   * @param _pointsFile 点列のCSVファイル
+   * @return 点列ファイルの読み込み器
+   * @throws IllegalArgumentException ファイルが存在しない場合, CSVファイルでない場合,
+   *                                  ヘッダが x,y,parameter でない場合
+   * @throws UncheckedIOException     ファイルの読み込みに失敗した場合
+   */
+  public static PointsCSVReader open(File _pointsFile) {
+    if (_pointsFile == null || !(_pointsFile.exists())) {
+      throw new IllegalArgumentException("File does not exist");
+    }
+    if (!(_pointsFile.getName().endsWith(".csv"))) {
+      throw new IllegalArgumentException("Points file is not csv file");
+    }
+    FileChannel channel;
+    try {
+      channel = FileChannel.open(_pointsFile.toPath(), StandardOpenOption.READ);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    PointsCSVReader reader = new PointsCSVReader(channel);
+    try {
+      reader.readHeader();
+    } catch (RuntimeException e) {
+      reader.close();
+      throw e;
+    }
+    return reader;
+  }
+
+  /**
+   * CSV形式の点列ファイルを全て読み込みます.
+   *
+   * @param _pointsFile 点列のCSVファイル
+   * @return 点列(配列の長さは点数に等しい)
+   * @throws IllegalArgumentException ファイルが存在しない場合, CSVファイルでない場合,
+   *                                  ヘッダが x,y,parameter でない場合,
+   *                                  値にNaNまたはInfiniteが含まれる場合
+   * @throws NumberFormatException    数値として解釈できない値が含まれる場合
+   * @throws UncheckedIOException     ファイルの読み込みに失敗した場合
+   */
+  public static PointsChunk readAll(File _pointsFile) {
+    try (PointsCSVReader reader = open(_pointsFile)) {
+      int capacity = 1024;
+      double[] x = new double[capacity];
+      double[] y = new double[capacity];
+      double[] t = new double[capacity];
+      int size = 0;
+      int read;
+      while ((read = reader.read(x, y, t, size, capacity - size)) >= 0) {
+        size += read;
+        if (size == capacity) {
+          capacity *= 2;
+          x = Arrays.copyOf(x, capacity);
+          y = Arrays.copyOf(y, capacity);
+          t = Arrays.copyOf(t, capacity);
+        }
+      }
+      return new PointsChunk(Arrays.copyOf(x, size), Arrays.copyOf(y, size), Arrays.copyOf(t, size), size);
+    }
+  }
+
+  /**
+   * CSV形式の点列ファイルを一定の点数ずつ読み込みながらスプライン曲線補間を行います.
+   * <p>
+   * 1回目の読み込みで時刻の範囲を求めて節点系列を生成し, 2回目の読み込みで点を {@link StreamingFit} に加えます.
+   * 点列全体と重み行列は保持しないため, メモリ使用量は一度に読み込む点数と, 制御点数と次数の積に比例します.
+   * 制約は課さず, 最小二乗解を求めます.
+   * </p>
+   *
+   * @param _pointsFile   点列のCSVファイル
+   * @param _degree       次数
+   * @param _knotInterval 節点間隔
+   * @param _chunkSize    一度に読み込む最大の点数
+   * @return スプライン曲線
+   * @throws IllegalArgumentException ファイルが存在しない場合, CSVファイルでない場合,
+   *                                  ヘッダが x,y,parameter でない場合, 点数が1以下の場合,
+   *                                  時間的に逆行している箇所があった場合
+   * @throws NumberFormatException    数値として解釈できない値が含まれる場合
+   * @throws UncheckedIOException     ファイルの読み込みに失敗した場合
+   * @throws SingularMatrixException  点を含まない節点区間があるなど, 解が一意に定まらない場合
+   */
+  public static SplineCurve fitSplineCurve(File _pointsFile, int _degree, double _knotInterval, int _chunkSize) {
+    // 時刻の範囲を求める
+    double start = Double.NaN;
+    double end = Double.NaN;
+    try (PointsCSVReader reader = open(_pointsFile)) {
+      Iterator<PointsChunk> chunks = reader.chunks(_chunkSize);
+      while (chunks.hasNext()) {
+        PointsChunk chunk = chunks.next();
+        if (Double.isNaN(start)) {
+          start = chunk.time()[0];
+        }
+        end = chunk.time()[chunk.size() - 1];
+      }
+    }
+    if (!(start < end)) {
+      throw new IllegalArgumentException(" points's length must be greater than 1 ");
+    }
+
+    // 点を加えながら補間する
+    StreamingFit fit = StreamingFit.create(Range.create(start, end), _degree, _knotInterval);
+    try (PointsCSVReader reader = open(_pointsFile)) {
+      Iterator<PointsChunk> chunks = reader.chunks(_chunkSize);
+      while (chunks.hasNext()) {
+        PointsChunk chunk = chunks.next();
+        fit.add(chunk.x(), chunk.y(), chunk.time(), chunk.size());
+      }
+    }
+    return fit.curve();
+  }
+
+  /**
+   * 点列を指定した配列に読み込みます.
+   *
+   * @param _x      x座標の格納先
+   * @param _y      y座標の格納先
+   * @param _t      時刻の格納先
+   * @param _offset 格納先の先頭位置
+   * @param _length 読み込む最大の点数
+   * @return 読み込んだ点数(ファイルの終端に達している場合は-1)
+   * @throws IllegalArgumentException 格納先の範囲が不正な場合, 値にNaNまたはInfiniteが含まれる場合
+   * @throws NumberFormatException    数値として解釈できない値が含まれる場合
+   * @throws UncheckedIOException     ファイルの読み込みに失敗した場合
+   */
+  public int read(double[] _x, double[] _y, double[] _t, int _offset, int _length) {
+    if (_x == null || _y == null || _t == null) {
+      throw new IllegalArgumentException("destination is null.");
+    }
+    if (_offset < 0 || _length < 0
+            || _offset + _length > Math.min(_x.length, Math.min(_y.length, _t.length))) {
+      throw new IllegalArgumentException("destination range is wrong.");
+    }
+    int count = 0;
+    while (count < _length && nextLine()) {
+      if (m_lineStart == m_lineEnd) {
+        // 空行は読み飛ばす
+        continue;
+      }
+      int i = _offset + count;
+      int second = indexOfComma(m_lineStart, m_lineEnd);
+      int third = (second < 0) ? -1 : indexOfComma(second + 1, m_lineEnd);
+      if (third < 0) {
+        throw new IllegalArgumentException("Column size is not 3 at row " + m_row);
+      }
+      int fourth = indexOfComma(third + 1, m_lineEnd);
+      _x[i] = check(parseDouble(m_lineStart, second), "_x");
+      _y[i] = check(parseDouble(second + 1, third), "_y");
+      _t[i] = check(parseDouble(third + 1, (fourth < 0) ? m_lineEnd : fourth), "_t");
+      ++count;
+    }
+    return (count == 0 && _length > 0) ? -1 : count;
+  }
+
+  /**
+   * 一定の点数ずつ読み込む反復子を返します.
+   * <p>
+   * 反復子が返す {@link PointsChunk} は全て同じインスタンスで, 次の読み込みで上書きされます.
+   * </p>
+   *
+   * @param _chunkSize 一度に読み込む最大の点数
+   * @return 反復子
+   * @throws IllegalArgumentException 点数が0以下の場合
+   */
+  public Iterator<PointsChunk> chunks(int _chunkSize) {
+    if (_chunkSize <= 0) {
+      throw new IllegalArgumentException("_chunkSize is negative or zero.");
+    }
+    final PointsChunk chunk = new PointsChunk(
+            new double[_chunkSize], new double[_chunkSize], new double[_chunkSize], 0);
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        if (!m_ready) {
+          int read = PointsCSVReader.this.read(chunk.x(), chunk.y(), chunk.time(), 0, _chunkSize);
+          chunk.setSize(Math.max(read, 0));
+          m_ready = true;
+        }
+        return chunk.size() > 0;
+      }
+
+      @Override
+      public PointsChunk next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        m_ready = false;
+        return chunk;
+      }
+
+      /** 次の点列を読み込み済みかどうか */
+      private boolean m_ready = false;
+    };
+  }
+
+  /**
+   * ファイルを閉じます.
+   *
+   * @throws UncheckedIOException ファイルを閉じるのに失敗した場合
+   */
+  @Override
+  public void close() {
+    try {
+      m_channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * ヘッダ行を読み込み, {@link ReadCSV#readPoints(File)} と同じ検証を行います.
+   */
+  private void readHeader() {
+    if (!nextLine()) {
+      return;
+    }
+    String line = new String(m_bytes, m_lineStart, m_lineEnd - m_lineStart, StandardCharsets.UTF_8);
+    String[] data = line.split(",");
+    if (data.length != 3) {
+      throw new IllegalArgumentException("Column size is not 3");
+    }
+    if (!data[0].strip().equals("x")) {
+      throw new IllegalArgumentException("First element is not x");
+    }
+    if (!data[1].strip().equals("y")) {
+      throw new IllegalArgumentException("Second element is not y");
+    }
+    if (!data[2].strip().equals("parameter")) {
+      throw new IllegalArgumentException("Third element is not parameter");
+    }
+  }
+
+  /**
+   * 次の行の範囲を m_lineStart, m_lineEnd に設定します.
+   *
+   * @return 次の行が存在する場合はtrue
+   */
+  private boolean nextLine() {
+    int scanned = m_position;
+    while (true) {
+      for (int i = scanned; i < m_limit; ++i) {
+        if (m_bytes[i] == '\n') {
+          setLine(m_position, i);
+          m_position = i + 1;
+          return true;
+        }
+      }
+      if (m_eof) {
+        if (m_position == m_limit) {
+          return false;
+        }
+        setLine(m_position, m_limit);
+        m_position = m_limit;
+        return true;
+      }
+      if (m_position == 0 && m_limit == m_bytes.length) {
+        throw new IllegalArgumentException("Line is too long at row " + (m_row + 1));
+      }
+      scanned = m_limit - m_position;
+      fill();
+    }
+  }
+
+  /**
+   * 行の範囲を設定します. 行末の CR は取り除きます.
+   *
+   * @param _start 行の先頭
+   * @param _end   行の終端(改行文字の位置)
+   */
+  private void setLine(int _start, int _end) {
+    m_lineStart = _start;
+    m_lineEnd = (_end > _start && m_bytes[_end - 1] == '\r') ? _end - 1 : _end;
+    ++m_row;
+  }
+
+  /**
+   * 未解析のバイト列をバッファの先頭に詰め, 残りをファイルから読み込みます.
+   */
+  private void fill() {
+    int remaining = m_limit - m_position;
+    System.arraycopy(m_bytes, m_position, m_bytes, 0, remaining);
+    m_position = 0;
+    m_limit = remaining;
+    m_buffer.clear().position(remaining);
+    try {
+      while (m_buffer.hasRemaining()) {
+        if (m_channel.read(m_buffer) < 0) {
+          m_eof = true;
+          break;
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    m_limit = m_buffer.position();
+  }
+
+  /**
+   * 指定した範囲で最初のカンマの位置を返します.
+   *
+   * @param _start 範囲の先頭
+   * @param _end   範囲の終端
+   * @return カンマの位置(存在しない場合は-1)
+   */
+  private int indexOfComma(int _start, int _end) {
+    for (int i = _start; i < _end; ++i) {
+      if (m_bytes[i] == ',') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * 値がNaN, Infiniteでないことを確認します.
+   *
+   * @param _value 値
+   * @param _name  値の名前
+   * @return 値
+   */
+  private double check(double _value, String _name) {
+    if (Double.isNaN(_value)) {
+      throw new IllegalArgumentException(_name + " is NaN at row " + m_row);
+    }
+    if (Double.isInfinite(_value)) {
+      throw new IllegalArgumentException(_name + " is Inf at row " + m_row);
+    }
+    return _value;
+  }
+
+  /**
+   * 指定した範囲のバイト列を10進数の実数として解析します.
+   * <p>
+   * 仮数部の有効桁数が15桁以下, 10の指数の絶対値が22以下の場合は, 仮数部と10の冪がともに
+   * double で正確に表せるため, 一回の乗算もしくは除算で正しく丸められた値が得られます.
+   * それ以外の表記は {@link Double#parseDouble(String)} で解析します.
+   * </p>
+   *
+   * @param _start 範囲の先頭
+   * @param _end   範囲の終端
+   * @return 値
+   * @throws NumberFormatException 数値として解釈できない場合
+   */
+  private double parseDouble(int _start, int _end) {
+    final byte[] bytes = m_bytes;
+    int i = _start;
+    int end = _end;
+    // Double.parseDouble と同様に前後の空白を無視する
+    while (i < end && (bytes[i] & 0xff) <= ' ') {
+      ++i;
+    }
+    while (end > i && (bytes[end - 1] & 0xff) <= ' ') {
+      --end;
+    }
+
+    boolean negative = false;
+    if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+      negative = bytes[i] == '-';
+      ++i;
+    }
+
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean hasDigit = false;
+    boolean truncated = false;
+    // 整数部
+    for (; i < end; ++i) {
+      int d = bytes[i] - '0';
+      if (d < 0 || d > 9) {
+        break;
+      }
+      hasDigit = true;
+      if (mantissa == 0 && d == 0) {
+        continue;
+      }
+      if (digits < MAX_FAST_DIGITS) {
+        mantissa = mantissa * 10 + d;
+        ++digits;
+      } else {
+        truncated = true;
+        ++exponent;
+      }
+    }
+    // 小数部
+    if (i < end && bytes[i] == '.') {
+      for (++i; i < end; ++i) {
+        int d = bytes[i] - '0';
+        if (d < 0 || d > 9) {
+          break;
+        }
+        hasDigit = true;
+        if (mantissa == 0 && d == 0) {
+          --exponent;
+          continue;
+        }
+        if (digits < MAX_FAST_DIGITS) {
+          mantissa = mantissa * 10 + d;
+          ++digits;
+          --exponent;
+        } else {
+          truncated = true;
+        }
+      }
+    }
+    if (!hasDigit) {
+      return parseFallback(_start, _end);
+    }
+    // 指数部
+    if (i < end && (bytes[i] == 'e' || bytes[i] == 'E')) {
+      ++i;
+      boolean negativeExponent = false;
+      if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+        negativeExponent = bytes[i] == '-';
+        ++i;
+      }
+      int value = 0;
+      int start = i;
+      for (; i < end; ++i) {
+        int d = bytes[i] - '0';
+        if (d < 0 || d > 9) {
+          break;
+        }
+        if (value < 100000) {
+          value = value * 10 + d;
+        }
+      }
+      if (i == start) {
+        return parseFallback(_start, _end);
+      }
+      exponent += negativeExponent ? -value : value;
+    }
+    if (i != end) {
+      // 接尾辞(d, f)や16進表記など
+      return parseFallback(_start, _end);
+    }
+
+    if (mantissa == 0) {
+      return negative ? -0.0 : 0.0;
+    }
+    if (truncated || exponent < -MAX_EXACT_POWER || exponent > MAX_EXACT_POWER) {
+      return parseFallback(_start, _end);
+    }
+    double value = (exponent < 0) ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+    return negative ? -value : value;
+  }
+
+  /**
+   * 指定した範囲のバイト列を {@link Double#parseDouble(String)} で解析します.
+   *
+   * @param _start 範囲の先頭
+   * @param _end   範囲の終端
+   * @return 値
+   * @throws NumberFormatException 数値として解釈できない場合
+   */
+  private double parseFallback(int _start, int _end) {
+    return Double.parseDouble(new String(m_bytes, _start, _end - _start, StandardCharsets.ISO_8859_1));
+  }
+
+  /**
+   * コンストラクタ
+   *
+   * @param _channel ファイルのチャネル
+   */
+  private PointsCSVReader(FileChannel _channel) {
+    m_channel = _channel;
+    m_bytes = new byte[BUFFER_SIZE];
+    m_buffer = ByteBuffer.wrap(m_bytes);
+  }
+
+  /** 読み込みバッファのサイズ(1行の最大長) */
+  private static final int BUFFER_SIZE = 1 << 16;
+  /** 高速な解析を行う仮数部の最大桁数(10^15 < 2^53) */
+  private static final int MAX_FAST_DIGITS = 15;
+  /** double で正確に表せる10の冪の最大指数 */
+  private static final int MAX_EXACT_POWER = 22;
+  /** 10の冪 */
+  private static final double[] POWERS_OF_TEN = {
+          1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+          1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  /** ファイルのチャネル */
+  private final FileChannel m_channel;
+  /** 読み込みバッファ */
+  private final byte[] m_bytes;
+  /** 読み込みバッファ(m_bytes を包む) */
+  private final ByteBuffer m_buffer;
+  /** 未解析のバイト列の先頭 */
+  private int m_position;
+  /** 読み込み済みのバイト列の終端 */
+  private int m_limit;
+  /** ファイルの終端に達したかどうか */
+  private boolean m_eof;
+  /** 現在の行の先頭 */
+  private int m_lineStart;
+  /** 現在の行の終端(改行文字を含まない) */
+  private int m_lineEnd;
+  /** 読み込んだ行数(ヘッダを含む) */
+  private int m_row;
+}
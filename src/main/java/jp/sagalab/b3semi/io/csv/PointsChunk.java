@@ -0,0 +1,80 @@
+package jp.sagalab.b3semi.io.csv;
+
+/**
+ * CSVファイルから読み込んだ点列を, x座標, y座標, 時刻の配列として保持するクラスです.
+ * <p>
+ * 配列は複製せずにそのまま返します. {@link PointsCSVReader#chunks(int)} で得られるものは
+ * 次の読み込みで上書きされるため, 必要であれば複製して使ってください.
+ * </p>
+ */
+public final class PointsChunk {
+
+  /**
+   * 点数を返します.
+   *
+   * @return 点数
+   */
+  public int size() {
+    return m_size;
+  }
+
+  /**
+   * x座標の配列を返します. 先頭から {@link #size()} 個が有効な値です.
+   *
+   * @return x座標の配列
+   */
+  public double[] x() {
+    return m_x;
+  }
+
+  /**
+   * y座標の配列を返します. 先頭から {@link #size()} 個が有効な値です.
+   *
+   * @return y座標の配列
+   */
+  public double[] y() {
+    return m_y;
+  }
+
+  /**
+   * 時刻の配列を返します. 先頭から {@link #size()} 個が有効な値です.
+   *
+   * @return 時刻の配列
+   */
+  public double[] time() {
+    return m_t;
+  }
+
+  /**
+   * 点数を設定します.
+   *
+   * @param _size 点数
+   */
+  void setSize(int _size) {
+    m_size = _size;
+  }
+
+  /**
+   * コンストラクタ
+   *
+   * @param _x    x座標の配列
+   * @param _y    y座標の配列
+   * @param _t    時刻の配列
+   * @param _size 点数
+   */
+  PointsChunk(double[] _x, double[] _y, double[] _t, int _size) {
+    m_x = _x;
+    m_y = _y;
+    m_t = _t;
+    m_size = _size;
+  }
+
+  /** x座標 */
+  private final double[] m_x;
+  /** y座標 */
+  private final double[] m_y;
+  /** 時刻 */
+  private final double[] m_t;
+  /** 点数 */
+  private int m_size;
+}
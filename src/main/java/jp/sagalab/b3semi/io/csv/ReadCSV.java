@@ -1,6 +1,7 @@
 package jp.sagalab.b3semi.io.csv;
 
 import jp.sagalab.b3semi.Point;
+import jp.sagalab.b3semi.PointSeries;
 
 import java.io.BufferedReader;
 import java.io.File;
@@ -71,6 +72,20 @@ public class ReadCSV {
     return pointsList;
   }
 
+  /**
+   * CSV形式の点列ファイルを {@link PointSeries} として読み込む.
+   * <p>
+   * {@link PointsCSVReader} で読み込むため, 点ごとの {@link Point} は生成しない.
+   * </p>
+   *
+   * @param _pointsFile 点列のCSVファイル
+   * @return 点列
+   */
+  public static PointSeries readPointSeries(File _pointsFile) {
+    PointsChunk chunk = PointsCSVReader.readAll(_pointsFile);
+    return PointSeries.create(chunk.x(), chunk.y(), chunk.time(), chunk.size());
+  }
+
   /**
    * CSV形式のknot列の読み込みを行う.
    *